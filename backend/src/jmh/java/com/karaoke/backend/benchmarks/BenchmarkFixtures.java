@@ -0,0 +1,52 @@
+package com.karaoke.backend.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.models.User;
+
+/**
+ * Monta sessões em memória (sem banco) com o formato de uma festa real:
+ * N músicas distribuídas entre M cantores, todos na rotação.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static KaraokeSession session(int queueSize, int userCount) {
+        KaraokeSession session = new KaraokeSession();
+        session.setId(1L);
+
+        List<User> users = new ArrayList<>(userCount);
+        for (long u = 1; u <= userCount; u++) {
+            User user = new User();
+            user.setId(u);
+            user.setUsername("cantor" + u);
+            user.setEmail("cantor" + u + "@karaq.dev");
+            users.add(user);
+            session.addUser(user);
+            session.addToRotation(Long.toString(u));
+        }
+        session.setHost(users.get(0));
+
+        for (int i = 0; i < queueSize; i++) {
+            // Distribuição desigual: os primeiros cantores enfileiram mais músicas
+            User user = users.get((int) ((long) i * i % userCount));
+            session.getSongQueue().add(item(session, i + 1L, user));
+        }
+        return session;
+    }
+
+    static QueueItem item(KaraokeSession session, long id, User user) {
+        Song song = new Song("yt" + id, "Música " + id + " (Karaokê Version)", "Artista " + id,
+                "https://www.youtube.com/embed/yt" + id);
+        song.setSongId(id);
+        QueueItem item = new QueueItem(session, user, song);
+        item.setQueueItemId(id);
+        return item;
+    }
+}
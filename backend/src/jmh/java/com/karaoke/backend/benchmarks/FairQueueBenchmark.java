@@ -0,0 +1,90 @@
+package com.karaoke.backend.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.services.FilaService;
+import com.karaoke.backend.services.SessionEngine;
+import com.karaoke.backend.services.SessionView;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Fila justa nos três cenários que aparecem em produção: leitura repetida sem
+ * mudanças (SessionView publicado pelo SessionEngine), tocar a próxima música e
+ * re-enfileirar (atualização incremental na lane da sessão) e cálculo sem estado
+ * sobre as entidades (FilaService.computeFairOrder, usado na hidratação).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FairQueueBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int queueSize;
+
+    @Param({"5", "80"})
+    private int userCount;
+
+    private FilaService filaService;
+    private SessionEngine engine;
+    private KaraokeSession session;
+    private Map<Long, QueueItem> itemsById;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = new SessionEngine(null, null, null, 1);
+        filaService = new FilaService(null, engine, null, new SimpleMeterRegistry(), 0, 0, 0);
+        session = BenchmarkFixtures.session(queueSize, userCount);
+        itemsById = session.getSongQueue().stream()
+                .collect(Collectors.toMap(QueueItem::getQueueItemId, Function.identity()));
+        engine.register(session);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public SessionView cachedView() {
+        return engine.view(session.getAccessCode());
+    }
+
+    @Benchmark
+    public SessionView playNextThenRequeue() {
+        // Toca a primeira da fila justa e a mesma pessoa enfileira de novo: o tamanho fica estável
+        QueueItemDTO played = engine.view(session.getAccessCode()).nowPlaying();
+        engine.removeItem(session.getAccessCode(), played.queueItemId());
+        engine.addItem(session.getAccessCode(), itemsById.get(played.queueItemId()));
+        return engine.view(session.getAccessCode());
+    }
+
+    @Benchmark
+    public List<QueueItem> statelessFromEntities() {
+        return filaService.computeFairOrder(session);
+    }
+}
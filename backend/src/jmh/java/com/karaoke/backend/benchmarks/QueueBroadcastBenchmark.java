@@ -0,0 +1,97 @@
+package com.karaoke.backend.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.FilaUpdateDTO;
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.dtos.UserDTO;
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.services.FilaService;
+import com.karaoke.backend.services.PayloadCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Custo de montar e serializar a mensagem de /topic/fila/{code}: mapeamento
+ * entidade → DTO e serialização Jackson do FilaUpdateDTO, com e sem o PayloadCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBroadcastBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int queueSize;
+
+    @Param({"5", "80"})
+    private int userCount;
+
+    private KaraokeSession session;
+    private List<QueueItem> fairOrder;
+    private FilaUpdateDTO update;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PayloadCache payloadCache = new PayloadCache(objectMapper);
+
+    @Setup
+    public void setUp() {
+        session = BenchmarkFixtures.session(queueSize, userCount);
+        fairOrder = new FilaService(null, null, null, new SimpleMeterRegistry(), 0, 0, 0).computeFairOrder(session);
+        update = buildUpdate();
+    }
+
+    @Benchmark
+    public List<QueueItemDTO> mapQueueItems() {
+        return fairOrder.stream().map(QueueItemDTO::fromEntity).toList();
+    }
+
+    @Benchmark
+    public List<UserDTO> mapUsers() {
+        return session.getConnectedUsers().stream().map(UserDTO::fromEntity).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeUpdate() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(update);
+    }
+
+    // Mesmo retrato pedido de novo (GET/inscrição sem mudança na fila): bytes do cache
+    @Benchmark
+    public byte[] cachedSerialize() {
+        return payloadCache.json(session.getAccessCode(), PayloadCache.Tipo.FILA, update, () -> update);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(buildUpdate());
+    }
+
+    private FilaUpdateDTO buildUpdate() {
+        List<QueueItemDTO> queue = mapQueueItems();
+        return new FilaUpdateDTO(
+                queue,
+                queue.isEmpty() ? null : queue.get(0),
+                session.getStatus().name(),
+                mapUsers(),
+                session.getHost().getEmail(),
+                0L);
+    }
+}
@@ -0,0 +1,177 @@
+package com.karaoke.backend.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.models.User;
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import com.karaoke.backend.repositories.QueueItemRepository;
+import com.karaoke.backend.repositories.SongRepository;
+import com.karaoke.backend.repositories.UserRepository;
+
+/**
+ * Gravação de 100 pedidos (música nova + item da fila) em um H2 em memória, um por transação
+ * (como 100 chamadas a addSongToQueue) ou em lote (addSongsToQueue). Ao fim, imprime as idas
+ * ao banco por operação (execute/executeBatch/commit contados no DataSource):
+ * -Djmh.args="QueueInsert"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class QueueInsertBenchmark {
+
+    private static final int ITEMS = 100;
+    private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transaction;
+    private SongRepository songRepository;
+    private QueueItemRepository queueItemRepository;
+    private KaraokeSession session;
+    private User user;
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Argumentos de linha de comando para passar por cima do application.properties (Postgres);
+        // o esquema vem das migrações do Flyway
+        context = new SpringApplicationBuilder(JpaOnly.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=PostgreSQL",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        songRepository = context.getBean(SongRepository.class);
+        queueItemRepository = context.getBean(QueueItemRepository.class);
+
+        user = new User();
+        user.setUsername("cantor");
+        user = context.getBean(UserRepository.class).save(user);
+        session = context.getBean(KaraokeSessionRepository.class).save(new KaraokeSession());
+        ROUND_TRIPS.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s: %.1f idas ao banco por %d itens%n",
+                mode, (double) ROUND_TRIPS.get() / Math.max(1, operations.get()), ITEMS);
+        context.close();
+    }
+
+    @Benchmark
+    public int insert() {
+        operations.incrementAndGet();
+        long base = sequence.getAndAdd(ITEMS);
+        if (mode.equals("batch")) {
+            return transaction.execute(status -> {
+                List<Song> songs = new ArrayList<>(ITEMS);
+                List<QueueItem> items = new ArrayList<>(ITEMS);
+                for (int i = 0; i < ITEMS; i++) {
+                    Song song = new Song("B" + (base + i), "Música " + i, "Artista", "");
+                    songs.add(song);
+                    items.add(new QueueItem(session, user, song));
+                }
+                songRepository.saveAll(songs);
+                return queueItemRepository.saveAll(items).size();
+            });
+        }
+        for (int i = 0; i < ITEMS; i++) {
+            long n = base + i;
+            transaction.executeWithoutResult(status -> {
+                Song song = songRepository.save(new Song("S" + n, "Música " + n, "Artista", ""));
+                queueItemRepository.save(new QueueItem(session, user, song));
+            });
+        }
+        return ITEMS;
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = QueueItem.class)
+    @EnableJpaRepositories(basePackageClasses = QueueItemRepository.class)
+    static class JpaOnly {
+
+        // Conta cada comando enviado ao banco (um executeBatch é uma ida só) e cada commit
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counting(dataSource) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T counting(T target) {
+            return (T) Proxy.newProxyInstance(target.getClass().getClassLoader(), allInterfaces(target.getClass()), (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("execute") || name.equals("commit")) ROUND_TRIPS.incrementAndGet();
+                try {
+                    Object result = method.invoke(target, args);
+                    if (result instanceof Connection connection) return counting(connection);
+                    if (result instanceof Statement statement) return counting(statement);
+                    return result;
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        private static Class<?>[] allInterfaces(Class<?> type) {
+            List<Class<?>> interfaces = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Class<?> i : c.getInterfaces()) {
+                    if (!interfaces.contains(i)) interfaces.add(i);
+                }
+            }
+            return interfaces.toArray(Class<?>[]::new);
+        }
+    }
+}
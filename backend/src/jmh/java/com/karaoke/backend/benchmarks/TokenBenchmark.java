@@ -0,0 +1,61 @@
+package com.karaoke.backend.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.karaoke.backend.models.User;
+import com.karaoke.backend.services.TokenService;
+
+/**
+ * TokenService.validateToken roda em toda requisição autenticada (JwtAuthFilter).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+
+    private static final String SECRET =
+            "YTNmZDE2ZWY4ZjkzNGU4YmE0YmUyZGE5Zjk4YzU0MzI1YjA3Zjc5MjBkMDhiMDU5YzQwMGVlNWU2YjUzYjUyMA==";
+
+    private TokenService tokenService;
+    private String validToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "secret", SECRET);
+        ReflectionTestUtils.setField(tokenService, "expirationTime", TimeUnit.HOURS.toMillis(2));
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("cantor");
+        user.setEmail("cantor@karaq.dev");
+        validToken = tokenService.generateToken(user);
+        tamperedToken = validToken.substring(0, validToken.length() - 2) + "xx";
+    }
+
+    @Benchmark
+    public String validToken() {
+        return tokenService.validateToken(validToken);
+    }
+
+    @Benchmark
+    public String tamperedToken() {
+        return tokenService.validateToken(tamperedToken);
+    }
+}
@@ -0,0 +1,134 @@
+package com.karaoke.backend.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.YoutubeSearchListResponse;
+import com.karaoke.backend.dtos.YoutubeVideoListResponse;
+
+/**
+ * Decodificação das respostas de search.list + videos.list de uma busca (10 vídeos):
+ * árvore Map&lt;String, Object&gt; percorrida com casts (como era) contra records que
+ * ignoram campos desconhecidos. Para alocação por busca, rodar com o profiler de GC:
+ * -Djmh.args="YoutubeDecoding -prof gc" e comparar gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YoutubeDecodingBenchmark {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] searchJson;
+    private byte[] videosJson;
+
+    @Setup
+    public void setUp() {
+        searchJson = searchResponse(10).getBytes(StandardCharsets.UTF_8);
+        videosJson = videosResponse(10).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int mapTree() throws IOException {
+        int found = 0;
+        Map<String, Object> search = objectMapper.readValue(searchJson, JSON_OBJECT);
+        for (Map<String, Object> item : (List<Map<String, Object>>) search.get("items")) {
+            String videoId = (String) ((Map<String, Object>) item.get("id")).get("videoId");
+            Map<String, Object> snippet = (Map<String, Object>) item.get("snippet");
+            String title = (String) snippet.get("title");
+            Map<String, Object> thumbs = (Map<String, Object>) snippet.get("thumbnails");
+            String thumbnail = (String) ((Map<String, Object>) thumbs.get("default")).get("url");
+            found += videoId.length() + title.length() + thumbnail.length();
+        }
+
+        Map<String, Object> videos = objectMapper.readValue(videosJson, JSON_OBJECT);
+        for (Map<String, Object> item : (List<Map<String, Object>>) videos.get("items")) {
+            boolean embeddable = (Boolean) ((Map<String, Object>) item.get("status")).get("embeddable");
+            Map<String, Object> contentDetails = (Map<String, Object>) item.get("contentDetails");
+            List<String> blocked = new ArrayList<>();
+            if (contentDetails.get("regionRestriction") instanceof Map<?, ?> restriction
+                    && restriction.get("blocked") instanceof List<?> regions) {
+                regions.forEach(r -> blocked.add((String) r));
+            }
+            found += (embeddable ? 1 : 0) + blocked.size() + ((String) contentDetails.get("duration")).length();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int typedRecords() throws IOException {
+        int found = 0;
+        YoutubeSearchListResponse search = objectMapper.readValue(searchJson, YoutubeSearchListResponse.class);
+        for (YoutubeSearchListResponse.Item item : search.items()) {
+            found += item.videoId().length() + item.title().length() + item.thumbnailUrl().length();
+        }
+
+        YoutubeVideoListResponse videos = objectMapper.readValue(videosJson, YoutubeVideoListResponse.class);
+        for (YoutubeVideoListResponse.Item item : videos.items()) {
+            found += (item.embeddable() ? 1 : 0) + item.blockedRegions().size() + item.duration().length();
+        }
+        return found;
+    }
+
+    // Formato real de search.list?part=snippet: descrição, canal e três tamanhos de thumbnail por item
+    private static String searchResponse(int count) {
+        StringBuilder json = new StringBuilder("""
+                {"kind":"youtube#searchListResponse","etag":"q1w2e3r4t5y6u7i8o9p0","nextPageToken":"CAoQAA",
+                 "regionCode":"BR","pageInfo":{"totalResults":1000000,"resultsPerPage":10},"items":[""");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            String id = "vid" + String.format("%08d", i);
+            json.append("""
+                    {"kind":"youtube#searchResult","etag":"etag%1$s","id":{"kind":"youtube#video","videoId":"%1$s"},
+                     "snippet":{"publishedAt":"2019-05-14T17:00:09Z","channelId":"UCchannel%1$s",
+                      "title":"Evidências - Chitãozinho & Xororó (Karaokê Versão) %1$s",
+                      "description":"Cante junto com a versão karaokê oficial. Inscreva-se no canal e ative o sininho para receber novos vídeos toda semana!",
+                      "thumbnails":{"default":{"url":"https://i.ytimg.com/vi/%1$s/default.jpg","width":120,"height":90},
+                       "medium":{"url":"https://i.ytimg.com/vi/%1$s/mqdefault.jpg","width":320,"height":180},
+                       "high":{"url":"https://i.ytimg.com/vi/%1$s/hqdefault.jpg","width":480,"height":360}},
+                      "channelTitle":"Karaokê Brasil Oficial","liveBroadcastContent":"none",
+                      "publishTime":"2019-05-14T17:00:09Z"}}""".formatted(id));
+        }
+        return json.append("]}").toString();
+    }
+
+    // Formato real de videos.list?part=status,contentDetails
+    private static String videosResponse(int count) {
+        StringBuilder json = new StringBuilder("""
+                {"kind":"youtube#videoListResponse","etag":"a1s2d3f4g5h6j7k8l9","items":[""");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            String id = "vid" + String.format("%08d", i);
+            String restriction = i % 3 == 0 ? ",\"regionRestriction\":{\"blocked\":[\"DE\",\"RU\",\"CN\"]}" : "";
+            json.append("""
+                    {"kind":"youtube#video","etag":"etag%1$s","id":"%1$s",
+                     "contentDetails":{"duration":"PT4M%2$dS","dimension":"2d","definition":"hd","caption":"false",
+                      "licensedContent":true,"contentRating":{},"projection":"rectangular"%3$s},
+                     "status":{"uploadStatus":"processed","privacyStatus":"public","license":"youtube",
+                      "embeddable":true,"publicStatsViewable":true,"madeForKids":false}}""".formatted(id, i, restriction));
+        }
+        return json.append("]}").toString();
+    }
+}
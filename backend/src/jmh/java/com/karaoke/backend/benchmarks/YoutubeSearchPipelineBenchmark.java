@@ -0,0 +1,101 @@
+package com.karaoke.backend.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.integration.FakeYoutubeApiServer;
+import com.karaoke.backend.repositories.SongRepository;
+import com.karaoke.backend.repositories.VideoValidationRepository;
+import com.karaoke.backend.services.SongCatalogIndex;
+import com.karaoke.backend.services.VideoValidationCache;
+import com.karaoke.backend.services.YoutubeApiClient;
+import com.karaoke.backend.services.YoutubeCircuitBreaker;
+import com.karaoke.backend.services.YoutubeQuotaGovernor;
+import com.karaoke.backend.services.YoutubeService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pipeline de busca completo (HTTP, decodificação, lotes de videos.list, cache de validação)
+ * contra o FakeYoutubeApiServer, com 8 buscas simultâneas e sem cache de busca (cada
+ * chamada usa uma consulta nova). latencyMs é a mediana de uma latência log-normal.
+ * Ao fim, imprime chamadas videos.list por busca para comparar o efeito dos lotes:
+ * -Djmh.args="YoutubeSearchPipeline -p latencyMs=80"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class YoutubeSearchPipelineBenchmark {
+
+    private static final List<String> TERMS = List.of("queen", "evidencias", "legiao", "djavan", "roberto",
+            "leandro", "adele", "abba", "trem", "raul", "cazuza", "marilia", "oasis", "bon jovi");
+
+    @Param({"0", "80"})
+    public long latencyMs;
+
+    @Param({"5"})
+    public long batchWindowMs;
+
+    private FakeYoutubeApiServer api;
+    private YoutubeApiClient apiClient;
+    private YoutubeService youtubeService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        api = FakeYoutubeApiServer.start()
+                .latency(latencyMs == 0 ? FakeYoutubeApiServer.Latency.none() : FakeYoutubeApiServer.Latency.logNormal(latencyMs, 0.5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        apiClient = new YoutubeApiClient(new ObjectMapper(), 2_000, 10_000);
+        youtubeService = new YoutubeService(apiClient,
+                new VideoValidationCache(mock(VideoValidationRepository.class), 7, 100_000),
+                new SongCatalogIndex(mock(SongRepository.class)),
+                new YoutubeQuotaGovernor(meterRegistry, 1_000_000_000_000L, 0, 1_000_000_000_000L, 1_000_000_000_000L, 1_000),
+                new YoutubeCircuitBreaker(meterRegistry, 1_000, 1_000),
+                meterRegistry, 60, 4320, 64, 64, 3, batchWindowMs);
+        ReflectionTestUtils.setField(youtubeService, "apiKey", "BENCHMARK_KEY");
+        ReflectionTestUtils.setField(youtubeService, "apiBaseUrl", api.baseUrl());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nbuscas: %d, videos.list: %d (%.2f por busca, %.1f IDs por chamada)%n",
+                api.searchCalls(), api.videosCalls(), (double) api.videosCalls() / api.searchCalls(),
+                (double) api.videoIdsRequested() / Math.max(1, api.videosCalls()));
+        youtubeService.shutdown();
+        apiClient.shutdown();
+        api.close();
+    }
+
+    @Benchmark
+    public List<YouTubeVideoDTO> search() {
+        long n = sequence.incrementAndGet();
+        // Termo conhecido + número novo: casa com o corpus, mas nunca repete a chave do cache de busca
+        return youtubeService.searchVideos(TERMS.get((int) (n % TERMS.size())) + " " + n);
+    }
+}
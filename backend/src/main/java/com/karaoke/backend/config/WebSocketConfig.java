@@ -1,8 +1,14 @@
 package com.karaoke.backend.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -32,6 +38,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         return new ThreadPoolTaskScheduler();
     }
 
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Payloads byte[] são JSON já serializado (PayloadCache): vão como estão, com o content-type certo.
+        // Aceita também o cabeçalho application/json e fica na frente da lista (o Spring Boot registra os
+        // seus conversores antes), senão o conversor Jackson pegaria o byte[] e o mandaria como base64.
+        messageConverters.add(0, new ByteArrayMessageConverter() {
+            {
+                addSupportedMimeTypes(MimeTypeUtils.APPLICATION_JSON);
+            }
+
+            @Override
+            protected MimeType getDefaultContentType(Object payload) {
+                return MimeTypeUtils.APPLICATION_JSON;
+            }
+        });
+        return true; // Mantém os conversores padrão (JSON via Jackson, String) depois deste
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
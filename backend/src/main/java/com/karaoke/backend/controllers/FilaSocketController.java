@@ -0,0 +1,28 @@
+package com.karaoke.backend.controllers;
+
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import com.karaoke.backend.services.FilaService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoints STOMP da fila. O tópico /topic/fila/{code} só transmite deltas; o retrato
+ * completo é pedido pelo cliente inscrevendo-se em /app/fila/{code}, ao entrar na
+ * sessão e sempre que perceber um buraco na sequência.
+ */
+@Controller
+@RequiredArgsConstructor
+public class FilaSocketController {
+
+    private final FilaService filaService;
+
+    // A resposta vai direto para quem se inscreveu, não passa pelo broker.
+    // O JSON é o mesmo byte[] para todas as inscrições até a próxima publicação.
+    @SubscribeMapping("/fila/{sessionCode}")
+    public byte[] snapshot(@DestinationVariable String sessionCode) {
+        return filaService.montarAtualizacaoFilaJson(sessionCode);
+    }
+}
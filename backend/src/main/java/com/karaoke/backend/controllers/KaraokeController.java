@@ -2,9 +2,9 @@ package com.karaoke.backend.controllers;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,8 +17,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.karaoke.backend.dtos.AddSongRequestDTO;
 import com.karaoke.backend.dtos.QueueItemDTO;
-import com.karaoke.backend.dtos.SessionResponseDTO;
-import com.karaoke.backend.dtos.UserDTO;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
 import com.karaoke.backend.models.KaraokeSession;
 import com.karaoke.backend.models.QueueItem;
@@ -33,6 +31,9 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class KaraokeController {
 
+    // Limite de vídeos por importação, para uma requisição não prender a sessão por muito tempo
+    private static final int MAX_BATCH_SIZE = 200;
+
     private final KaraokeService service;
     private final FilaService filaService;
     private final com.karaoke.backend.repositories.UserRepository userRepository;
@@ -51,41 +52,20 @@ public class KaraokeController {
     }
     
     @GetMapping("/{sessionCode}")
-    public ResponseEntity<SessionResponseDTO> getSession(@PathVariable String sessionCode) {
-        SessionResponseDTO responseDTO = service.getSessionResponse(sessionCode);
-        return ResponseEntity.ok(responseDTO);
+    public ResponseEntity<byte[]> getSession(@PathVariable String sessionCode) {
+        // SessionResponseDTO já serializado, reaproveitado até a próxima mudança na sessão
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service.getSessionResponseJson(sessionCode));
     }
 
     // Endpoint temporário de debug: retorna a fila justa (fair queue) calculada pelo servidor.
     @GetMapping("/{sessionCode}/fairQueue")
-    public ResponseEntity<com.karaoke.backend.dtos.FilaUpdateDTO> getFairQueue(@PathVariable String sessionCode) {
-        KaraokeSession session = service.getSession(sessionCode.toUpperCase());
-        
-        // Calcula a fila justa
-        java.util.List<com.karaoke.backend.models.QueueItem> fair = filaService.computeFairOrder(session);
-        
-        // Mapeia a fila para DTOs
-        java.util.List<com.karaoke.backend.dtos.QueueItemDTO> dtoList = fair.stream()
-                .map(com.karaoke.backend.dtos.QueueItemDTO::fromEntity)
-                .toList();
-        
-        // Mapeia os usuários para DTOs
-        List<UserDTO> userDTOs = session.getConnectedUsers().stream()
-                .map(UserDTO::fromEntity)
-                .collect(Collectors.toList());
-
-        com.karaoke.backend.dtos.QueueItemDTO nowPlaying = dtoList.isEmpty() ? null : dtoList.get(0);
-        
-        // Constrói o DTO com os 4 argumentos corretos
-        com.karaoke.backend.dtos.FilaUpdateDTO dto = new com.karaoke.backend.dtos.FilaUpdateDTO(
-            dtoList, 
-            nowPlaying,
-            session.getStatus() == null ? null : session.getStatus().name(),
-            userDTOs,
-            session.getHost() != null ? session.getHost().getEmail() : null
-        );
-        
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<byte[]> getFairQueue(@PathVariable String sessionCode) {
+        // Fila justa, usuários e host vêm do estado em memória da sessão (FilaUpdateDTO já serializado)
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(filaService.montarAtualizacaoFilaJson(sessionCode));
     }
 
     @PostMapping("/{sessionCode}/queue")
@@ -93,6 +73,10 @@ public class KaraokeController {
             @PathVariable String sessionCode,
             @RequestBody AddSongRequestDTO request,
             @AuthenticationPrincipal User user) {
+        if (!isValid(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+
         YouTubeVideoDTO videoEscolhido = new YouTubeVideoDTO();
         videoEscolhido.setVideoId(request.videoId());
         videoEscolhido.setTitle(request.title());
@@ -106,6 +90,39 @@ public class KaraokeController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    @PostMapping("/{sessionCode}/queue/batch")
+    public ResponseEntity<Void> addSongsToQueue(
+            @PathVariable String sessionCode,
+            @RequestBody List<AddSongRequestDTO> requests,
+            @AuthenticationPrincipal User user) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Um item inválido recusa o lote inteiro, antes de gravar qualquer música
+        if (!requests.stream().allMatch(KaraokeController::isValid)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<YouTubeVideoDTO> videos = requests.stream().map(request -> {
+            YouTubeVideoDTO video = new YouTubeVideoDTO();
+            video.setVideoId(request.videoId());
+            video.setTitle(request.title());
+            video.setThumbnail(request.thumbnailUrl());
+            return video;
+        }).toList();
+
+        service.addSongsToQueue(sessionCode, videos, user);
+
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    // Sem videoId ou título não há o que tocar nem o que mostrar na fila
+    private static boolean isValid(AddSongRequestDTO request) {
+        return request != null
+                && request.videoId() != null && !request.videoId().isBlank()
+                && request.title() != null && !request.title().isBlank();
+    }
+
     @PostMapping("/{sessionCode}/queue/next")
     public ResponseEntity<Void> playNextSong(
             @PathVariable String sessionCode,
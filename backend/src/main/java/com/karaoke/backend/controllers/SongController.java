@@ -1,6 +1,7 @@
 package com.karaoke.backend.controllers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,18 +9,35 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.karaoke.backend.dtos.SuggestionDTO;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.services.SongSuggestionIndex;
 import com.karaoke.backend.services.YoutubeService;
 
 @RestController
 @RequestMapping("/api/videos")
 public class SongController {
 
+    private static final int MAX_SUGGESTIONS = 10;
+
     @Autowired
     private YoutubeService youTubeService;
 
+    @Autowired
+    private SongSuggestionIndex suggestionIndex;
+
     @GetMapping("/search")
-    public List<YouTubeVideoDTO> search(@RequestParam String query) {
-        return youTubeService.searchVideos(query+"+karaoke");
+    public CompletableFuture<List<YouTubeVideoDTO>> search(@RequestParam String query) {
+        return youTubeService.searchVideosAsync(query+"+karaoke").thenApply(results -> {
+            if (!results.isEmpty()) suggestionIndex.recordQuery(query);
+            return results;
+        });
+    }
+
+    // Autocompletar em memória: não chama o YouTube
+    @GetMapping("/suggest")
+    public List<SuggestionDTO> suggest(@RequestParam String prefix,
+                                       @RequestParam(defaultValue = "8") int limit) {
+        return suggestionIndex.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,16 +19,16 @@ public class YouTubeController {
 
 
     @GetMapping
-    public ResponseEntity<YouTubeVideoDTO> resolveBestVideo(@RequestParam String query) {
-        
-        List<YouTubeVideoDTO> validResults = youTubeService.searchVideos(query);
+    public CompletableFuture<ResponseEntity<YouTubeVideoDTO>> resolveBestVideo(@RequestParam String query) {
 
-        if (!validResults.isEmpty()) {
-            YouTubeVideoDTO bestVideo = validResults.getFirst();
+        return youTubeService.searchVideosAsync(query).thenApply(validResults -> {
+            if (!validResults.isEmpty()) {
+                YouTubeVideoDTO bestVideo = validResults.getFirst();
 
-            return ResponseEntity.ok(bestVideo);
-        } else {
-            return ResponseEntity.notFound().build(); 
-        }
+                return ResponseEntity.ok(bestVideo);
+            } else {
+                return ResponseEntity.<YouTubeVideoDTO>notFound().build();
+            }
+        });
     }
 }
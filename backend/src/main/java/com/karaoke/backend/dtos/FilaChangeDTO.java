@@ -0,0 +1,46 @@
+package com.karaoke.backend.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Uma alteração dentro de um FilaDeltaDTO. Só os campos usados pela operação são enviados.
+ *
+ * @param index posição final na fila (ITEM_ADDED e ITEM_MOVED)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FilaChangeDTO(Op op, Long queueItemId, Integer index, QueueItemDTO item, UserDTO user) {
+
+    public enum Op {
+        ITEM_ADDED,
+        ITEM_REMOVED,
+        ITEM_MOVED,
+        NOW_PLAYING,
+        USER_JOINED,
+        USER_LEFT
+    }
+
+    public static FilaChangeDTO itemAdded(int index, QueueItemDTO item) {
+        return new FilaChangeDTO(Op.ITEM_ADDED, item.queueItemId(), index, item, null);
+    }
+
+    public static FilaChangeDTO itemRemoved(Long queueItemId) {
+        return new FilaChangeDTO(Op.ITEM_REMOVED, queueItemId, null, null, null);
+    }
+
+    public static FilaChangeDTO itemMoved(Long queueItemId, int index) {
+        return new FilaChangeDTO(Op.ITEM_MOVED, queueItemId, index, null, null);
+    }
+
+    /** queueItemId nulo significa que nada está tocando (fila vazia). */
+    public static FilaChangeDTO nowPlaying(Long queueItemId) {
+        return new FilaChangeDTO(Op.NOW_PLAYING, queueItemId, null, null, null);
+    }
+
+    public static FilaChangeDTO userJoined(UserDTO user) {
+        return new FilaChangeDTO(Op.USER_JOINED, null, null, null, user);
+    }
+
+    public static FilaChangeDTO userLeft(UserDTO user) {
+        return new FilaChangeDTO(Op.USER_LEFT, null, null, null, user);
+    }
+}
@@ -0,0 +1,22 @@
+package com.karaoke.backend.dtos;
+
+import java.util.List;
+
+/**
+ * Alterações da fila desde a última mensagem publicada em /topic/fila/{code}.
+ *
+ * O cliente aplica o delta se seq == seqAtual + 1 e ignora seq menores; qualquer
+ * outro valor indica mensagem perdida e o cliente deve pedir um novo retrato.
+ *
+ * Aplicação das mudanças de fila: remove os itens de ITEM_REMOVED e ITEM_MOVED e
+ * depois insere ITEM_ADDED/ITEM_MOVED nas posições indicadas, na ordem da lista
+ * (já vem em ordem crescente de índice).
+ */
+public record FilaDeltaDTO(String type, long seq, List<FilaChangeDTO> changes) {
+
+    public static final String TYPE = "delta";
+
+    public FilaDeltaDTO(long seq, List<FilaChangeDTO> changes) {
+        this(TYPE, seq, changes);
+    }
+}
@@ -2,8 +2,13 @@ package com.karaoke.backend.dtos;
 
 import java.util.List;
 
-import com.karaoke.backend.models.User;
-
-public record FilaUpdateDTO (List<QueueItemDTO> songQueue, QueueItemDTO nowPlaying, String sessionStatus, List<UserDTO> connectedUsers, String hostEmail) {
-
-}
\ No newline at end of file
+/**
+ * Retrato completo da fila de uma sessão. Enviado na inscrição (/app/fila/{code}),
+ * quando o cliente detecta um buraco na sequência, e pelo GET /fairQueue.
+ *
+ * @param seq número de sequência da última alteração incluída; os FilaDeltaDTO
+ *            seguintes continuam a partir dele (seq + 1, seq + 2, ...)
+ */
+public record FilaUpdateDTO (List<QueueItemDTO> songQueue, QueueItemDTO nowPlaying, String sessionStatus, List<UserDTO> connectedUsers, String hostEmail, long seq) {
+
+}
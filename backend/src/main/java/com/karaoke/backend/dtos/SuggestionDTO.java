@@ -0,0 +1,8 @@
+package com.karaoke.backend.dtos;
+
+/**
+ * Sugestão do autocompletar. videoId vem preenchido quando a sugestão é uma música já
+ * cadastrada (o convidado pode adicioná-la direto, sem nova busca); buscas anteriores vêm sem.
+ */
+public record SuggestionDTO(String text, String videoId) {
+}
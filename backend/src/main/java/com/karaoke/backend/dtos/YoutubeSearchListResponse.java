@@ -0,0 +1,45 @@
+package com.karaoke.backend.dtos;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Resposta de search.list (part=snippet) reduzida ao que a busca usa: videoId, título e
+ * thumbnail padrão. Descrição, canal, etags e as outras resoluções de thumbnail são
+ * puladas pelo parser sem virar objetos.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record YoutubeSearchListResponse(List<Item> items) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(Id id, Snippet snippet) {
+
+        public String videoId() {
+            return id != null ? id.videoId() : null;
+        }
+
+        public String title() {
+            return snippet != null && snippet.title() != null ? snippet.title() : "";
+        }
+
+        public String thumbnailUrl() {
+            if (snippet == null || snippet.thumbnails() == null || snippet.thumbnails().defaultThumbnail() == null) return "";
+            String url = snippet.thumbnails().defaultThumbnail().url();
+            return url != null ? url : "";
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Id(String videoId) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Snippet(String title, Thumbnails thumbnails) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Thumbnails(@JsonProperty("default") Thumbnail defaultThumbnail) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Thumbnail(String url) {}
+}
@@ -0,0 +1,40 @@
+package com.karaoke.backend.dtos;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Resposta de videos.list (part=status,contentDetails) reduzida aos campos da validação:
+ * embeddable, regiões bloqueadas e duração.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record YoutubeVideoListResponse(List<Item> items) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(String id, Status status, ContentDetails contentDetails) {
+
+        public boolean embeddable() {
+            return status != null && Boolean.TRUE.equals(status.embeddable());
+        }
+
+        public List<String> blockedRegions() {
+            if (contentDetails == null || contentDetails.regionRestriction() == null
+                    || contentDetails.regionRestriction().blocked() == null) return List.of();
+            return contentDetails.regionRestriction().blocked();
+        }
+
+        public String duration() {
+            return contentDetails != null ? contentDetails.duration() : null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Status(Boolean embeddable) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ContentDetails(String duration, RegionRestriction regionRestriction) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RegionRestriction(List<String> blocked) {}
+}
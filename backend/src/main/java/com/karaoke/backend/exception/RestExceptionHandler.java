@@ -3,6 +3,7 @@
 package com.karaoke.backend.exception;
 
 import com.karaoke.backend.dtos.ErrorDetails;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,6 +34,22 @@ public class RestExceptionHandler {
         return ResponseEntity.status(status).body(details);
     }
 
+    // --- 2.1 TRATAMENTO PARA 429 TOO MANY REQUESTS (cota da API do YouTube) ---
+    @ExceptionHandler(YoutubeQuotaExceededException.class)
+    public ResponseEntity<ErrorDetails> handleQuotaExceeded(YoutubeQuotaExceededException ex) {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+
+        ErrorDetails details = new ErrorDetails(
+                status.value(),
+                status.getReasonPhrase(), // "Too Many Requests"
+                ex.getMessage()
+        );
+
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(details);
+    }
+
     // --- 3. TRATAMENTO GENÉRICO (500) ---
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDetails> handleGenericException(Exception ex) {
@@ -0,0 +1,17 @@
+package com.karaoke.backend.exception;
+
+import java.time.Duration;
+
+public class YoutubeQuotaExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public YoutubeQuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
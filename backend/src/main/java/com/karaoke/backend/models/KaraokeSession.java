@@ -1,5 +1,6 @@
 package com.karaoke.backend.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,15 +8,22 @@ import lombok.NoArgsConstructor;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Entity
+@Table(indexes = @Index(name = "idx_karaoke_session_last_activity", columnList = "last_activity_at"))
 @Data
 @NoArgsConstructor
 public class KaraokeSession {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "karaoke_session_id")
+    @SequenceGenerator(name = "karaoke_session_id", sequenceName = "karaoke_session_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false, length = 6)
@@ -32,19 +40,26 @@ public class KaraokeSession {
     private List<User> connectedUsers = new ArrayList<>();
 
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
-    @OrderBy("timestampAdded ASC")
+    @OrderBy("timestampAdded ASC, queueItemId ASC")
     private List<QueueItem> songQueue = new ArrayList<>();
 
-    // Lista que guarda a ordem de rotação dos usuários para a fila justa.
-    // Persistida como uma coleção de elementos simples.
-    @ElementCollection
-    private List<String> rotationUserIds = new ArrayList<>();
+    // Ordem de rotação dos usuários para a fila justa, uma linha por usuário em session_rotation.
+    // Quem entra ganha uma linha depois da última posição; quem sai tem só a sua linha apagada.
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("position ASC")
+    @JsonIgnore
+    private List<RotationEntry> rotation = new ArrayList<>();
 
     // Índice dentro de rotationUserIds apontando qual usuário será servido a seguir.
     private int nextUserIndex = 0;
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Última mutação da fila, gravada pelo write-behind do SessionEngine. A limpeza de sessões
+    // inativas filtra por esta coluna (indexada).
+    @Column(nullable = false)
+    private LocalDateTime lastActivityAt = createdAt;
+
 
     // O metodo generateAccessCode() continua o mesmo...
     private String generateAccessCode() {
@@ -79,6 +94,52 @@ public class KaraokeSession {
         item.setSession(null);
     }
 
+    public void addToRotation(String userId) {
+        int position = rotation.isEmpty() ? 0 : rotation.get(rotation.size() - 1).getPosition() + 1;
+        rotation.add(new RotationEntry(this, userId, position));
+    }
+
+    // IDs dos usuários na ordem da rotação, no formato do FairQueueIndex ("" para anônimo)
+    public List<String> getRotationUserIds() {
+        List<String> userIds = new ArrayList<>(rotation.size());
+        for (RotationEntry entry : rotation) {
+            userIds.add(entry.userKey());
+        }
+        return Collections.unmodifiableList(userIds);
+    }
+
+    /**
+     * Leva a rotação persistida para a ordem informada mexendo só no que mudou: apaga a linha
+     * de quem saiu e insere uma linha no fim para quem entrou. Se a ordem de quem ficou mudar
+     * (o FairQueueIndex hoje só acrescenta no fim), renumera as posições reaproveitando as linhas.
+     */
+    public void setRotationUserIds(List<String> userIds) {
+        Set<String> wanted = new HashSet<>(userIds);
+        rotation.removeIf(entry -> !wanted.contains(entry.userKey()));
+
+        List<String> kept = getRotationUserIds();
+        if (kept.size() <= userIds.size() && kept.equals(userIds.subList(0, kept.size()))) {
+            for (int i = kept.size(); i < userIds.size(); i++) {
+                addToRotation(userIds.get(i));
+            }
+            return;
+        }
+
+        Map<String, RotationEntry> byUser = new HashMap<>();
+        for (RotationEntry entry : rotation) {
+            byUser.put(entry.userKey(), entry);
+        }
+        List<RotationEntry> reordered = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            RotationEntry entry = byUser.remove(userIds.get(i));
+            if (entry == null) entry = new RotationEntry(this, userIds.get(i), i);
+            entry.setPosition(i);
+            reordered.add(entry);
+        }
+        rotation.clear();
+        rotation.addAll(reordered);
+    }
+
     public enum SessionStatus {
 
         WAITING,
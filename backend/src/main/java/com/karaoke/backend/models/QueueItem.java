@@ -4,26 +4,30 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_queue_item_session_order", columnList = "session_id, timestamp_added, queue_item_id"))
 @Data
 @NoArgsConstructor
 public class QueueItem {
 
+    // IDs por sequência em blocos de 50: com IDENTITY o Hibernate não agrupa INSERTs em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queue_item_id")
+    @SequenceGenerator(name = "queue_item_id", sequenceName = "queue_item_seq", allocationSize = 50)
     private Long queueItemId;
 
-    // Data/Hora gerada pelo Hibernate
+    // Data/Hora preenchida no persist (o INSERT em lote só sai no flush)
     @Column(nullable = false, updatable = false)
-    @CreationTimestamp
     private LocalDateTime timestampAdded;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JsonIgnore
     private KaraokeSession session;
 
@@ -40,4 +44,9 @@ public class QueueItem {
         this.user = user;
         this.song = song;
     }
+
+    @PrePersist
+    void onPersist() {
+        if (timestampAdded == null) timestampAdded = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.karaoke.backend.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Um usuário na rotação da fila justa de uma sessão. A ordem vem do banco (ORDER BY position);
+ * as posições podem ter buracos, então entrar ou sair da rotação mexe só na própria linha.
+ */
+@Entity
+@Table(name = "session_rotation",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "user_id"}),
+        indexes = @Index(name = "idx_session_rotation_position", columnList = "session_id, position"))
+@Data
+@NoArgsConstructor
+public class RotationEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_rotation_id")
+    @SequenceGenerator(name = "session_rotation_id", sequenceName = "session_rotation_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private KaraokeSession session;
+
+    // Nulo para o usuário anônimo ("" no FairQueueIndex)
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Só para gerar a chave estrangeira; a escrita é feita por userId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
+
+    @Column(nullable = false)
+    private int position;
+
+    public RotationEntry(KaraokeSession session, String userId, int position) {
+        this.session = session;
+        this.userId = userId.isEmpty() ? null : Long.valueOf(userId);
+        this.position = position;
+    }
+
+    // ID no formato usado pelo FairQueueIndex
+    public String userKey() {
+        return userId == null ? "" : userId.toString();
+    }
+}
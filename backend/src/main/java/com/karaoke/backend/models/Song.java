@@ -4,16 +4,21 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 import lombok.NoArgsConstructor;
     
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_song_youtube_video_id", columnNames = "youtube_video_id"))
 @Data
 @NoArgsConstructor
 public class Song {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "song_id")
+    @SequenceGenerator(name = "song_id", sequenceName = "song_seq", allocationSize = 50)
     private Long songId;
 
     private String youtubeVideoId;
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,13 +14,17 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "tb_user")
+@Table(name = "tb_user", indexes = {
+        @Index(name = "idx_tb_user_username", columnList = "username"),
+        @Index(name = "idx_tb_user_session", columnList = "session_id")
+})
 @Data
 @NoArgsConstructor
 public class User implements UserDetails{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_user_id")
+    @SequenceGenerator(name = "tb_user_id", sequenceName = "tb_user_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,6 +37,7 @@ public class User implements UserDetails{
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
     @JsonIgnore
     private KaraokeSession session;
 
@@ -0,0 +1,52 @@
+package com.karaoke.backend.models;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado da checagem de um vídeo do YouTube (videos.list com status,contentDetails).
+ * Guardado por videoId para que o mesmo vídeo não seja checado de novo a cada busca.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class VideoValidation {
+
+    @Id
+    @Column(length = 32)
+    private String videoId;
+
+    private boolean embeddable;
+
+    // Regiões bloqueadas (regionRestriction.blocked), separadas por vírgula; vazio se não houver
+    @Column(length = 1024)
+    private String blockedRegions;
+
+    // Duração em segundos (contentDetails.duration); nulo se a API não informar
+    private Long durationSeconds;
+
+    private LocalDateTime checkedAt;
+
+    public VideoValidation(String videoId, boolean embeddable, String blockedRegions, Long durationSeconds) {
+        this.videoId = videoId;
+        this.embeddable = embeddable;
+        this.blockedRegions = blockedRegions;
+        this.durationSeconds = durationSeconds;
+        this.checkedAt = LocalDateTime.now();
+    }
+
+    public boolean isBlockedIn(String regionCode) {
+        return blockedRegions != null && !blockedRegions.isEmpty()
+                && Arrays.asList(blockedRegions.split(",")).contains(regionCode);
+    }
+
+    public boolean isPlayableIn(String regionCode) {
+        return embeddable && !isBlockedIn(regionCode);
+    }
+}
@@ -1,9 +1,16 @@
 package com.karaoke.backend.repositories;
 
 import com.karaoke.backend.models.KaraokeSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +19,57 @@ public interface KaraokeSessionRepository extends JpaRepository<KaraokeSession,
     // Spring Data JPA entende o nome do metodo e cria a query automaticamente!
     // "Encontre uma KaraokeSession pelo seu campo accessCode"
     Optional<KaraokeSession> findByAccessCode(String accessCode);
-}
\ No newline at end of file
+
+    // Hidratação do SessionEngine: o grafo traz anfitrião e fila (com autor e música de cada
+    // item) no mesmo SELECT, em vez de uma consulta por item. As mutações e as checagens de
+    // anfitrião usam a busca simples acima.
+    @EntityGraph(attributePaths = {"host", "songQueue", "songQueue.user", "songQueue.song"})
+    Optional<KaraokeSession> findForHydrationByAccessCode(String accessCode);
+
+    // Usuários conectados e rotação não cabem no mesmo fetch join da fila (duas List no mesmo
+    // SELECT dão MultipleBagFetchException). Estas consultas só inicializam as coleções da
+    // sessão já carregada no mesmo contexto de persistência.
+    @Query("select s from KaraokeSession s left join fetch s.connectedUsers where s.id = :id")
+    Optional<KaraokeSession> fetchConnectedUsers(Long id);
+
+    @Query("select s from KaraokeSession s left join fetch s.rotation where s.id = :id")
+    Optional<KaraokeSession> fetchRotation(Long id);
+
+    // Write-behind do SessionEngine: rotação e anfitrião de todas as sessões num SELECT só
+    @Query("select distinct s from KaraokeSession s left join fetch s.host left join fetch s.rotation where s.id in :ids")
+    List<KaraokeSession> findAllWithRotationByIdIn(Collection<Long> ids);
+
+    // Limpeza: sessões paradas desde expiredBefore, ou vazias (sem usuários e sem fila) desde
+    // idleBefore. O intervalo em last_activity_at vem do índice.
+    String INACTIVE = "select s.accessCode from KaraokeSession s"
+            + " where s.lastActivityAt < :idleBefore"
+            + " and (s.lastActivityAt < :expiredBefore"
+            + " or (not exists (select u.id from User u where u.session = s)"
+            + " and not exists (select q.queueItemId from QueueItem q where q.session = s)))";
+
+    // Varredura: mais antigas primeiro
+    @Query(INACTIVE + " order by s.lastActivityAt")
+    List<String> findInactiveAccessCodes(LocalDateTime expiredBefore, LocalDateTime idleBefore, Pageable page);
+
+    // Prazos vencidos na roda de expiração: só confere as sessões informadas
+    @Query(INACTIVE + " and s.accessCode in :accessCodes")
+    List<String> findInactiveAccessCodesIn(Collection<String> accessCodes, LocalDateTime expiredBefore, LocalDateTime idleBefore);
+
+    // Última atividade, para montar (ou corrigir) os prazos da roda de expiração
+    interface SessionActivity {
+        String getAccessCode();
+        LocalDateTime getLastActivityAt();
+    }
+
+    @Query("select s.accessCode as accessCode, s.lastActivityAt as lastActivityAt from KaraokeSession s")
+    List<SessionActivity> findAllActivity();
+
+    @Query("select s.accessCode as accessCode, s.lastActivityAt as lastActivityAt from KaraokeSession s"
+            + " where s.accessCode in :accessCodes")
+    List<SessionActivity> findActivityByAccessCodeIn(Collection<String> accessCodes);
+
+    // Um único DELETE; fila, rotação e vínculo dos usuários saem pelo ON DELETE das chaves estrangeiras
+    @Modifying
+    @Query("delete from KaraokeSession s where s.accessCode in :accessCodes")
+    int deleteByAccessCodeIn(Collection<String> accessCodes);
+}
@@ -2,8 +2,16 @@ package com.karaoke.backend.repositories;
 
 import com.karaoke.backend.models.QueueItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface QueueItemRepository extends JpaRepository<QueueItem, Long> {
+
+    // DELETE direto, sem carregar o item nem a fila da sessão; o contexto de persistência é
+    // limpo para não devolver depois o item apagado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from QueueItem q where q.queueItemId = :queueItemId and q.session.id = :sessionId")
+    int deleteFromSession(Long queueItemId, Long sessionId);
 }
@@ -8,4 +8,6 @@ import org.springframework.stereotype.Repository;
 public interface SongRepository extends JpaRepository<Song, Long> { // O ID da Song é String (UUID)
 
 	java.util.Optional<com.karaoke.backend.models.Song> findByYoutubeVideoId(String youtubeVideoId);
+
+	java.util.List<Song> findByYoutubeVideoIdIn(java.util.Collection<String> youtubeVideoIds);
 }
\ No newline at end of file
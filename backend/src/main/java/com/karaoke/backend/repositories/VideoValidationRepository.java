@@ -0,0 +1,10 @@
+package com.karaoke.backend.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.karaoke.backend.models.VideoValidation;
+
+@Repository
+public interface VideoValidationRepository extends JpaRepository<VideoValidation, String> {
+}
@@ -0,0 +1,236 @@
+package com.karaoke.backend.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+
+/**
+ * Índice incremental da fila justa de uma sessão.
+ *
+ * Mantém uma deque de itens por usuário (em ordem de chegada) e o anel de rotação
+ * (rotationUserIds seguido dos usuários que têm músicas mas não estão na rotação).
+ * Cada mutação custa O(1) amortizado; a ordem justa só é materializada quando
+ * alguém pede o snapshot, e esse snapshot imutável fica em cache até a próxima mutação.
+ *
+ * A ordem produzida é idêntica à do algoritmo original de FilaService.computeFairOrder.
+ */
+final class FairQueueIndex {
+
+    private final Map<String, ArrayDeque<Entry>> perUser = new HashMap<>();
+    private final Map<Long, Entry> byItemId = new HashMap<>();
+
+    // Usuários na ordem de session.rotationUserIds, com a posição de cada um para busca O(1)
+    private final List<String> rotation = new ArrayList<>();
+    private final Map<String, Integer> rotationPosition = new HashMap<>();
+
+    // Usuários com músicas na fila que não estão na rotação
+    private final Set<String> extras = new LinkedHashSet<>();
+
+    private int nextUserIndex;
+    private long sequence;
+    private List<Long> snapshot;
+
+    private record Entry(Long itemId, String userId, long seq) {}
+
+    /**
+     * Reconstrói o índice a partir do estado persistido da sessão. Só deve ser usado
+     * na primeira leitura (ex.: depois de um restart) ou quando o índice divergir do banco.
+     */
+    static FairQueueIndex rebuild(KaraokeSession session) {
+        FairQueueIndex index = new FairQueueIndex();
+        index.syncRotation(session.getRotationUserIds());
+        index.nextUserIndex = session.getNextUserIndex();
+        List<QueueItem> items = session.getSongQueue();
+        for (int i = 0; i < items.size(); i++) {
+            index.add(keyOf(items.get(i), i), userIdOf(items.get(i)));
+        }
+        return index;
+    }
+
+    /**
+     * Chave do item no índice: o ID do banco ou, para itens ainda não persistidos,
+     * uma chave negativa derivada da posição na fila.
+     */
+    static Long keyOf(QueueItem item, int position) {
+        return item.getQueueItemId() != null ? item.getQueueItemId() : -(position + 1L);
+    }
+
+    static String userIdOf(QueueItem item) {
+        return item.getUser() != null && item.getUser().getId() != null ? item.getUser().getId().toString() : "";
+    }
+
+    synchronized int size() {
+        return byItemId.size();
+    }
+
+    synchronized void add(Long itemId, String userId) {
+        Entry entry = new Entry(itemId, userId, sequence++);
+        byItemId.put(itemId, entry);
+        perUser.computeIfAbsent(userId, k -> new ArrayDeque<>()).addLast(entry);
+        if (!rotationPosition.containsKey(userId)) extras.add(userId);
+        snapshot = null;
+    }
+
+    synchronized boolean remove(Long itemId) {
+        Entry entry = byItemId.remove(itemId);
+        if (entry == null) return false;
+
+        ArrayDeque<Entry> items = perUser.get(entry.userId());
+        // O item removido é quase sempre a cabeça da deque (música tocada ou a próxima da vez)
+        if (items.peekFirst() == entry) items.pollFirst();
+        else items.remove(entry);
+
+        if (items.isEmpty()) {
+            perUser.remove(entry.userId());
+            extras.remove(entry.userId());
+        }
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Acompanha session.rotationUserIds. No código atual a rotação só cresce pelo final,
+     * então basta anexar o que ainda não foi visto. Retorna false se a lista divergiu
+     * de outra forma (o chamador deve reconstruir o índice).
+     */
+    synchronized boolean syncRotation(List<String> sessionRotation) {
+        if (sessionRotation.size() < rotation.size()) return false;
+        for (int i = rotation.size(); i < sessionRotation.size(); i++) {
+            appendToRotation(sessionRotation.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * Regra de entrada na rotação usada ao adicionar músicas: o primeiro usuário sempre
+     * entra (e passa a ser o próximo da vez); os demais entram no FINAL da rotação, para
+     * não furar a fila de quem já espera. Usuário anônimo ("") só entra se a rotação estiver vazia.
+     * Retorna true se o usuário entrou agora.
+     */
+    synchronized boolean joinRotation(String userId) {
+        if (rotation.isEmpty()) {
+            appendToRotation(userId);
+            nextUserIndex = 0;
+            return true;
+        } else if (!userId.isEmpty() && !rotationPosition.containsKey(userId)) {
+            appendToRotation(userId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tira da rotação um usuário sem músicas na fila. A vez continua com o mesmo usuário:
+     * quem vinha depois do removido só recua uma posição. Retorna false (sem mudar nada)
+     * se o usuário não está na rotação ou ainda tem músicas.
+     */
+    synchronized boolean leaveRotation(String userId) {
+        Integer position = rotationPosition.get(userId);
+        if (position == null || perUser.containsKey(userId)) return false;
+
+        rotation.remove((int) position);
+        rotationPosition.clear();
+        for (int i = 0; i < rotation.size(); i++) {
+            rotationPosition.putIfAbsent(rotation.get(i), i);
+        }
+        if (position < nextUserIndex) nextUserIndex--;
+        if (nextUserIndex >= rotation.size()) nextUserIndex = 0;
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Avança a vez para o usuário seguinte a userId na rotação (usado quando a música
+     * que está tocando sai da fila). Sem efeito se o usuário não estiver na rotação.
+     */
+    synchronized void advancePast(String userId) {
+        Integer position = rotationPosition.get(userId);
+        if (position != null) setNextUserIndex((position + 1) % rotation.size());
+    }
+
+    private void appendToRotation(String userId) {
+        rotationPosition.putIfAbsent(userId, rotation.size());
+        rotation.add(userId);
+        extras.remove(userId);
+        snapshot = null;
+    }
+
+    synchronized void setNextUserIndex(int nextUserIndex) {
+        if (this.nextUserIndex != nextUserIndex) {
+            this.nextUserIndex = nextUserIndex;
+            snapshot = null;
+        }
+    }
+
+    synchronized int getNextUserIndex() {
+        return nextUserIndex;
+    }
+
+    synchronized List<String> rotation() {
+        return List.copyOf(rotation);
+    }
+
+    synchronized String userIdOf(Long itemId) {
+        Entry entry = byItemId.get(itemId);
+        return entry != null ? entry.userId() : null;
+    }
+
+    /**
+     * Ordem justa atual (IDs dos itens). Lista imutável, reaproveitada até a próxima mutação.
+     */
+    synchronized List<Long> snapshot() {
+        if (snapshot == null) snapshot = List.copyOf(materialize());
+        return snapshot;
+    }
+
+    private List<Long> materialize() {
+        List<Long> result = new ArrayList<>(byItemId.size());
+
+        // Anel = rotação + extras ordenados pela primeira aparição na fila atual
+        List<String> ring = new ArrayList<>(rotation.size() + extras.size());
+        ring.addAll(rotation);
+        if (!extras.isEmpty()) {
+            List<String> sortedExtras = new ArrayList<>(extras);
+            sortedExtras.sort(Comparator.comparingLong(uid -> perUser.get(uid).peekFirst().seq()));
+            ring.addAll(sortedExtras);
+        }
+        if (ring.isEmpty()) return result;
+
+        int start = nextUserIndex;
+        if (start < 0 || start >= ring.size()) start = 0;
+
+        // Somente usuários com músicas participam; cada volta descarta quem se esgotou,
+        // então o custo total é O(itens + usuários) em vez de O(voltas × usuários).
+        // Posições repetidas do mesmo usuário compartilham o cursor, como no algoritmo original.
+        Map<ArrayDeque<Entry>, Iterator<Entry>> cursorByUser = new IdentityHashMap<>();
+        List<Iterator<Entry>> cursors = new ArrayList<>();
+        for (int i = 0; i < ring.size(); i++) {
+            ArrayDeque<Entry> items = perUser.get(ring.get((start + i) % ring.size()));
+            if (items != null && !items.isEmpty()) {
+                cursors.add(cursorByUser.computeIfAbsent(items, ArrayDeque::iterator));
+            }
+        }
+
+        while (!cursors.isEmpty()) {
+            int kept = 0;
+            for (int i = 0; i < cursors.size(); i++) {
+                Iterator<Entry> cursor = cursors.get(i);
+                if (!cursor.hasNext()) continue;
+                result.add(cursor.next().itemId());
+                if (cursor.hasNext()) cursors.set(kept++, cursor);
+            }
+            cursors.subList(kept, cursors.size()).clear();
+        }
+        return result;
+    }
+}
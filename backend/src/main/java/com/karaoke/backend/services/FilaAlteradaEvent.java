@@ -0,0 +1,8 @@
+package com.karaoke.backend.services;
+
+/**
+ * Publicado pelo KaraokeService quando a fila, a música tocando ou os usuários de uma
+ * sessão mudam. O FilaService só transmite depois do commit da transação que o publicou.
+ */
+public record FilaAlteradaEvent(String accessCode) {
+}
@@ -0,0 +1,106 @@
+package com.karaoke.backend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.karaoke.backend.dtos.FilaChangeDTO;
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.dtos.UserDTO;
+
+/**
+ * Calcula as alterações (FilaChangeDTO) entre dois retratos de uma sessão.
+ *
+ * Para a fila, os itens que continuam presentes e mantêm a ordem relativa (maior
+ * subsequência crescente) ficam parados; só os demais viram ITEM_MOVED. Na troca de
+ * vez da fila justa, por exemplo, normalmente nada além do item tocado muda.
+ */
+final class FilaDelta {
+
+    private FilaDelta() {}
+
+    static List<FilaChangeDTO> between(SessionView from, SessionView to) {
+        List<FilaChangeDTO> changes = new ArrayList<>();
+        diffQueue(from.queue(), to.queue(), changes);
+
+        QueueItemDTO playingBefore = from.nowPlaying();
+        QueueItemDTO playingNow = to.nowPlaying();
+        Long before = playingBefore != null ? playingBefore.queueItemId() : null;
+        Long now = playingNow != null ? playingNow.queueItemId() : null;
+        if (!Objects.equals(before, now)) changes.add(FilaChangeDTO.nowPlaying(now));
+
+        diffUsers(from.connectedUsers(), to.connectedUsers(), changes);
+        return changes;
+    }
+
+    private static void diffQueue(List<QueueItemDTO> from, List<QueueItemDTO> to, List<FilaChangeDTO> changes) {
+        Map<Long, Integer> targetIndex = new HashMap<>(to.size() * 2);
+        for (int i = 0; i < to.size(); i++) targetIndex.put(to.get(i).queueItemId(), i);
+
+        // Itens que saíram e, na ordem antiga, a posição final dos que ficaram
+        Set<Long> previous = new HashSet<>(from.size() * 2);
+        int[] survivors = new int[from.size()];
+        int count = 0;
+        for (QueueItemDTO item : from) {
+            previous.add(item.queueItemId());
+            Integer index = targetIndex.get(item.queueItemId());
+            if (index == null) changes.add(FilaChangeDTO.itemRemoved(item.queueItemId()));
+            else survivors[count++] = index;
+        }
+
+        boolean[] stays = new boolean[to.size()];
+        for (int index : longestIncreasing(Arrays.copyOf(survivors, count))) stays[index] = true;
+
+        for (int i = 0; i < to.size(); i++) {
+            QueueItemDTO item = to.get(i);
+            if (!previous.contains(item.queueItemId())) changes.add(FilaChangeDTO.itemAdded(i, item));
+            else if (!stays[i]) changes.add(FilaChangeDTO.itemMoved(item.queueItemId(), i));
+        }
+    }
+
+    /**
+     * Maior subsequência estritamente crescente de values (O(n log n)); devolve os próprios valores.
+     */
+    static int[] longestIncreasing(int[] values) {
+        int[] tails = new int[values.length];   // posição em values do fim de cada tamanho
+        int[] previous = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) low = mid + 1;
+                else high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) length++;
+        }
+
+        int[] result = new int[length];
+        for (int k = length - 1, i = length > 0 ? tails[length - 1] : -1; k >= 0; k--, i = previous[i]) {
+            result[k] = values[i];
+        }
+        return result;
+    }
+
+    private static void diffUsers(List<UserDTO> from, List<UserDTO> to, List<FilaChangeDTO> changes) {
+        if (from.equals(to)) return;
+        Set<Long> before = new HashSet<>();
+        for (UserDTO user : from) before.add(user.id());
+        Set<Long> after = new HashSet<>();
+        for (UserDTO user : to) after.add(user.id());
+
+        for (UserDTO user : from) {
+            if (!after.contains(user.id())) changes.add(FilaChangeDTO.userLeft(user));
+        }
+        for (UserDTO user : to) {
+            if (!before.contains(user.id())) changes.add(FilaChangeDTO.userJoined(user));
+        }
+    }
+}
@@ -1,116 +1,312 @@
 package com.karaoke.backend.services;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.MimeTypeUtils;
 
 // Importe seus DTOs
+import com.karaoke.backend.dtos.FilaChangeDTO;
+import com.karaoke.backend.dtos.FilaDeltaDTO;
 import com.karaoke.backend.dtos.FilaUpdateDTO;
-import com.karaoke.backend.dtos.QueueItemDTO;
-import com.karaoke.backend.dtos.UserDTO;
 import com.karaoke.backend.models.KaraokeSession;
 import com.karaoke.backend.models.QueueItem;
-import com.karaoke.backend.repositories.KaraokeSessionRepository;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-@RequiredArgsConstructor
+@Slf4j
 @Service
 public class FilaService {
 
     private final SimpMessagingTemplate template;
-    private final KaraokeSessionRepository sessionRepository; // Assumindo um Repository para obter a Sessão
-    
-    // Metodo que você chamará sempre que a fila mudar (Adicionar, Remover, Pular)
-    public void notificarAtualizacaoFila(String accessCode) {
-        
-        // 1. Busque a sessão completa (Normalizando o código)
-        KaraokeSession session = sessionRepository.findByAccessCode(accessCode.toUpperCase())
-            .orElseThrow(() -> new RuntimeException("Sessão não encontrada: " + accessCode));
-
-        // 2. Calcula a fila justa (interleaving por usuário) para envio ao front
-        List<com.karaoke.backend.models.QueueItem> fairOrdered = computeFairOrder(session);
-
-        // 3. Mapeia a lista justa para DTOs
-        List<QueueItemDTO> dtoList = fairOrdered.stream()
-            .map(QueueItemDTO::fromEntity)
-            .collect(Collectors.toList());
-
-        // 4. Mapeia os usuários conectados para DTOs
-        List<UserDTO> connectedUsersDTO = session.getConnectedUsers().stream()
-            .map(UserDTO::fromEntity)
-            .collect(Collectors.toList());
-
-        // 5. Lógica de "nowPlaying": primeiro item da lista justa (ou null se vazia)
-        QueueItemDTO nowPlayingDTO = dtoList.isEmpty() ? null : dtoList.get(0);
-
-        FilaUpdateDTO filaAtualizada = new FilaUpdateDTO(
-            dtoList,
-            nowPlayingDTO,
-            session.getStatus().name(),
-            connectedUsersDTO,
-            session.getHost() != null ? session.getHost().getEmail() : null
-        );
-        
-        // 6. Envie a atualização para o tópico de WebSocket (Sempre normalizado em maiúsculas)
-        String destination = "/topic/fila/" + accessCode.toUpperCase();
-        template.convertAndSend(destination, filaAtualizada);
+    private final SessionEngine sessionEngine; // Estado em memória das sessões ativas
+    private final PayloadCache payloadCache;
+
+    // Última versão publicada de cada sessão: base dos deltas e do retrato enviado na inscrição
+    private final Map<String, Transmissao> transmissoes = new ConcurrentHashMap<>();
+
+    // delta é null quando a publicação foi um retrato completo (ou a base criada na inscrição)
+    private record Transmissao(SessionView view, long seq, FilaDeltaDTO delta) {}
+
+
+    // Janela de agrupamento: notificações da mesma sessão dentro dela viram uma única publicação
+    private final long janelaMs;
+    private final ScheduledExecutorService agendador;
+    private final Map<String, AtomicInteger> pendentes = new ConcurrentHashMap<>();
+
+    // Threads dedicadas à montagem/serialização/envio, com fila limitada
+    private final ThreadPoolExecutor publicacoes;
+    // Sessões com publicação rejeitada: a próxima publicação vai como retrato completo
+    private final Set<String> retratoForcado = ConcurrentHashMap.newKeySet();
+
+    private final Counter notificacoes;
+    private final Counter notificacoesAgrupadas;
+    private final DistributionSummary notificacoesPorPublicacao;
+    private final Counter publicacoesRejeitadas;
+
+    public FilaService(SimpMessagingTemplate template,
+                       SessionEngine sessionEngine,
+                       PayloadCache payloadCache,
+                       MeterRegistry meterRegistry,
+                       @Value("${karaoke.fila.coalesce-window-ms:75}") long janelaMs,
+                       @Value("${karaoke.fila.broadcast-threads:2}") int threads,
+                       @Value("${karaoke.fila.broadcast-queue-capacity:1000}") int capacidade) {
+        this.template = template;
+        this.sessionEngine = sessionEngine;
+        this.payloadCache = payloadCache;
+        this.janelaMs = janelaMs;
+        this.agendador = janelaMs > 0
+                ? Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "fila-coalescer");
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.publicacoes = threads > 0
+                ? new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, capacidade)),
+                    r -> {
+                        Thread t = new Thread(r, "fila-broadcast-" + threadNumber.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    })
+                : null;
+
+        this.notificacoes = Counter.builder("karaoke.fila.notificacoes")
+                .description("Notificações de alteração da fila recebidas")
+                .register(meterRegistry);
+        this.notificacoesAgrupadas = Counter.builder("karaoke.fila.notificacoes.agrupadas")
+                .description("Notificações absorvidas por uma publicação já agendada")
+                .register(meterRegistry);
+        this.notificacoesPorPublicacao = DistributionSummary.builder("karaoke.fila.notificacoes.por.publicacao")
+                .description("Quantas notificações cada publicação agrupou")
+                .register(meterRegistry);
+        this.publicacoesRejeitadas = Counter.builder("karaoke.fila.publicacoes.rejeitadas")
+                .description("Publicações descartadas porque a fila do executor estava cheia")
+                .register(meterRegistry);
+        if (publicacoes != null) {
+            Gauge.builder("karaoke.fila.publicacoes.pendentes", publicacoes, e -> e.getQueue().size())
+                    .description("Publicações aguardando uma thread de broadcast")
+                    .register(meterRegistry);
+            Gauge.builder("karaoke.fila.publicacoes.ativas", publicacoes, ThreadPoolExecutor::getActiveCount)
+                    .description("Publicações em andamento")
+                    .register(meterRegistry);
+        }
     }
 
     /**
-     * Calcula a ordem justa (round-robin por usuário) a partir do estado atual da sessão,
-     * começando pelo usuário indicado por session.nextUserIndex e respeitando a ordem
-     * definida em session.rotationUserIds. Usuários que tenham itens na fila mas não
-     * estejam em rotationUserIds serão anexados ao final na ordem de primeira aparição.
+     * Só depois do commit: uma mutação desfeita nunca chega aos clientes e a requisição
+     * não espera montagem, serialização nem envio (só o agendamento da publicação).
      */
-    public List<com.karaoke.backend.models.QueueItem> computeFairOrder(KaraokeSession session) {
-        List<com.karaoke.backend.models.QueueItem> all = session.getSongQueue();
-
-        // Agrupa por usuário mantendo ordem por timestamp (a lista original já é timestamp-ordenada)
-        Map<String, Queue<com.karaoke.backend.models.QueueItem>> perUser = new HashMap<>();
-        List<String> usersFirstAppearance = new ArrayList<>();
-        for (com.karaoke.backend.models.QueueItem qi : all) {
-            String uid = qi.getUser() != null && qi.getUser().getId() != null ? qi.getUser().getId().toString() : "";
-            perUser.computeIfAbsent(uid, k -> new LinkedList<>()).add(qi);
-            if (!usersFirstAppearance.contains(uid)) usersFirstAppearance.add(uid);
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFilaAlterada(FilaAlteradaEvent event) {
+        notificarAtualizacaoFila(event.accessCode());
+    }
+
+    // Metodo que você chamará sempre que a fila mudar (Adicionar, Remover, Pular)
+    public void notificarAtualizacaoFila(String accessCode) {
+        String code = accessCode.toUpperCase();
+        notificacoes.increment();
+
+        if (agendador == null && publicacoes == null) { // Sem janela nem executor: publica na hora
+            notificacoesPorPublicacao.record(1);
+            publicar(code);
+            return;
+        }
+
+        // A primeira notificação agenda a publicação; as seguintes, até ela rodar, só são contadas
+        AtomicInteger pendente = pendentes.putIfAbsent(code, new AtomicInteger(1));
+        if (pendente != null) {
+            pendente.incrementAndGet();
+            notificacoesAgrupadas.increment();
+        } else if (agendador != null) {
+            agendador.schedule(() -> enfileirar(code), janelaMs, TimeUnit.MILLISECONDS);
+        } else {
+            enfileirar(code);
+        }
+    }
+
+    private void enfileirar(String code) {
+        if (publicacoes == null) {
+            descarregar(code);
+            return;
         }
+        try {
+            publicacoes.execute(() -> descarregar(code));
+        } catch (RejectedExecutionException e) {
+            // Os clientes ficam com o estado antigo até a próxima alteração, que vai como retrato completo
+            pendentes.remove(code);
+            retratoForcado.add(code);
+            publicacoesRejeitadas.increment();
+            log.warn("Fila de publicações cheia, atualização da sessão {} adiada para a próxima alteração", code);
+        }
+    }
 
-        // Start with rotationUserIds order, but append any users present in queue but missing in rotationUserIds
-        List<String> rotation = new ArrayList<>(session.getRotationUserIds());
-        for (String uid : usersFirstAppearance) {
-            if (!rotation.contains(uid)) rotation.add(uid);
+    private void descarregar(String code) {
+        // Remove antes de ler o estado: notificação que chegar depois agenda outra publicação
+        AtomicInteger pendente = pendentes.remove(code);
+        if (pendente != null) notificacoesPorPublicacao.record(pendente.get());
+        try {
+            publicar(code);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao publicar atualização da fila da sessão {}: {}", code, e.getMessage());
         }
+    }
 
-        List<com.karaoke.backend.models.QueueItem> result = new ArrayList<>();
+    private void publicar(String code) {
+        String destination = "/topic/fila/" + code; // Sempre normalizado em maiúsculas
+        boolean completo = retratoForcado.remove(code);
 
-        if (rotation.isEmpty()) return result;
+        // Hidrata (se preciso) fora do compute(): a releitura lá dentro só pega o retrato em memória
+        sessionEngine.view(code);
 
-        int idx = session.getNextUserIndex();
-        if (idx < 0 || idx >= rotation.size()) idx = 0;
+        // compute() serializa a montagem das publicações da mesma sessão: os seq saem em ordem.
+        // A serialização e o envio ficam para depois do compute(); se dois envios da mesma sessão
+        // se cruzarem, o cliente vê o buraco na sequência e pede um retrato novo.
+        AtomicReference<Transmissao> publicada = new AtomicReference<>();
+        transmissoes.compute(code, (k, anterior) -> {
+            SessionView atual = sessionEngine.view(code);
 
-        boolean addedAny = true;
-        while (addedAny) {
-            addedAny = false;
-            for (int i = 0; i < rotation.size(); i++) {
-                int userPos = (idx + i) % rotation.size();
-                String uid = rotation.get(userPos);
-                Queue<com.karaoke.backend.models.QueueItem> q = perUser.get(uid);
-                if (q != null && !q.isEmpty()) {
-                    result.add(q.poll());
-                    addedAny = true;
-                }
+            // Sem base (primeira publicação desde o start) ou depois de uma rejeição: retrato completo
+            if (anterior == null || completo) {
+                long seq = anterior == null ? 0 : anterior.seq() + 1;
+                publicada.set(new Transmissao(atual, seq, null));
+                return publicada.get();
             }
-            // depois de completar uma volta, continue tentando até esvaziar tudo
+            // Cada mutação publica um SessionView novo; a versão recomeça quando a sessão é hidratada de novo
+            if (anterior.view() == atual) return anterior;
+
+            // Só o que mudou desde a última publicação
+            List<FilaChangeDTO> changes = FilaDelta.between(anterior.view(), atual);
+            if (changes.isEmpty()) return anterior;
+
+            long seq = anterior.seq() + 1;
+            publicada.set(new Transmissao(atual, seq, new FilaDeltaDTO(seq, changes)));
+            return publicada.get();
+        });
+
+        Transmissao nova = publicada.get();
+        if (nova == null) return;
+        // Retrato completo: o mesmo byte[] que as inscrições e o GET da fila recebem até a próxima publicação
+        byte[] json = nova.delta() == null
+                ? payloadCache.json(code, PayloadCache.Tipo.FILA, nova, () -> toUpdate(nova.view(), nova.seq()))
+                : payloadCache.json(code, PayloadCache.Tipo.DELTA, nova, nova::delta);
+        template.convertAndSend(destination, json, jsonHeaders());
+    }
+
+    /**
+     * Payloads do tópico já são JSON (PayloadCache): o ByteArrayMessageConverter os envia como estão.
+     * Um Map comum viraria cabeçalho nativo do STOMP e o frame sairia como application/octet-stream
+     * (binário, que o SockJS recusa); o content-type tem que estar nos cabeçalhos da mensagem.
+     */
+    private static MessageHeaders jsonHeaders() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    /**
+     * Retrato completo da fila (ordem justa, música tocando agora, usuários e host) na
+     * mesma sequência dos deltas de /topic/fila/{code}. É o que o cliente recebe ao se
+     * inscrever e ao pedir um novo retrato depois de perder mensagens.
+     */
+    public FilaUpdateDTO montarAtualizacaoFila(String accessCode) {
+        Transmissao atual = transmissaoAtual(accessCode);
+        return toUpdate(atual.view(), atual.seq());
+    }
+
+    /**
+     * O mesmo retrato de montarAtualizacaoFila já em JSON, serializado uma vez por publicação
+     * e reaproveitado por todas as inscrições e GETs até a próxima.
+     */
+    public byte[] montarAtualizacaoFilaJson(String accessCode) {
+        Transmissao atual = transmissaoAtual(accessCode);
+        return payloadCache.json(accessCode, PayloadCache.Tipo.FILA, atual, () -> toUpdate(atual.view(), atual.seq()));
+    }
+
+    private Transmissao transmissaoAtual(String accessCode) {
+        String code = accessCode.toUpperCase();
+        Transmissao atual = transmissoes.get(code);
+        if (atual != null) return atual;
+        // Hidratação fora do computeIfAbsent
+        SessionView view = sessionEngine.view(code);
+        return transmissoes.computeIfAbsent(code, k -> new Transmissao(view, 0, null));
+    }
+
+    /**
+     * Descarta a base de deltas de uma sessão encerrada.
+     */
+    public void encerrarTransmissao(String accessCode) {
+        transmissoes.remove(accessCode.toUpperCase());
+        retratoForcado.remove(accessCode.toUpperCase());
+        payloadCache.evict(accessCode);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (agendador != null) agendador.shutdownNow();
+        if (publicacoes != null) publicacoes.shutdown();
+    }
+
+    private FilaUpdateDTO toUpdate(SessionView view, long seq) {
+        return new FilaUpdateDTO(
+            view.queue(),
+            view.nowPlaying(),
+            view.status(),
+            view.connectedUsers(),
+            view.hostEmail(),
+            seq
+        );
+    }
+
+    /**
+     * Calcula a ordem justa (round-robin por usuário) a partir do estado persistido da sessão,
+     * começando pelo usuário indicado por session.nextUserIndex e respeitando a ordem
+     * definida em session.rotationUserIds. Usuários que tenham itens na fila mas não
+     * estejam em rotationUserIds serão anexados ao final na ordem de primeira aparição.
+     *
+     * As sessões ativas mantêm essa ordem incrementalmente no SessionEngine; este método
+     * é a versão sem estado, usada sobre entidades carregadas do banco.
+     */
+    public List<QueueItem> computeFairOrder(KaraokeSession session) {
+        List<QueueItem> all = session.getSongQueue();
+
+        Map<Long, QueueItem> byKey = new HashMap<>(all.size() * 2);
+        for (int i = 0; i < all.size(); i++) {
+            byKey.put(FairQueueIndex.keyOf(all.get(i), i), all.get(i));
         }
 
+        List<Long> order = FairQueueIndex.rebuild(session).snapshot();
+        List<QueueItem> result = new ArrayList<>(order.size());
+        for (Long key : order) result.add(byKey.get(key));
         return result;
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,10 @@
 package com.karaoke.backend.services;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +22,6 @@ import lombok.RequiredArgsConstructor;
 
 import com.karaoke.backend.dtos.QueueItemDTO;
 import com.karaoke.backend.dtos.SessionResponseDTO;
-import com.karaoke.backend.dtos.UserDTO;
-import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
@@ -34,32 +34,33 @@ public class KaraokeService {
     private final SongService songService;
     private final SongRepository songRepository;
     private final com.karaoke.backend.repositories.UserRepository userRepository;
+    private final SessionEngine sessionEngine;
+    private final ApplicationEventPublisher eventPublisher; // Broadcast da fila só após o commit
+    private final PayloadCache payloadCache;
 
     @Transactional(readOnly = true)
     public SessionResponseDTO getSessionResponse(String accessCode) {
-        KaraokeSession session = getSession(accessCode);
-        
-        // Calcula a ordem justa dentro da transação
-        List<QueueItem> fairOrder = filaService.computeFairOrder(session);
-        
-        List<QueueItemDTO> queueDTOs = fairOrder.stream()
-                .map(QueueItemDTO::fromEntity)
-                .collect(Collectors.toList());
-
-        List<UserDTO> userDTOs = session.getConnectedUsers().stream()
-                .map(UserDTO::fromEntity)
-                .collect(Collectors.toList());
+        // Lido do estado em memória: a fila já vem na ordem justa
+        return toResponse(sessionEngine.view(accessCode));
+    }
 
-        QueueItemDTO nowPlaying = queueDTOs.isEmpty() ? null : queueDTOs.get(0);
+    /**
+     * getSessionResponse já serializado; o JSON só é refeito quando a sessão muda.
+     */
+    public byte[] getSessionResponseJson(String accessCode) {
+        SessionView view = sessionEngine.view(accessCode);
+        return payloadCache.json(accessCode, PayloadCache.Tipo.SESSAO, view, () -> toResponse(view));
+    }
 
+    private SessionResponseDTO toResponse(SessionView view) {
         return new SessionResponseDTO(
-                session.getId(),
-                session.getAccessCode(),
-                session.getStatus().name(),
-                userDTOs,
-                queueDTOs,
-                nowPlaying,
-                session.getHost() != null ? session.getHost().getEmail() : null
+                view.id(),
+                view.accessCode(),
+                view.status(),
+                view.connectedUsers(),
+                view.queue(),
+                view.nowPlaying(),
+                view.hostEmail()
         );
     }
 
@@ -71,6 +72,7 @@ public class KaraokeService {
             newSession.addUser(host);
         }
         KaraokeSession savedSession = sessionRepository.save(newSession);
+        sessionEngine.register(savedSession);
         System.out.println("LOG: Nova sessão criada! Codigo de Acesso: " + savedSession.getAccessCode() + 
                            (host != null ? " Host: " + host.getUsername() : ""));
 
@@ -104,13 +106,58 @@ public class KaraokeService {
     public void endSession(String accessCode) {
         KaraokeSession session = getSession(accessCode);
         sessionRepository.delete(session);
+        sessionEngine.evict(accessCode);
+        filaService.encerrarTransmissao(accessCode);
         System.out.println("LOG: Sessão finalizada: " + accessCode);
     }
 
     @Transactional
     public void addSongToQueue(String accessCode, YouTubeVideoDTO selectedVideo, User user) {
-        KaraokeSession session = getSession(accessCode);
+        KaraokeSession session = sessionReference(accessCode);
+        user = joinAsAuthor(session, user);
+
+        Song song = songService.createSongFromVideo(selectedVideo);
+
+        QueueItem queueItem = new QueueItem(session, user, song);
+        // Persiste já para obter o ID, que identifica o item na fila em memória
+        queueItemRepository.save(queueItem);
+
+        // A rotação da fila justa vive no SessionEngine e é gravada em lote (write-behind),
+        // então não é preciso salvar a sessão inteira aqui. O motor aplica o item depois do commit.
+        sessionEngine.addItem(accessCode, queueItem);
+
+        eventPublisher.publishEvent(new FilaAlteradaEvent(accessCode));
+    }
+
+    /**
+     * Adiciona vários vídeos de uma vez (importação de playlist). Músicas e itens da fila são
+     * gravados com saveAll na mesma transação, em INSERTs em lote, e a fila em memória e o
+     * broadcast são atualizados uma vez só.
+     */
+    @Transactional
+    public List<QueueItem> addSongsToQueue(String accessCode, List<YouTubeVideoDTO> selectedVideos, User user) {
+        KaraokeSession session = sessionReference(accessCode);
+        User author = joinAsAuthor(session, user);
+
+        List<QueueItem> queueItems = new ArrayList<>(selectedVideos.size());
+        for (Song song : songService.createSongsFromVideos(selectedVideos)) {
+            queueItems.add(new QueueItem(session, author, song));
+        }
+        queueItemRepository.saveAll(queueItems);
+
+        sessionEngine.addItems(accessCode, queueItems);
+        eventPublisher.publishEvent(new FilaAlteradaEvent(accessCode));
+        return queueItems;
+    }
 
+    // Sessão só como referência para as chaves estrangeiras: a existência já foi conferida no
+    // SessionEngine, então nem a sessão nem a fila (songQueue) são carregadas do banco
+    private KaraokeSession sessionReference(String accessCode) {
+        return sessionRepository.getReferenceById(sessionEngine.view(accessCode).id());
+    }
+
+    // Autor do pedido: o usuário autenticado (criado se preciso), que passa a estar na sessão
+    private User joinAsAuthor(KaraokeSession session, User user) {
         // Se o objeto User for nulo, tenta buscar pelo contexto de segurança (caso seja um MockUser em testes ou outro tipo de principal)
         if (user == null) {
             org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
@@ -126,98 +173,50 @@ public class KaraokeService {
 
         if (user != null) {
             if (user.getSession() == null || !user.getSession().getId().equals(session.getId())) {
-                session.addUser(user);
+                user.setSession(session);
             }
         }
-
-        Song song = songService.createSongFromVideo(selectedVideo);
-
-        QueueItem queueItem = new QueueItem(session, user, song);
-        session.addQueueItem(queueItem);
-
-        String uid = user != null && user.getId() != null ? user.getId().toString() : "";
-        List<String> rotation = session.getRotationUserIds();
-        if (rotation == null) rotation = new java.util.ArrayList<>();
-
-        if (rotation.isEmpty()) {
-            rotation.add(uid);
-            session.setNextUserIndex(0);
-        } else if (!uid.isEmpty() && !rotation.contains(uid)) {
-            // --- CORREÇÃO: Adiciona ao FINAL da rotação para não furar a fila de quem já espera ---
-            rotation.add(uid);
-        }
-
-        session.setRotationUserIds(rotation);
-        sessionRepository.save(session);
-
-        filaService.notificarAtualizacaoFila(accessCode);
+        return user;
     }
 
     @Transactional
     public void deleteSongFromQueue(String accessCode, Long queueItemId) {
-        KaraokeSession session = getSession(accessCode);
-        Optional<QueueItem> itemOpt = queueItemRepository.findById(queueItemId);
-
-        if (itemOpt.isPresent()) {
-            QueueItem itemToDelete = itemOpt.get();
-
-            List<com.karaoke.backend.models.QueueItem> fairOrder = filaService.computeFairOrder(session);
-            Long nowPlayingId = fairOrder.isEmpty() ? null : fairOrder.get(0).getQueueItemId();
-            if (nowPlayingId != null && nowPlayingId.equals(queueItemId)) {
-                String userIdStr = itemToDelete.getUser() != null && itemToDelete.getUser().getId() != null
-                        ? itemToDelete.getUser().getId().toString()
-                        : "";
-                List<String> rotation = session.getRotationUserIds();
-                if (rotation != null && !rotation.isEmpty()) {
-                    int idx = rotation.indexOf(userIdStr);
-                    if (idx != -1) {
-                        int nextIdx = (idx + 1) % rotation.size();
-                        session.setNextUserIndex(nextIdx);
-                    }
-                }
-                sessionRepository.save(session);
-            }
-
-            session.deleteQueueItem(itemToDelete);
+        SessionView view = sessionEngine.view(accessCode);
+        // Se era a música tocando agora, o motor passa a vez para o próximo da rotação (após o commit)
+        if (queueItemRepository.deleteFromSession(queueItemId, view.id()) > 0) {
+            sessionEngine.removeItem(accessCode, queueItemId);
         }
 
-        filaService.notificarAtualizacaoFila(accessCode);
+        eventPublisher.publishEvent(new FilaAlteradaEvent(accessCode));
     }
 
     @Transactional
     public Optional<QueueItem> playNextSong(String accessCode) {
-        KaraokeSession session = getSession(accessCode);
-        List<QueueItem> fairOrder = filaService.computeFairOrder(session);
-        if (fairOrder.isEmpty()) {
-            return Optional.empty();
-        }
-
-        QueueItem nextItem = fairOrder.get(0);
-
-        List<String> rotation = session.getRotationUserIds();
-        if (rotation != null && !rotation.isEmpty()) {
-            String currentUserId = nextItem.getUser() != null ? nextItem.getUser().getId().toString() : "";
-            int currentIndexInRotation = rotation.indexOf(currentUserId);
-            if (currentIndexInRotation != -1) {
-                int nextIdx = (currentIndexInRotation + 1) % rotation.size();
-                session.setNextUserIndex(nextIdx);
+        // A próxima da fila justa vem do retrato em memória, sem recarregar a fila do banco.
+        // Se outra requisição já a tocou (o DELETE não apaga nada), tenta a seguinte.
+        SessionView view = sessionEngine.view(accessCode);
+        for (QueueItemDTO candidate : view.queue()) {
+            Optional<QueueItem> nextItem = queueItemRepository.findById(candidate.queueItemId());
+            if (nextItem.isEmpty() || queueItemRepository.deleteFromSession(candidate.queueItemId(), view.id()) == 0) {
+                continue;
             }
+            // Era a primeira da fila justa: o motor avança a rotação ao tirá-la
+            sessionEngine.removeItem(accessCode, candidate.queueItemId());
+            eventPublisher.publishEvent(new FilaAlteradaEvent(accessCode));
+            return nextItem;
         }
-
-        session.deleteQueueItem(nextItem);
-        sessionRepository.save(session);
-        filaService.notificarAtualizacaoFila(accessCode);
-
-        return Optional.of(nextItem);
+        return Optional.empty();
     }
 
     @Transactional
     public KaraokeSession joinSession(String sessionCode, User user) {
         KaraokeSession session = getSession(sessionCode);
-        if (!session.getConnectedUsers().contains(user)) {
-            session.addUser(user);
+        if (!sessionEngine.view(sessionCode).hasUser(user.getId())) {
+            // O vínculo é gravado pelo lado dono (tb_user.session_id), no usuário desta transação
+            session.addUser(userRepository.findById(user.getId()).orElse(user));
             sessionRepository.save(session);
-            filaService.notificarAtualizacaoFila(sessionCode);
+            sessionEngine.join(sessionCode, user);
+            eventPublisher.publishEvent(new FilaAlteradaEvent(sessionCode));
         }
         return session;
     }
@@ -225,8 +224,10 @@ public class KaraokeService {
     @Transactional
     public void leaveSession(String sessionCode, User user) {
         KaraokeSession session = getSession(sessionCode);
-        session.getConnectedUsers().remove(user);
-        sessionRepository.save(session);
-        filaService.notificarAtualizacaoFila(sessionCode);
+        userRepository.findById(user.getId())
+                .filter(member -> member.getSession() != null && member.getSession().getId().equals(session.getId()))
+                .ifPresent(session::removeUser);
+        sessionEngine.leave(sessionCode, user.getId());
+        eventPublisher.publishEvent(new FilaAlteradaEvent(sessionCode));
     }
-}
\ No newline at end of file
+}
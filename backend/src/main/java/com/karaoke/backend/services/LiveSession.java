@@ -0,0 +1,178 @@
+package com.karaoke.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.dtos.UserDTO;
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.User;
+
+/**
+ * Estado em memória de uma sessão ativa: usuários conectados, itens da fila e a
+ * rotação da fila justa.
+ *
+ * Os métodos de mutação só podem ser chamados pela thread (lane) da sessão no
+ * SessionEngine. Outras threads leem apenas o SessionView publicado (volatile).
+ */
+final class LiveSession {
+
+    private final Long id;
+    private final String accessCode;
+    private final String status;
+    private final Long hostId;
+    private final String hostEmail;
+
+    private final Map<Long, UserDTO> users = new LinkedHashMap<>();
+    private final Map<Long, QueueItemDTO> items = new HashMap<>();
+    private final FairQueueIndex fairQueue;
+
+    private long version;
+    private volatile SessionView view;
+
+    // Rotação/nextUserIndex/última atividade mudaram desde o último flush do write-behind
+    private volatile boolean dirty;
+
+    // Última mutação da fila; o write-behind leva para karaoke_session.last_activity_at
+    private volatile LocalDateTime lastActivityAt;
+
+    private LiveSession(KaraokeSession session) {
+        this.id = session.getId();
+        this.accessCode = session.getAccessCode().toUpperCase();
+        this.status = session.getStatus() == null ? null : session.getStatus().name();
+        this.hostId = session.getHost() != null ? session.getHost().getId() : null;
+        this.hostEmail = session.getHost() != null ? session.getHost().getEmail() : null;
+        this.fairQueue = FairQueueIndex.rebuild(session);
+        this.lastActivityAt = session.getLastActivityAt();
+    }
+
+    static LiveSession hydrate(KaraokeSession session) {
+        LiveSession live = new LiveSession(session);
+        for (User user : session.getConnectedUsers()) {
+            live.addUser(UserDTO.fromEntity(user));
+        }
+        List<QueueItem> queue = session.getSongQueue();
+        for (int i = 0; i < queue.size(); i++) {
+            live.items.put(FairQueueIndex.keyOf(queue.get(i), i), QueueItemDTO.fromEntity(queue.get(i)));
+        }
+        // Rotação gravada antes da poda: quem já saiu e não tem músicas sai dela também
+        for (String userId : live.fairQueue.rotation()) {
+            live.pruneRotation(userId);
+        }
+        live.publish();
+        return live;
+    }
+
+    String accessCode() {
+        return accessCode;
+    }
+
+    SessionView view() {
+        return view;
+    }
+
+    LocalDateTime lastActivityAt() {
+        return lastActivityAt;
+    }
+
+    boolean takeDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    // --- Mutações (somente na lane da sessão) ---
+
+    void addUser(UserDTO user) {
+        if (user != null && user.id() != null) users.putIfAbsent(user.id(), user);
+    }
+
+    boolean removeUser(Long userId) {
+        if (users.remove(userId) == null) return false;
+        pruneRotation(userId.toString());
+        return true;
+    }
+
+    /**
+     * Adiciona um item já confirmado no banco. Idempotente: se o item já estiver na fila
+     * (a sessão foi hidratada depois do commit e já leu o INSERT), só a rotação é ajustada.
+     */
+    void addItem(QueueItem item) {
+        Long itemId = item.getQueueItemId();
+        String userId = FairQueueIndex.userIdOf(item);
+        fairQueue.joinRotation(userId);
+        if (!items.containsKey(itemId)) {
+            items.put(itemId, QueueItemDTO.fromEntity(item));
+            fairQueue.add(itemId, userId);
+        }
+        touch();
+    }
+
+    /**
+     * Remove um item da fila. Se era a música tocando agora, a vez passa para o
+     * próximo usuário da rotação.
+     */
+    Optional<QueueItemDTO> removeItem(Long itemId) {
+        QueueItemDTO item = items.get(itemId);
+        if (item == null) return Optional.empty();
+
+        String userId = fairQueue.userIdOf(itemId);
+        if (userId == null) {
+            // Item fora do índice da fila justa (mapa e índice divergiram): sai só do mapa
+            items.remove(itemId);
+            touch();
+            return Optional.of(item);
+        }
+        List<Long> order = fairQueue.snapshot();
+        if (!order.isEmpty() && order.get(0).equals(itemId)) {
+            fairQueue.advancePast(userId);
+            dirty = true;
+        }
+        items.remove(itemId);
+        fairQueue.remove(itemId);
+        pruneRotation(userId);
+        touch();
+        return Optional.of(item);
+    }
+
+    // Quem saiu da sessão e não tem mais músicas na fila sai da rotação, que assim não cresce
+    // sem limite. O anônimo ("") e quem continua conectado guardam a posição.
+    private void pruneRotation(String userId) {
+        if (userId.isEmpty() || users.containsKey(Long.valueOf(userId))) return;
+        if (fairQueue.leaveRotation(userId)) dirty = true;
+    }
+
+    private void touch() {
+        lastActivityAt = LocalDateTime.now();
+        dirty = true;
+    }
+
+    SessionView publish() {
+        List<Long> order = fairQueue.snapshot();
+        List<QueueItemDTO> queue = new ArrayList<>(order.size());
+        for (Long itemId : order) queue.add(items.get(itemId));
+
+        view = new SessionView(
+                id,
+                accessCode,
+                status,
+                hostId,
+                hostEmail,
+                List.copyOf(users.values()),
+                List.copyOf(queue),
+                fairQueue.rotation(),
+                fairQueue.getNextUserIndex(),
+                ++version);
+        return view;
+    }
+}
@@ -0,0 +1,59 @@
+package com.karaoke.backend.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JSON já serializado dos retratos de cada sessão (SessionResponseDTO, FilaUpdateDTO) e do
+ * último delta publicado (FilaDeltaDTO).
+ *
+ * A chave de versão é o próprio objeto imutável de origem (SessionView publicado pelo
+ * SessionEngine ou a transmissão atual do FilaService): enquanto ele não mudar, o broadcast,
+ * os GETs e as inscrições recebem o mesmo byte[], sem remontar os DTOs nem passar pelo Jackson.
+ */
+@Service
+@RequiredArgsConstructor
+public class PayloadCache {
+
+    public enum Tipo { SESSAO, FILA, DELTA }
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Map<Tipo, Encoded>> porSessao = new ConcurrentHashMap<>();
+
+    private record Encoded(Object versao, byte[] json) {}
+
+    /**
+     * Retorna o JSON de dto, serializando só se versao não for a mesma (identidade) da última chamada.
+     */
+    public byte[] json(String accessCode, Tipo tipo, Object versao, Supplier<?> dto) {
+        Map<Tipo, Encoded> sessao = porSessao.computeIfAbsent(accessCode.toUpperCase(), k -> new ConcurrentHashMap<>());
+        Encoded atual = sessao.get(tipo);
+        if (atual != null && atual.versao() == versao) return atual.json();
+
+        byte[] json = serializar(dto.get());
+        // Duas threads podem serializar a mesma versão ao mesmo tempo; qualquer uma serve
+        sessao.put(tipo, new Encoded(versao, json));
+        return json;
+    }
+
+    public void evict(String accessCode) {
+        porSessao.remove(accessCode.toUpperCase());
+    }
+
+    private byte[] serializar(Object dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar " + dto.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -1,49 +1,142 @@
 package com.karaoke.backend.services;
 
 import com.karaoke.backend.repositories.KaraokeSessionRepository;
-import lombok.RequiredArgsConstructor;
+import com.karaoke.backend.repositories.KaraokeSessionRepository.SessionActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Remove as sessões sem atividade na fila: as paradas há mais de expire-after e as vazias
+ * (sem usuários e sem fila) há mais de idle-after.
+ *
+ * O caminho normal é a roda de expiração (SessionExpiryWheel): a cada wheel-tick-ms as sessões
+ * com prazo vencido são conferidas e apagadas. A varredura pelo índice de last_activity_at
+ * (karaoke.cleanup.cron) fica como rede de segurança para o que a roda não viu, como sessões
+ * que esvaziaram depois do primeiro prazo ou prazos perdidos num rollback.
+ *
+ * A remoção é um DELETE por página, cada uma na sua transação; fila, rotação e vínculo dos
+ * usuários saem em cascata no próprio banco.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SessionCleanupService {
 
     private final KaraokeSessionRepository sessionRepository;
+    private final SessionEngine sessionEngine;
+    private final FilaService filaService;
+    private final SessionExpiryWheel expiryWheel;
+    private final TransactionTemplate transaction;
+    private final Duration expireAfter;
+    private final Duration idleAfter;
+    private final int batchSize;
+
+    private final Counter removidas;
+    private final Timer duracao;
+
+    public SessionCleanupService(KaraokeSessionRepository sessionRepository,
+                                 SessionEngine sessionEngine,
+                                 FilaService filaService,
+                                 SessionExpiryWheel expiryWheel,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${karaoke.cleanup.expire-after:PT6H}") Duration expireAfter,
+                                 @Value("${karaoke.cleanup.idle-after:PT1H}") Duration idleAfter,
+                                 @Value("${karaoke.cleanup.batch-size:500}") int batchSize) {
+        this.sessionRepository = sessionRepository;
+        this.sessionEngine = sessionEngine;
+        this.filaService = filaService;
+        this.expiryWheel = expiryWheel;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.expireAfter = expireAfter;
+        // A busca parte de idle-after no índice; uma sessão vazia nunca espera mais que uma expirada
+        this.idleAfter = idleAfter.compareTo(expireAfter) < 0 ? idleAfter : expireAfter;
+        this.batchSize = Math.max(1, batchSize);
+
+        this.removidas = Counter.builder("karaoke.limpeza.sessoes.removidas")
+                .description("Sessões inativas apagadas pela limpeza")
+                .register(meterRegistry);
+        this.duracao = Timer.builder("karaoke.limpeza.duracao")
+                .description("Duração de cada varredura da limpeza de sessões")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sessões cujo prazo na roda de expiração chegou: apaga as que continuam inativas no banco.
+     * As que ainda têm usuários ou fila voltam para a roda com o prazo de expire-after.
+     */
+    @Scheduled(fixedDelayString = "${karaoke.cleanup.wheel-tick-ms:1000}")
+    public void expireDue() {
+        List<String> due = expiryWheel.due();
+        if (due.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minus(expireAfter);
+        LocalDateTime idleBefore = now.minus(idleAfter);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> page = due.subList(from, Math.min(due.size(), from + batchSize));
+            List<String> removed = transaction.execute(status -> purge(
+                    sessionRepository.findInactiveAccessCodesIn(page, expiredBefore, idleBefore)));
+            afterPurge(removed);
+
+            Set<String> kept = new HashSet<>(page);
+            removed.forEach(kept::remove);
+            if (!kept.isEmpty()) {
+                // Sessão que já não existe não volta para a roda
+                for (SessionActivity session : sessionRepository.findActivityByAccessCodeIn(kept)) {
+                    expiryWheel.schedule(session.getAccessCode(), session.getLastActivityAt().plus(expireAfter));
+                }
+            }
+        }
+    }
 
     /**
-     * Limpa sessões antigas a cada hora.
-     * Consideramos "antiga" uma sessão que não teve atividade ou foi criada há mais de 6 horas.
-     * Nota: Como não temos um campo 'lastActivity', usaremos o ID/Lógica de tempo se disponível, 
-     * ou implementaremos um campo de criação. 
-     * Por enquanto, vamos focar na lógica de expiração básica.
+     * Varredura de segurança, a cada karaoke.cleanup.cron (padrão: a cada 6 horas).
      */
-    @Scheduled(cron = "0 0 * * * *") // Roda no início de cada hora
-    @Transactional
+    @Scheduled(cron = "${karaoke.cleanup.cron:0 0 */6 * * *}")
     public void cleanupOldSessions() {
-        log.info("Iniciando limpeza de sessões órfãs ou expiradas...");
-        
-        LocalDateTime limit = LocalDateTime.now().minusHours(6);
-        
-        sessionRepository.findAll().stream()
-                .filter(s -> s.getCreatedAt() != null && s.getCreatedAt().isBefore(limit))
-                .forEach(s -> {
-                    log.info("Removendo sessão expirada (>6h): {}", s.getAccessCode());
-                    sessionRepository.delete(s);
-                });
-
-        // Limpeza secundária: sessões vazias sem atividade (pode ser mais agressiva se quiser)
-        sessionRepository.findAll().stream()
-                .filter(s -> s.getConnectedUsers().isEmpty() && s.getSongQueue().isEmpty())
-                .filter(s -> s.getCreatedAt().isBefore(LocalDateTime.now().minusHours(1)))
-                .forEach(s -> {
-                    log.info("Removendo sessão vazia inativa: {}", s.getAccessCode());
-                    sessionRepository.delete(s);
-                });
+        duracao.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiredBefore = now.minus(expireAfter);
+            LocalDateTime idleBefore = now.minus(idleAfter);
+
+            int total = 0;
+            List<String> removed;
+            do {
+                removed = transaction.execute(status -> purge(sessionRepository.findInactiveAccessCodes(
+                        expiredBefore, idleBefore, PageRequest.of(0, batchSize))));
+                afterPurge(removed);
+                total += removed.size();
+            } while (removed.size() == batchSize);
+
+            if (total > 0) log.info("Varredura removeu {} sessões inativas que a roda de expiração não pegou", total);
+        });
+    }
+
+    private List<String> purge(List<String> accessCodes) {
+        if (!accessCodes.isEmpty()) sessionRepository.deleteByAccessCodeIn(accessCodes);
+        return accessCodes;
+    }
+
+    // Só depois do commit: uma página desfeita continua no banco e na memória
+    private void afterPurge(List<String> removed) {
+        for (String accessCode : removed) {
+            sessionEngine.evict(accessCode);
+            filaService.encerrarTransmissao(accessCode);
+        }
+        removidas.increment(removed.size());
     }
-}
\ No newline at end of file
+}
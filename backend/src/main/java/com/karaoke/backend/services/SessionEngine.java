@@ -0,0 +1,301 @@
+package com.karaoke.backend.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.karaoke.backend.dtos.UserDTO;
+import com.karaoke.backend.exception.SessionNotFoundException;
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.User;
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor em memória das sessões ativas.
+ *
+ * Cada sessão é carregada do banco uma única vez (hidratação) e a partir daí a fila,
+ * os usuários conectados e a rotação da fila justa vivem em memória. Todas as mutações
+ * de uma sessão rodam em uma única thread (lane), escolhida pelo hash do accessCode,
+ * então addSongToQueue/playNextSong concorrentes nunca se sobrescrevem.
+ *
+ * Persistência:
+ * - Itens da fila e usuários continuam sendo gravados na transação do chamador (o ID
+ *   gerado é exposto ao cliente para exclusão).
+ * - Rotação, nextUserIndex e última atividade são gravados em lote (write-behind) pelo
+ *   flush() agendado, em vez de um save da sessão inteira a cada mutação.
+ * - Dentro de uma transação, a mutação só é aplicada em memória depois do commit: leituras
+ *   (GET, broadcast, fila justa) nunca veem o que ainda pode ser desfeito, e uma transação
+ *   desfeita não deixa nada para desfazer. Os itens e usuários chegam já gravados, então
+ *   aplicar a mesma mudança em uma sessão hidratada depois do commit não muda nada.
+ */
+@Slf4j
+@Service
+public class SessionEngine {
+
+    private final KaraokeSessionRepository sessionRepository;
+    private final SessionExpiryWheel expiryWheel;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService[] lanes;
+
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    public SessionEngine(KaraokeSessionRepository sessionRepository,
+                         PlatformTransactionManager transactionManager,
+                         SessionExpiryWheel expiryWheel,
+                         @Value("${karaoke.engine.lanes:4}") int laneCount) {
+        this.sessionRepository = sessionRepository;
+        this.expiryWheel = expiryWheel;
+        if (transactionManager != null) {
+            this.readTransaction = new TransactionTemplate(transactionManager);
+            this.readTransaction.setReadOnly(true);
+            // Sempre numa transação própria: só o que já foi confirmado entra em memória
+            this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.writeTransaction = new TransactionTemplate(transactionManager);
+        } else {
+            // Testes unitários: sem gerenciador de transação, hidrata direto e não faz flush
+            this.readTransaction = null;
+            this.writeTransaction = null;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.lanes = new ExecutorService[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "session-lane-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // --- Leituras ---
+
+    public SessionView view(String accessCode) {
+        String code = accessCode.toUpperCase();
+        LiveSession live = sessions.get(code);
+        if (live != null) return live.view();
+
+        // Numa transação de escrita do chamador, a sessão é lida nela mesma (enxerga o que ela
+        // já gravou), mas esse retrato serve só a ela e não fica em memória
+        if (readTransaction != null && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load(code).view();
+        }
+        return live(code).view();
+    }
+
+    // --- Mutações ---
+
+    /**
+     * Registra uma sessão recém-criada (depois do commit) sem precisar recarregá-la do banco.
+     */
+    public void register(KaraokeSession session) {
+        afterCommit(session.getAccessCode().toUpperCase(), () -> {
+            LiveSession live = LiveSession.hydrate(session);
+            sessions.put(live.accessCode(), live);
+            touchExpiry(live);
+        });
+    }
+
+    /**
+     * Aplica à fila em memória um item já persistido (o autor entra na sessão e na rotação).
+     */
+    public void addItem(String accessCode, QueueItem item) {
+        mutate(accessCode, live -> {
+            live.addUser(UserDTO.fromEntity(item.getUser()));
+            live.addItem(item);
+        });
+    }
+
+    /**
+     * Vários itens já persistidos de uma vez (importação de playlist): uma única passagem
+     * pela lane da sessão e uma única publicação.
+     */
+    public void addItems(String accessCode, List<QueueItem> items) {
+        mutate(accessCode, live -> {
+            for (QueueItem item : items) {
+                live.addUser(UserDTO.fromEntity(item.getUser()));
+                live.addItem(item);
+            }
+        });
+    }
+
+    /**
+     * Tira da fila em memória um item já apagado do banco. Se era a música tocando agora
+     * (a primeira da fila justa), a vez passa para o próximo usuário da rotação.
+     */
+    public void removeItem(String accessCode, Long queueItemId) {
+        mutate(accessCode, live -> live.removeItem(queueItemId));
+    }
+
+    public void join(String accessCode, User user) {
+        mutate(accessCode, live -> live.addUser(UserDTO.fromEntity(user)));
+    }
+
+    public void leave(String accessCode, Long userId) {
+        mutate(accessCode, live -> live.removeUser(userId));
+    }
+
+    /**
+     * Descarta o estado em memória (sessão encerrada ou fora de sincronia) e o prazo de
+     * expiração; se a sessão ainda existir, a próxima hidratação agenda de novo.
+     */
+    public void evict(String accessCode) {
+        sessions.remove(accessCode.toUpperCase());
+        if (expiryWheel != null) expiryWheel.cancel(accessCode);
+    }
+
+    // --- Write-behind ---
+
+    /**
+     * Grava em lote, em uma única transação, a rotação, o nextUserIndex e a última atividade
+     * das sessões que mudaram desde o último flush.
+     */
+    @Scheduled(fixedDelayString = "${karaoke.engine.flush-interval-ms:500}")
+    public void flush() {
+        if (writeTransaction == null) return;
+
+        List<LiveSession> dirty = sessions.values().stream()
+                .filter(LiveSession::takeDirty)
+                .toList();
+        if (dirty.isEmpty()) return;
+
+        Map<Long, LiveSession> byId = dirty.stream()
+                .collect(Collectors.toMap(live -> live.view().id(), live -> live, (a, b) -> b));
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                for (KaraokeSession session : sessionRepository.findAllWithRotationByIdIn(byId.keySet())) {
+                    LiveSession live = byId.get(session.getId());
+                    SessionView view = live.view();
+                    if (!view.rotation().equals(session.getRotationUserIds())) {
+                        session.setRotationUserIds(view.rotation());
+                    }
+                    session.setNextUserIndex(view.nextUserIndex());
+                    session.setLastActivityAt(live.lastActivityAt());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar estado das sessões em lote, nova tentativa no próximo ciclo: {}", e.getMessage());
+            dirty.forEach(LiveSession::markDirty);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                lane.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // --- Internos ---
+
+    private LiveSession live(String code) {
+        LiveSession live = sessions.get(code);
+        if (live != null) return live;
+
+        LiveSession loaded = readTransaction == null ? load(code) : readTransaction.execute(status -> load(code));
+        LiveSession existing = sessions.putIfAbsent(code, loaded);
+        if (existing != null) return existing;
+        touchExpiry(loaded);
+        return loaded;
+    }
+
+    // Número fixo de SELECTs, qualquer que seja o tamanho da fila: sessão + anfitrião + fila
+    // (com autor e música), usuários conectados e rotação
+    private LiveSession load(String code) {
+        KaraokeSession session = sessionRepository.findForHydrationByAccessCode(code)
+                .orElseThrow(() -> new SessionNotFoundException("Sessão com código '" + code + "' não encontrada."));
+        sessionRepository.fetchConnectedUsers(session.getId());
+        sessionRepository.fetchRotation(session.getId());
+        return LiveSession.hydrate(session);
+    }
+
+    private void mutate(String accessCode, Consumer<LiveSession> change) {
+        String code = accessCode.toUpperCase();
+        afterCommit(code, () -> apply(code, change));
+    }
+
+    private void apply(String code, Consumer<LiveSession> change) {
+        LiveSession live = live(code);
+        CompletableFuture<Void> applied = CompletableFuture.runAsync(() -> {
+            change.accept(live);
+            live.publish();
+            touchExpiry(live);
+        }, laneOf(code));
+
+        try {
+            applied.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    // Sem transação (testes, tarefas agendadas), aplica na hora. Depois do commit, o banco já
+    // tem a mudança: se a memória não conseguir acompanhar, a sessão é descartada e a próxima
+    // leitura hidrata de novo em vez de servir um estado divergente.
+    private void afterCommit(String code, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao aplicar mutação confirmada em memória, sessão será hidratada de novo: {}", e.getMessage());
+                    evict(code);
+                }
+            }
+
+            // Antes do broadcast (FilaAlteradaEvent), que lê o retrato já com a mudança
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    // Mutações da fila adiam o prazo de expiração; as demais não mudam a última atividade
+    private void touchExpiry(LiveSession live) {
+        if (expiryWheel != null) expiryWheel.touch(live.accessCode(), live.lastActivityAt());
+    }
+
+    private ExecutorService laneOf(String accessCode) {
+        return lanes[Math.floorMod(accessCode.hashCode(), lanes.length)];
+    }
+
+}
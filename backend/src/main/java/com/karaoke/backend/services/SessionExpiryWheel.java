@@ -0,0 +1,101 @@
+package com.karaoke.backend.services;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import com.karaoke.backend.repositories.KaraokeSessionRepository.SessionActivity;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prazos de expiração das sessões em uma roda de tempo (TimingWheel), para a limpeza apagar
+ * cada sessão logo depois do prazo em vez de esperar a varredura.
+ *
+ * O prazo é a última atividade + idle-after (ou expire-after, se for menor); o SessionEngine
+ * adia o prazo a cada mutação da fila. Quando o prazo chega, o SessionCleanupService confere
+ * no banco se a sessão pode mesmo ser apagada. Na subida da aplicação a roda é refeita a
+ * partir de last_activity_at.
+ */
+@Slf4j
+@Service
+public class SessionExpiryWheel {
+
+    private final KaraokeSessionRepository sessionRepository;
+    private final Clock clock;
+    private final Duration firstCheckAfter;
+    private final TimingWheel<String> wheel;
+
+    @Autowired
+    public SessionExpiryWheel(KaraokeSessionRepository sessionRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${karaoke.cleanup.expire-after:PT6H}") Duration expireAfter,
+                              @Value("${karaoke.cleanup.idle-after:PT1H}") Duration idleAfter,
+                              @Value("${karaoke.cleanup.wheel-tick-ms:1000}") long tickMs) {
+        this(Clock.systemDefaultZone(), sessionRepository, meterRegistry, expireAfter, idleAfter, tickMs);
+    }
+
+    SessionExpiryWheel(Clock clock, KaraokeSessionRepository sessionRepository, MeterRegistry meterRegistry,
+                       Duration expireAfter, Duration idleAfter, long tickMs) {
+        this.sessionRepository = sessionRepository;
+        this.clock = clock;
+        this.firstCheckAfter = idleAfter.compareTo(expireAfter) < 0 ? idleAfter : expireAfter;
+        this.wheel = new TimingWheel<>(tickMs, clock.millis());
+
+        Gauge.builder("karaoke.limpeza.sessoes.agendadas", this, SessionExpiryWheel::size)
+                .description("Sessões com prazo de expiração na roda de tempo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Atividade na sessão: o prazo passa a ser lastActivityAt + idle-after (nunca volta atrás).
+     */
+    public void touch(String accessCode, LocalDateTime lastActivityAt) {
+        schedule(accessCode, lastActivityAt.plus(firstCheckAfter));
+    }
+
+    /**
+     * Prazo explícito, ex.: sessão com usuários ou fila, que só expira em expire-after.
+     */
+    public synchronized void schedule(String accessCode, LocalDateTime deadline) {
+        wheel.schedule(accessCode.toUpperCase(), toMillis(deadline));
+    }
+
+    public synchronized void cancel(String accessCode) {
+        wheel.cancel(accessCode.toUpperCase());
+    }
+
+    /**
+     * Sessões cujo prazo chegou; saem da roda.
+     */
+    public synchronized List<String> due() {
+        return wheel.advance(clock.millis());
+    }
+
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<SessionActivity> sessions = sessionRepository.findAllActivity();
+        for (SessionActivity session : sessions) {
+            touch(session.getAccessCode(), session.getLastActivityAt());
+        }
+        log.info("Roda de expiração refeita com {} sessões", sessions.size());
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
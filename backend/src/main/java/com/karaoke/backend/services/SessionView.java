@@ -0,0 +1,36 @@
+package com.karaoke.backend.services;
+
+import java.util.List;
+
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.dtos.UserDTO;
+
+/**
+ * Retrato imutável de uma sessão ativa, publicado pelo SessionEngine a cada mutação.
+ * É a fonte das leituras (GET da sessão, fila justa) e dos broadcasts via WebSocket.
+ *
+ * @param queue    fila já na ordem justa
+ * @param rotation ordem de rotação dos usuários (persistida em lote pelo write-behind)
+ * @param version  incrementada a cada mutação aplicada na sessão
+ */
+public record SessionView(
+        Long id,
+        String accessCode,
+        String status,
+        Long hostId,
+        String hostEmail,
+        List<UserDTO> connectedUsers,
+        List<QueueItemDTO> queue,
+        List<String> rotation,
+        int nextUserIndex,
+        long version
+) {
+
+    public QueueItemDTO nowPlaying() {
+        return queue.isEmpty() ? null : queue.get(0);
+    }
+
+    public boolean hasUser(Long userId) {
+        return connectedUsers.stream().anyMatch(u -> u.id() != null && u.id().equals(userId));
+    }
+}
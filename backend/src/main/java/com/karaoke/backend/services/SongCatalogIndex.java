@@ -0,0 +1,148 @@
+package com.karaoke.backend.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.repositories.SongRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice invertido em memória sobre as músicas já cadastradas (título e artista).
+ *
+ * Os termos são normalizados sem acento e em minúsculas ("Evidências" → "evidencias") e
+ * ficam em um mapa ordenado, então cada termo da busca casa por prefixo ("evid" acha
+ * "evidencias"). Todos os termos da busca precisam casar com a música. O índice é carregado
+ * na subida da aplicação e recebe cada música nova criada pelo SongService.
+ */
+@Slf4j
+@Service
+public class SongCatalogIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Palavras que aparecem em quase toda busca (o SongController acrescenta "karaoke") e não filtram nada
+    private static final Set<String> IGNORED = Set.of("karaoke", "de", "da", "do", "das", "dos", "e", "a", "o", "the");
+
+    // Artista padrão do SongService para vídeos do YouTube; indexá-lo faria "artista" casar com tudo
+    private static final String UNKNOWN_ARTIST = "Artista Desconhecido";
+
+    private final SongRepository songRepository;
+
+    // termo → videoIds que o contêm; ordenado para a busca por prefixo
+    private final NavigableMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(String videoId, String title, List<String> terms) {}
+
+    public SongCatalogIndex(SongRepository songRepository) {
+        this.songRepository = songRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        songRepository.findAll().forEach(this::add);
+        log.info("Catálogo local indexado: {} músicas, {} termos em {} ms",
+                entries.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(Song song) {
+        if (song == null || song.getYoutubeVideoId() == null) return;
+        String videoId = song.getYoutubeVideoId();
+        List<String> terms = new ArrayList<>(tokenize(song.getTitle()));
+        if (!UNKNOWN_ARTIST.equals(song.getArtist())) terms.addAll(tokenize(song.getArtist()));
+
+        // A entrada entra antes das listas de termos: quem achar o videoId sempre acha a entrada
+        Entry previous = entries.put(videoId, new Entry(videoId, song.getTitle(), terms));
+        if (previous != null) {
+            previous.terms().stream()
+                    .filter(term -> !terms.contains(term))
+                    .forEach(term -> postings.computeIfPresent(term, (k, ids) -> {
+                        ids.remove(videoId);
+                        return ids.isEmpty() ? null : ids;
+                    }));
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(videoId);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Até limit músicas que casam com todos os termos de query. Termos exatos pesam mais
+     * que prefixos; no empate, títulos mais curtos (mais próximos da busca) vêm antes.
+     */
+    public List<YouTubeVideoDTO> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query).stream()
+                .filter(term -> !IGNORED.contains(term))
+                .distinct()
+                .toList();
+        if (queryTerms.isEmpty() || entries.isEmpty()) return List.of();
+
+        Map<String, Integer> scores = null;
+        for (String term : queryTerms) {
+            Map<String, Integer> matches = new HashMap<>();
+            for (Map.Entry<String, Set<String>> posting : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                int weight = posting.getKey().equals(term) ? 2 : 1;
+                for (String videoId : posting.getValue()) {
+                    matches.merge(videoId, weight, Math::max);
+                }
+            }
+            if (scores == null) {
+                scores = matches;
+            } else {
+                Map<String, Integer> previous = scores;
+                scores = new HashMap<>();
+                for (Map.Entry<String, Integer> match : matches.entrySet()) {
+                    Integer score = previous.get(match.getKey());
+                    if (score != null) scores.put(match.getKey(), score + match.getValue());
+                }
+            }
+            if (scores.isEmpty()) return List.of();
+        }
+
+        Map<String, Integer> finalScores = scores;
+        return finalScores.keySet().stream()
+                .map(entries::get)
+                .filter(entry -> entry != null)
+                .sorted(Comparator.<Entry>comparingInt(entry -> -finalScores.get(entry.videoId()))
+                        .thenComparingInt(entry -> entry.title() == null ? 0 : entry.title().length())
+                        .thenComparing(Entry::videoId))
+                .limit(limit)
+                .map(entry -> new YouTubeVideoDTO(entry.videoId(), entry.title(),
+                        "https://i.ytimg.com/vi/" + entry.videoId() + "/default.jpg", true))
+                .toList();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty()) terms.add(term);
+        }
+        return terms;
+    }
+}
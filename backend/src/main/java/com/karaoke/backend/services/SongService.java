@@ -1,37 +1,160 @@
- package com.karaoke.backend.services;
+package com.karaoke.backend.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
 import com.karaoke.backend.models.Song;
 import com.karaoke.backend.repositories.SongRepository;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Cadastro das músicas pedidas na fila, uma linha por vídeo do YouTube.
+ *
+ * A gravação é um upsert atômico: a restrição unique de song.youtube_video_id decide quem grava
+ * quando dois convidados pedem o mesmo vídeo ao mesmo tempo, e quem perde só lê a linha do outro.
+ * Na frente do banco fica um cache videoId → música, então pedir de novo uma música conhecida
+ * não faz nenhuma consulta.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class SongService {
 
+    private static final String UNKNOWN_ARTIST = "Artista Desconhecido";
+
+    // O ID vem da mesma sequência das entidades: cada nextval reserva um bloco inteiro do otimizador
+    // pooled do Hibernate (allocationSize 50), então usar o próprio valor não colide com os IDs dele
+    private static final String INSERT_IF_ABSENT = "insert into song (song_id, youtube_video_id, title, artist, url) "
+            + "values (nextval('song_seq'), ?, ?, ?, ?) on conflict do nothing";
+
     private final SongRepository songRepository;
+    private final SongCatalogIndex catalogIndex;
+    private final SongSuggestionIndex suggestionIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    // videoId → cópia da música já gravada; nunca é modificada, cada chamada devolve uma cópia
+    private final Cache<String, Song> byVideoId;
+
+    @Autowired
+    public SongService(SongRepository songRepository,
+                       SongCatalogIndex catalogIndex,
+                       SongSuggestionIndex suggestionIndex,
+                       JdbcTemplate jdbcTemplate,
+                       @Value("${song.cache.max-entries:20000}") long maxCachedSongs) {
+        this.songRepository = songRepository;
+        this.catalogIndex = catalogIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.byVideoId = Caffeine.newBuilder()
+                .maximumSize(maxCachedSongs)
+                .build();
+    }
 
     @Transactional
     public Song createSongFromVideo(YouTubeVideoDTO videoDTO) {
-    // Evita duplicatas: se já existe uma música com o mesmo youtubeVideoId, retorna-a
-    return songRepository.findByYoutubeVideoId(videoDTO.getVideoId())
-        .orElseGet(() -> {
-            Song song = new Song(
-                videoDTO.getVideoId(),
-                videoDTO.getTitle(),
-                "Artista Desconhecido",
-                videoDTO.getEmbedUrl()
-            );
-            Song savedSong = songRepository.save(song);
-            System.out.println("LOG: Nova música criada no banco: " + savedSong.getTitle() +
-                " (YouTube ID: " + savedSong.getYoutubeVideoId() + ")");
-            // Debug: imprimir stack trace para identificar chamadas duplicadas
-            new Exception("Stack trace for song creation").printStackTrace(System.out);
-            return savedSong;
+        Song resolvedSong = cached(videoDTO.getVideoId());
+        if (resolvedSong == null) {
+            if (jdbcTemplate.update(INSERT_IF_ABSENT, videoDTO.getVideoId(), videoDTO.getTitle(),
+                    UNKNOWN_ARTIST, videoDTO.getEmbedUrl()) > 0) {
+                log.info("Nova música criada no banco: {} (YouTube ID: {})", videoDTO.getTitle(), videoDTO.getVideoId());
+            }
+            resolvedSong = songRepository.findByYoutubeVideoId(videoDTO.getVideoId())
+                    .orElseThrow(() -> new IllegalStateException("Música não encontrada após o upsert: " + videoDTO.getVideoId()));
+            remember(resolvedSong);
+        }
+        // Cada pedido na fila conta para o autocompletar, mas só se a transação confirmar
+        Song snapshot = copyOf(resolvedSong);
+        afterCommit(() -> suggestionIndex.recordSong(snapshot));
+        return resolvedSong;
+    }
+
+    /**
+     * Versão em lote de createSongFromVideo (importação de playlist): o que não está no cache
+     * sai de um SELECT, e as músicas novas são gravadas com o mesmo upsert em um único lote JDBC.
+     * Devolve as músicas na mesma ordem dos vídeos.
+     */
+    @Transactional
+    public List<Song> createSongsFromVideos(List<YouTubeVideoDTO> videos) {
+        Map<String, Song> songs = new HashMap<>();
+        Map<String, YouTubeVideoDTO> missing = new LinkedHashMap<>();
+        for (YouTubeVideoDTO video : videos) {
+            Song song = cached(video.getVideoId());
+            if (song != null) songs.put(video.getVideoId(), song);
+            else missing.putIfAbsent(video.getVideoId(), video);
+        }
+
+        if (!missing.isEmpty()) {
+            for (Song song : songRepository.findByYoutubeVideoIdIn(missing.keySet())) {
+                songs.put(song.getYoutubeVideoId(), song);
+                missing.remove(song.getYoutubeVideoId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, missing.values().stream()
+                    .map(video -> new Object[] {video.getVideoId(), video.getTitle(), UNKNOWN_ARTIST, video.getEmbedUrl()})
+                    .toList());
+            for (Song song : songRepository.findByYoutubeVideoIdIn(missing.keySet())) {
+                songs.put(song.getYoutubeVideoId(), song);
+            }
+            log.info("Importação criou até {} músicas novas no banco", missing.size());
+        }
+
+        List<Song> result = new ArrayList<>(videos.size());
+        for (YouTubeVideoDTO video : videos) {
+            Song song = songs.get(video.getVideoId());
+            remember(song);
+            Song snapshot = copyOf(song);
+            afterCommit(() -> suggestionIndex.recordSong(snapshot));
+            result.add(song);
+        }
+        return result;
+    }
+
+    private Song cached(String videoId) {
+        Song song = byVideoId.getIfPresent(videoId);
+        return song == null ? null : copyOf(song);
+    }
+
+    // Só entra no cache depois do commit: um ID de uma transação desfeita não existe no banco
+    private void remember(Song song) {
+        Song snapshot = copyOf(song);
+        afterCommit(() -> {
+            byVideoId.put(snapshot.getYoutubeVideoId(), snapshot);
+            catalogIndex.add(snapshot);
         });
     }
-}
\ No newline at end of file
+
+    // Sem transação ativa, roda na hora
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Song copyOf(Song song) {
+        Song copy = new Song(song.getYoutubeVideoId(), song.getTitle(), song.getArtist(), song.getUrl());
+        copy.setSongId(song.getSongId());
+        return copy;
+    }
+}
@@ -0,0 +1,246 @@
+package com.karaoke.backend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.karaoke.backend.dtos.SuggestionDTO;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.repositories.SongRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autocompletar do campo de busca: trie compacta (arestas com rótulos de vários
+ * caracteres) sobre buscas anteriores que tiveram resultado e títulos das músicas
+ * cadastradas, ordenadas por frequência.
+ *
+ * Cada nó guarda as TOP_K sugestões mais frequentes da sua subárvore, então responder
+ * um prefixo é só descer a trie, sem percorrer os filhos nem chamar o YouTube. Os títulos
+ * também entram a partir de cada palavra ("Chitãozinho & Xororó - Evidências" aparece para
+ * "evid"). Escritas são serializadas; leituras não travam: cada nó troca seus arrays
+ * inteiros (cópia na escrita) e nunca os altera no lugar.
+ */
+@Slf4j
+@Service
+public class SongSuggestionIndex {
+
+    static final int TOP_K = 10;
+
+    // Palavras que não iniciam sugestão por si só (ver SongCatalogIndex)
+    private static final Set<String> IGNORED = Set.of("karaoke", "de", "da", "do", "das", "dos", "e", "a", "o", "the");
+
+    // Um título entra a partir das primeiras palavras apenas; o resto do título raramente é digitado
+    private static final int MAX_WORD_STARTS = 6;
+
+    private record Suggestion(String key, String text, String videoId, long weight) {}
+
+    // Arestas de um nó, ordenadas pelo primeiro caractere do rótulo; trocadas inteiras
+    private record Edges(char[] first, String[] labels, Node[] children) {
+        static final Edges EMPTY = new Edges(new char[0], new String[0], new Node[0]);
+
+        int find(char c) {
+            return Arrays.binarySearch(first, c);
+        }
+
+        Edges with(int index, String label, Node child) {
+            if (index >= 0) {
+                String[] newLabels = labels.clone();
+                Node[] newChildren = children.clone();
+                newLabels[index] = label;
+                newChildren[index] = child;
+                return new Edges(first, newLabels, newChildren);
+            }
+            int at = -index - 1;
+            int n = first.length;
+            char[] newFirst = new char[n + 1];
+            String[] newLabels = new String[n + 1];
+            Node[] newChildren = new Node[n + 1];
+            System.arraycopy(first, 0, newFirst, 0, at);
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newFirst[at] = label.charAt(0);
+            newLabels[at] = label;
+            newChildren[at] = child;
+            System.arraycopy(first, at, newFirst, at + 1, n - at);
+            System.arraycopy(labels, at, newLabels, at + 1, n - at);
+            System.arraycopy(children, at, newChildren, at + 1, n - at);
+            return new Edges(newFirst, newLabels, newChildren);
+        }
+    }
+
+    private static final class Node {
+        volatile Edges edges = Edges.EMPTY;
+        volatile Suggestion[] top = new Suggestion[0];
+    }
+
+    private final SongRepository songRepository;
+    private final int maxEntries;
+
+    private final Node root = new Node();
+    // chave normalizada → sugestão atual (com o peso acumulado)
+    private final Map<String, Suggestion> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SongSuggestionIndex(SongRepository songRepository,
+                               @Value("${suggest.max-entries:100000}") int maxEntries) {
+        this.songRepository = songRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        songRepository.findAll().forEach(this::recordSong);
+        log.info("Autocompletar carregado: {} sugestões em {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Música cadastrada ou adicionada à fila de novo: sobe uma posição de popularidade. */
+    public void recordSong(Song song) {
+        if (song == null || song.getTitle() == null) return;
+        record(song.getTitle(), song.getYoutubeVideoId(), true);
+    }
+
+    /** Busca que trouxe resultados; buscas sem resultado (erros de digitação) não entram. */
+    public void recordQuery(String query) {
+        if (query == null) return;
+        record(query.strip().replaceAll("\\s+", " "), null, false);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Até limit sugestões que começam com prefix (ou com uma palavra iniciada por prefix, nos títulos). */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) return List.of();
+        // Um espaço no fim do prefixo é mantido: "trem " não deve sugerir "tremendo"
+        if (prefix.endsWith(" ")) key += " ";
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Edges edges = node.edges;
+            int index = edges.find(key.charAt(i));
+            if (index < 0) return List.of();
+            String label = edges.labels()[index];
+            int common = commonPrefix(label, key, i);
+            if (i + common == key.length()) {
+                // O prefixo termina no meio (ou no fim) desta aresta: a subárvore toda casa
+                node = edges.children()[index];
+                break;
+            }
+            if (common < label.length()) return List.of();
+            node = edges.children()[index];
+            i += common;
+        }
+
+        Suggestion[] top = node.top;
+        List<SuggestionDTO> result = new ArrayList<>(Math.min(limit, top.length));
+        for (int j = 0; j < top.length && j < limit; j++) {
+            result.add(new SuggestionDTO(top[j].text(), top[j].videoId()));
+        }
+        return result;
+    }
+
+    private synchronized void record(String text, String videoId, boolean indexWords) {
+        String key = normalize(text);
+        if (key.isEmpty()) return;
+
+        Suggestion previous = entries.get(key);
+        if (previous == null && entries.size() >= maxEntries) return;
+        Suggestion updated;
+        if (previous == null) {
+            updated = new Suggestion(key, text, videoId, 1);
+        } else if (previous.videoId() == null && videoId != null) {
+            // Música cadastrada com o mesmo texto de uma busca anterior: passa a trazer o videoId
+            updated = new Suggestion(key, text, videoId, previous.weight() + 1);
+        } else {
+            updated = new Suggestion(key, previous.text(), previous.videoId(), previous.weight() + 1);
+        }
+        entries.put(key, updated);
+
+        insert(key, updated);
+        // Uma vez música, as palavras do título acompanham o peso mesmo quando ele sobe por uma busca
+        if (indexWords || updated.videoId() != null) {
+            int starts = 1;
+            for (int i = 1; i < key.length() && starts < MAX_WORD_STARTS; i++) {
+                if (key.charAt(i - 1) != ' ') continue;
+                String suffix = key.substring(i);
+                String word = suffix.split(" ", 2)[0];
+                if (IGNORED.contains(word)) continue;
+                insert(suffix, updated);
+                starts++;
+            }
+        }
+    }
+
+    // Chamado dentro de record: desce (criando/partindo arestas) até o fim de path e
+    // atualiza o TOP_K de cada nó do caminho
+    private void insert(String path, Suggestion suggestion) {
+        Node node = root;
+        promote(node, suggestion);
+        int i = 0;
+        while (i < path.length()) {
+            Edges edges = node.edges;
+            int index = edges.find(path.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node();
+                promote(leaf, suggestion);
+                node.edges = edges.with(index, path.substring(i), leaf);
+                return;
+            }
+            String label = edges.labels()[index];
+            Node child = edges.children()[index];
+            int common = commonPrefix(label, path, i);
+            if (common < label.length()) {
+                // Parte a aresta: o nó do meio herda a subárvore (e o TOP_K) do filho antigo
+                Node middle = new Node();
+                middle.edges = Edges.EMPTY.with(-1, label.substring(common), child);
+                middle.top = child.top;
+                node.edges = edges.with(index, label.substring(0, common), middle);
+                child = middle;
+            }
+            node = child;
+            promote(node, suggestion);
+            i += common;
+        }
+    }
+
+    // Pesos só crescem: basta colocar a sugestão atualizada na posição certa do TOP_K
+    private static void promote(Node node, Suggestion suggestion) {
+        Suggestion[] top = node.top;
+        List<Suggestion> merged = new ArrayList<>(top.length + 1);
+        for (Suggestion s : top) {
+            if (!s.key().equals(suggestion.key())) merged.add(s);
+        }
+        int at = 0;
+        while (at < merged.size() && merged.get(at).weight() >= suggestion.weight()) at++;
+        if (at >= TOP_K) return;
+        merged.add(at, suggestion);
+        if (merged.size() > TOP_K) merged.remove(TOP_K);
+        node.top = merged.toArray(new Suggestion[0]);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) n++;
+        return n;
+    }
+
+    // Mesma normalização do catálogo (sem acento, minúsculas), palavras separadas por um espaço
+    static String normalize(String text) {
+        return String.join(" ", SongCatalogIndex.tokenize(text));
+    }
+}
@@ -0,0 +1,147 @@
+package com.karaoke.backend.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roda de tempo hierárquica (timing wheel): cada chave tem um prazo e advance(agora) devolve as
+ * chaves vencidas. Agendar e cancelar custam O(1); avançar custa um passo por tick mais as chaves
+ * que descem de nível ou vencem, sem percorrer as demais.
+ *
+ * O nível 0 tem SLOTS posições de tickMs e cada nível acima cobre SLOTS vezes o de baixo. A chave
+ * fica no nível mais baixo que alcança o seu prazo e desce quando o nível de cima chega à sua
+ * posição. Adiar o prazo não move a chave: quando a posição antiga chega, ela é recolocada.
+ *
+ * Não é thread-safe (o SessionExpiryWheel sincroniza o acesso).
+ */
+final class TimingWheel<K> {
+
+    private static final int SLOTS = 64;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    // Posição (nível, slot) em buckets.get(nível * SLOTS + slot)
+    private final List<Set<Entry<K>>> buckets = new ArrayList<>(LEVELS * SLOTS);
+    // Prazos que já tinham passado ao entrar na roda; saem no próximo advance
+    private final Set<Entry<K>> overdue = new HashSet<>();
+
+    private long currentTick;
+
+    TimingWheel(long tickMs, long startMs) {
+        this.tickMs = Math.max(1, tickMs);
+        this.currentTick = startMs / this.tickMs;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            buckets.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Agenda a chave para deadlineMs. Se ela já estiver na roda, fica o prazo mais distante.
+     */
+    void schedule(K key, long deadlineMs) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            entry.deadlineMs = Math.max(entry.deadlineMs, deadlineMs);
+            return;
+        }
+        entry = new Entry<>(key, deadlineMs);
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    void cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry != null) entry.bucket.remove(entry);
+    }
+
+    /**
+     * Avança até nowMs e devolve (removendo da roda) as chaves cujo prazo chegou.
+     */
+    List<K> advance(long nowMs) {
+        List<K> due = new ArrayList<>();
+        drainOverdue(due);
+
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Níveis de cima primeiro: o que desce pode vencer neste mesmo tick
+            long span = pow(LEVELS - 1);
+            for (int level = LEVELS - 1; level > 0; level--, span /= SLOTS) {
+                if (currentTick % span == 0) {
+                    flush(bucket(level, currentTick / span), due);
+                }
+            }
+            flush(bucket(0, currentTick), due);
+            drainOverdue(due);
+        }
+        return due;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void place(Entry<K> entry) {
+        long tick = Math.ceilDiv(entry.deadlineMs, tickMs);
+        if (tick <= currentTick) {
+            entry.bucket = overdue;
+            overdue.add(entry);
+            return;
+        }
+        int level = 0;
+        long span = 1;
+        // O último nível aceita prazos além do seu alcance: a chave desce antes da hora e é recolocada
+        while (level < LEVELS - 1 && tick - currentTick >= span * SLOTS) {
+            span *= SLOTS;
+            level++;
+        }
+        Set<Entry<K>> bucket = bucket(level, tick / span);
+        entry.bucket = bucket;
+        bucket.add(entry);
+    }
+
+    // Vence o que chegou ao prazo e recoloca o resto (desceu de nível ou teve o prazo adiado)
+    private void flush(Set<Entry<K>> bucket, List<K> due) {
+        if (bucket.isEmpty()) return;
+        List<Entry<K>> pending = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<K> entry : pending) {
+            if (Math.ceilDiv(entry.deadlineMs, tickMs) <= currentTick) {
+                entries.remove(entry.key);
+                due.add(entry.key);
+            } else {
+                place(entry);
+            }
+        }
+    }
+
+    private void drainOverdue(List<K> due) {
+        flush(overdue, due);
+    }
+
+    private Set<Entry<K>> bucket(int level, long position) {
+        return buckets.get(level * SLOTS + (int) Math.floorMod(position, (long) SLOTS));
+    }
+
+    private static long pow(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) span *= SLOTS;
+        return span;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private long deadlineMs;
+        private Set<Entry<K>> bucket;
+
+        private Entry(K key, long deadlineMs) {
+            this.key = key;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.karaoke.backend.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.karaoke.backend.models.VideoValidation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Junta os videoIds ainda não checados de buscas simultâneas em chamadas videos.list.
+ *
+ * videos.list aceita até 50 IDs pelo mesmo custo de cota (1 unidade), mas cada busca só
+ * traz 10. O primeiro ID pendente abre uma janela de window-ms; ao fim dela, ou assim que
+ * o lote chega a 50, uma única chamada valida todos e completa o futuro de cada busca.
+ * Um ID já pedido (no lote aberto ou em uma chamada em andamento) não é pedido de novo.
+ */
+final class VideoValidationBatcher {
+
+    static final int MAX_IDS_PER_CALL = 50;
+
+    private final Function<List<String>, Map<String, VideoValidation>> fetcher;
+    private final Executor dispatcher;
+    private final Executor delayed;
+
+    // IDs pedidos e ainda sem resposta (no lote aberto ou já na API); protegido por synchronized (this)
+    private final Map<String, CompletableFuture<VideoValidation>> pending = new HashMap<>();
+    private Map<String, CompletableFuture<VideoValidation>> batch = new LinkedHashMap<>();
+
+    private final DistributionSummary batchSize;
+    private final Counter shared;
+
+    VideoValidationBatcher(Function<List<String>, Map<String, VideoValidation>> fetcher, Executor dispatcher,
+                           long windowMs, MeterRegistry meterRegistry) {
+        this.fetcher = fetcher;
+        this.dispatcher = dispatcher;
+        this.delayed = CompletableFuture.delayedExecutor(Math.max(0, windowMs), TimeUnit.MILLISECONDS, dispatcher);
+        this.batchSize = DistributionSummary.builder("youtube.validation.batch.size")
+                .description("IDs por chamada videos.list")
+                .register(meterRegistry);
+        this.shared = Counter.builder("youtube.validation.batch.shared")
+                .description("IDs que aproveitaram um pedido já feito por outra busca")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Valida videoIds, esperando o lote em que eles entrarem. IDs sem resposta da API ficam
+     * fora do mapa retornado.
+     *
+     * @throws YoutubeService.YoutubeUnavailableException ou YoutubeQuotaExceededException da chamada do lote
+     */
+    Map<String, VideoValidation> fetch(List<String> videoIds) {
+        Map<String, CompletableFuture<VideoValidation>> futures = new LinkedHashMap<>();
+        List<Map<String, CompletableFuture<VideoValidation>>> full = new ArrayList<>();
+        synchronized (this) {
+            for (String videoId : videoIds) {
+                CompletableFuture<VideoValidation> future = pending.get(videoId);
+                if (future != null) {
+                    shared.increment();
+                } else {
+                    future = new CompletableFuture<>();
+                    pending.put(videoId, future);
+                    if (batch.isEmpty()) {
+                        Map<String, CompletableFuture<VideoValidation>> opened = batch;
+                        delayed.execute(() -> dispatchIfOpen(opened));
+                    }
+                    batch.put(videoId, future);
+                    if (batch.size() >= MAX_IDS_PER_CALL) {
+                        full.add(batch);
+                        batch = new LinkedHashMap<>();
+                    }
+                }
+                futures.put(videoId, future);
+            }
+        }
+        // Lote cheio não espera a janela
+        full.forEach(b -> dispatcher.execute(() -> dispatch(b)));
+
+        Map<String, VideoValidation> validations = new HashMap<>();
+        try {
+            futures.forEach((videoId, future) -> {
+                VideoValidation validation = future.join();
+                if (validation != null) validations.put(videoId, validation);
+            });
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        return validations;
+    }
+
+    // Fim da janela: despacha o lote se ele ainda for o aberto (se encheu antes, já foi)
+    private void dispatchIfOpen(Map<String, CompletableFuture<VideoValidation>> opened) {
+        synchronized (this) {
+            if (batch != opened) return;
+            batch = new LinkedHashMap<>();
+        }
+        dispatch(opened);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<VideoValidation>> toSend) {
+        List<String> ids = List.copyOf(toSend.keySet());
+        batchSize.record(ids.size());
+        try {
+            Map<String, VideoValidation> fetched = fetcher.apply(ids);
+            toSend.forEach((videoId, future) -> future.complete(fetched.get(videoId)));
+        } catch (RuntimeException e) {
+            toSend.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                ids.forEach(pending::remove);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.karaoke.backend.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.karaoke.backend.models.VideoValidation;
+import com.karaoke.backend.repositories.VideoValidationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache de longa duração videoId → VideoValidation (embeddable, regiões bloqueadas, duração).
+ *
+ * Os mesmos vídeos de karaokê aparecem em quase todas as buscas; a checagem fica em memória
+ * e na tabela video_validation, e só é refeita depois de ttl-days (um vídeo pode deixar de
+ * ser incorporável ou ganhar bloqueio regional).
+ */
+@Slf4j
+@Service
+public class VideoValidationCache {
+
+    private final VideoValidationRepository repository;
+    private final Duration ttl;
+    private final Cache<String, VideoValidation> memory;
+
+    public VideoValidationCache(VideoValidationRepository repository,
+                                @Value("${youtube.validation-cache.ttl-days:7}") long ttlDays,
+                                @Value("${youtube.validation-cache.max-entries:50000}") long maxEntries) {
+        this.repository = repository;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.memory = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Validações ainda válidas dos IDs pedidos: primeiro da memória, o resto do banco.
+     * IDs ausentes no mapa retornado precisam ser checados na API.
+     */
+    public Map<String, VideoValidation> getAll(Collection<String> videoIds) {
+        Map<String, VideoValidation> found = new HashMap<>(memory.getAllPresent(videoIds));
+        List<String> missing = videoIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) return found;
+
+        LocalDateTime limit = LocalDateTime.now().minus(ttl);
+        for (VideoValidation validation : repository.findAllById(missing)) {
+            if (validation.getCheckedAt() != null && validation.getCheckedAt().isAfter(limit)) {
+                found.put(validation.getVideoId(), validation);
+                memory.put(validation.getVideoId(), validation);
+            }
+        }
+        return found;
+    }
+
+    public void putAll(Collection<VideoValidation> validations) {
+        if (validations.isEmpty()) return;
+        validations.forEach(v -> memory.put(v.getVideoId(), v));
+        try {
+            repository.saveAll(validations);
+        } catch (RuntimeException e) {
+            // Outra busca gravou o mesmo vídeo ao mesmo tempo; a memória já está atualizada
+            log.warn("Falha ao gravar validações de vídeos: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.karaoke.backend.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cliente HTTP da YouTube Data API (java.net.http.HttpClient).
+ *
+ * O HttpClient mantém as conexões com googleapis.com abertas (keep-alive, HTTP/2 quando
+ * disponível) e é compartilhado por todas as buscas. Toda chamada tem timeout de conexão
+ * e de resposta: uma resposta lenta do Google vira YoutubeUnavailableException em vez de
+ * prender a thread indefinidamente. As chamadas bloqueiam, mas rodam em threads virtuais
+ * (ver YoutubeService.searchVideosAsync).
+ */
+@Component
+public class YoutubeApiClient {
+
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+
+    public YoutubeApiClient(ObjectMapper objectMapper,
+                            @Value("${youtube.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+                            @Value("${youtube.client.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * GET em uri, decodificando o corpo JSON direto do stream para type (records que
+     * ignoram campos desconhecidos). Status diferente de 2xx, timeout ou falha de rede
+     * viram YoutubeUnavailableException.
+     */
+    public <T> T get(String uri, Class<T> type) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    if (response.statusCode() == 403 && isQuotaError(body.readAllBytes())) {
+                        throw new YoutubeQuotaExceededException("Cota diária da API do YouTube esgotada.", Duration.ZERO);
+                    }
+                    throw new YoutubeService.YoutubeUnavailableException(
+                            "API do YouTube respondeu HTTP " + response.statusCode(), null);
+                }
+                return objectMapper.readValue(body, type);
+            }
+        } catch (IOException e) {
+            throw new YoutubeService.YoutubeUnavailableException("Falha na chamada à API do YouTube: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new YoutubeService.YoutubeUnavailableException("Chamada à API do YouTube interrompida", e);
+        }
+    }
+
+    // 403 da API por cota vem com reason quotaExceeded/dailyLimitExceeded no corpo do erro
+    private static boolean isQuotaError(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        return text.contains("quotaExceeded") || text.contains("dailyLimitExceeded");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
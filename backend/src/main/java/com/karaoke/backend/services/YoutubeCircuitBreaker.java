@@ -0,0 +1,127 @@
+package com.karaoke.backend.services;
+
+import java.time.Clock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disjuntor das chamadas à YouTube Data API.
+ *
+ * Depois de failure-threshold falhas seguidas (timeout, 5xx, rede) o circuito abre e as
+ * chamadas falham na hora, sem esperar a conexão morta, por open-ms. Passado esse tempo
+ * uma única chamada de teste (meio aberto) decide: sucesso fecha o circuito, falha abre
+ * de novo. Cota esgotada não conta como falha: o Google respondeu.
+ */
+@Slf4j
+@Service
+public class YoutubeCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Clock clock;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final Counter rejected;
+    private final Counter opened;
+
+    @Autowired
+    public YoutubeCircuitBreaker(MeterRegistry meterRegistry,
+                                 @Value("${youtube.circuit.failure-threshold:5}") int failureThreshold,
+                                 @Value("${youtube.circuit.open-ms:30000}") long openMs) {
+        this(Clock.systemUTC(), meterRegistry, failureThreshold, openMs);
+    }
+
+    YoutubeCircuitBreaker(Clock clock, MeterRegistry meterRegistry, int failureThreshold, long openMs) {
+        this.clock = clock;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+
+        this.rejected = Counter.builder("youtube.circuit.rejected")
+                .description("Chamadas recusadas na hora com o circuito aberto").register(meterRegistry);
+        this.opened = Counter.builder("youtube.circuit.opened")
+                .description("Vezes que o circuito abriu").register(meterRegistry);
+        Gauge.builder("youtube.circuit.state", this, b -> b.state().ordinal())
+                .description("0 fechado, 1 aberto, 2 meio aberto").register(meterRegistry);
+    }
+
+    /**
+     * Executa call se o circuito permitir.
+     *
+     * @throws YoutubeService.YoutubeUnavailableException na hora, com o circuito aberto
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!tryAcquirePermission()) {
+            rejected.increment();
+            throw new YoutubeService.YoutubeUnavailableException("API do YouTube indisponível (circuito aberto)", null);
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (YoutubeQuotaExceededException e) {
+            onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMs) return State.HALF_OPEN;
+        return state;
+    }
+
+    public boolean isOpen() {
+        return state() == State.OPEN;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMs) return false;
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) return false;
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) log.info("API do YouTube respondeu de novo; circuito fechado");
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                opened.increment();
+                log.warn("API do YouTube falhou {} vez(es) seguida(s); circuito aberto por {} ms", consecutiveFailures, openMs);
+            }
+            state = State.OPEN;
+            openedAt = clock.millis();
+            probeInFlight = false;
+        }
+    }
+}
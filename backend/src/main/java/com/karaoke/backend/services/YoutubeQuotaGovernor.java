@@ -0,0 +1,231 @@
+package com.karaoke.backend.services;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controle da cota diária da YouTube Data API.
+ *
+ * Cada chamada custa unidades (search.list = 100, videos.list = 1) e passa por dois limites:
+ * - cota do dia (daily-units), que o Google zera à meia-noite do horário do Pacífico;
+ * - balde de fichas (bucket-units, reposto a refill-units-per-minute), que impede uma
+ *   rajada de buscas de gastar a cota do evento inteiro em poucos minutos.
+ *
+ * A degradação é em estágios (ver {@link Stage}): abaixo de saving-percent da cota o
+ * YoutubeService prefere cache e catálogo local; com o balde vazio as chamadas esperam na
+ * fila (em ordem de chegada) até max-wait-ms; sem cota, são recusadas com
+ * YoutubeQuotaExceededException (HTTP 429).
+ */
+@Slf4j
+@Service
+public class YoutubeQuotaGovernor {
+
+    // A cota da API é zerada à meia-noite do horário do Pacífico, não do servidor
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    public enum CallType {
+        SEARCH(100), VIDEOS(1);
+
+        private final int units;
+
+        CallType(int units) {
+            this.units = units;
+        }
+
+        public int units() {
+            return units;
+        }
+    }
+
+    public enum Stage { NORMAL, SAVING, QUEUEING, EXHAUSTED }
+
+    private final Clock clock;
+    private final long dailyUnits;
+    private final long savingBelow;
+    private final double bucketCapacity;
+    private final double refillPerMilli;
+    private final long maxWaitMs;
+
+    // Fila justa: quem chegou primeiro consome primeiro quando o balde reabastece.
+    // O estado abaixo é protegido por synchronized (this), nunca durante uma espera.
+    private final ReentrantLock queue = new ReentrantLock(true);
+    private LocalDate day;
+    private long spentToday;
+    private double tokens;
+    private long lastRefill;
+
+    private final Counter searchUnits;
+    private final Counter videosUnits;
+    private final Counter queued;
+    private final Counter rejected;
+
+    @Autowired
+    public YoutubeQuotaGovernor(MeterRegistry meterRegistry,
+                                @Value("${youtube.quota.daily-units:10000}") long dailyUnits,
+                                @Value("${youtube.quota.saving-percent:20}") int savingPercent,
+                                @Value("${youtube.quota.bucket-units:1000}") long bucketUnits,
+                                @Value("${youtube.quota.refill-units-per-minute:600}") long refillPerMinute,
+                                @Value("${youtube.quota.max-wait-ms:10000}") long maxWaitMs) {
+        this(Clock.systemUTC(), meterRegistry, dailyUnits, savingPercent, bucketUnits, refillPerMinute, maxWaitMs);
+    }
+
+    YoutubeQuotaGovernor(Clock clock, MeterRegistry meterRegistry, long dailyUnits, int savingPercent,
+                         long bucketUnits, long refillPerMinute, long maxWaitMs) {
+        this.clock = clock;
+        this.dailyUnits = dailyUnits;
+        this.savingBelow = dailyUnits * savingPercent / 100;
+        this.bucketCapacity = bucketUnits;
+        this.refillPerMilli = refillPerMinute / 60_000.0;
+        this.maxWaitMs = maxWaitMs;
+        this.day = today();
+        this.tokens = bucketUnits;
+        this.lastRefill = clock.millis();
+
+        this.searchUnits = Counter.builder("youtube.quota.units.spent").tag("call", "search")
+                .description("Unidades de cota gastas com search.list").register(meterRegistry);
+        this.videosUnits = Counter.builder("youtube.quota.units.spent").tag("call", "videos")
+                .description("Unidades de cota gastas com videos.list").register(meterRegistry);
+        this.queued = Counter.builder("youtube.quota.queued")
+                .description("Chamadas que esperaram o balde de fichas reabastecer").register(meterRegistry);
+        this.rejected = Counter.builder("youtube.quota.rejected")
+                .description("Chamadas recusadas por falta de cota").register(meterRegistry);
+        Gauge.builder("youtube.quota.remaining", this, YoutubeQuotaGovernor::remaining)
+                .description("Unidades de cota restantes no dia").register(meterRegistry);
+        Gauge.builder("youtube.quota.bucket.tokens", this, g -> g.snapshot().tokens())
+                .description("Fichas disponíveis no balde").register(meterRegistry);
+        Gauge.builder("youtube.quota.stage", this, g -> g.stage().ordinal())
+                .description("0 normal, 1 economia, 2 fila, 3 esgotada").register(meterRegistry);
+    }
+
+    /**
+     * Reserva as unidades de uma chamada, esperando o balde reabastecer se preciso.
+     *
+     * @throws YoutubeQuotaExceededException se a cota do dia acabou ou a espera passaria de max-wait-ms
+     */
+    public void acquire(CallType type) {
+        long deadline = clock.millis() + maxWaitMs;
+        boolean waited = false;
+        try {
+            if (!queue.tryLock(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                throw reject(Duration.ofMillis(maxWaitMs), "Muitas buscas ao YouTube no momento. Tente novamente em instantes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(Duration.ofMillis(maxWaitMs), "Busca interrompida aguardando cota do YouTube.");
+        }
+        try {
+            while (true) {
+                long waitMs;
+                synchronized (this) {
+                    refill();
+                    if (spentToday + type.units() > dailyUnits) {
+                        throw reject(untilReset(), "Cota diária da API do YouTube esgotada. As buscas voltam após a renovação da cota.");
+                    }
+                    if (tokens >= type.units()) {
+                        tokens -= type.units();
+                        spentToday += type.units();
+                        (type == CallType.SEARCH ? searchUnits : videosUnits).increment(type.units());
+                        return;
+                    }
+                    waitMs = (long) Math.ceil((type.units() - tokens) / refillPerMilli);
+                }
+
+                if (clock.millis() + waitMs > deadline) {
+                    throw reject(Duration.ofMillis(waitMs), "Muitas buscas ao YouTube no momento. Tente novamente em instantes.");
+                }
+                if (!waited) {
+                    queued.increment();
+                    waited = true;
+                }
+                Thread.sleep(waitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(Duration.ofMillis(maxWaitMs), "Busca interrompida aguardando cota do YouTube.");
+        } finally {
+            queue.unlock();
+        }
+    }
+
+    /**
+     * A própria API respondeu quotaExceeded (outra instância ou contagem divergente):
+     * considera a cota do dia gasta até a renovação.
+     */
+    public YoutubeQuotaExceededException markExhausted() {
+        synchronized (this) {
+            refill();
+            spentToday = dailyUnits;
+        }
+        log.warn("API do YouTube informou cota esgotada; buscas suspensas até a renovação");
+        return reject(untilReset(), "Cota diária da API do YouTube esgotada. As buscas voltam após a renovação da cota.");
+    }
+
+    public Stage stage() {
+        Snapshot s = snapshot();
+        if (s.remaining() < CallType.SEARCH.units()) return Stage.EXHAUSTED;
+        if (s.queueLength() > 0 || s.tokens() < CallType.SEARCH.units()) return Stage.QUEUEING;
+        if (s.remaining() < savingBelow) return Stage.SAVING;
+        return Stage.NORMAL;
+    }
+
+    public long remaining() {
+        return snapshot().remaining();
+    }
+
+    public long dailyUnits() {
+        return dailyUnits;
+    }
+
+    public Instant resetsAt() {
+        return clock.instant().plus(untilReset());
+    }
+
+    record Snapshot(long remaining, double tokens, int queueLength) {}
+
+    synchronized Snapshot snapshot() {
+        refill();
+        return new Snapshot(Math.max(0, dailyUnits - spentToday), tokens, queue.getQueueLength());
+    }
+
+    // Chamado dentro de synchronized (this): vira o dia da cota e repõe as fichas pelo tempo decorrido
+    private void refill() {
+        LocalDate current = today();
+        if (!current.equals(day)) {
+            day = current;
+            spentToday = 0;
+        }
+        long now = clock.millis();
+        tokens = Math.min(bucketCapacity, tokens + (now - lastRefill) * refillPerMilli);
+        lastRefill = now;
+    }
+
+    private YoutubeQuotaExceededException reject(Duration retryAfter, String message) {
+        rejected.increment();
+        return new YoutubeQuotaExceededException(message, retryAfter);
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock.withZone(QUOTA_ZONE));
+    }
+
+    private Duration untilReset() {
+        Instant nextReset = today().plusDays(1).atStartOfDay(QUOTA_ZONE).toInstant();
+        return Duration.between(clock.instant(), nextReset);
+    }
+}
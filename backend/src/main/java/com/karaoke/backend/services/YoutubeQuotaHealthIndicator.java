@@ -0,0 +1,33 @@
+package com.karaoke.backend.services;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Componente "youtubeQuota" do /actuator/health. Cota esgotada não derruba a aplicação
+ * (fila e sessões continuam funcionando), então vira DEGRADED em vez de DOWN.
+ */
+@Component
+@RequiredArgsConstructor
+public class YoutubeQuotaHealthIndicator implements HealthIndicator {
+
+    static final Status DEGRADED = new Status("DEGRADED", "Cota da API do YouTube esgotada");
+
+    private final YoutubeQuotaGovernor quotaGovernor;
+
+    @Override
+    public Health health() {
+        YoutubeQuotaGovernor.Stage stage = quotaGovernor.stage();
+        Health.Builder builder = stage == YoutubeQuotaGovernor.Stage.EXHAUSTED ? Health.status(DEGRADED) : Health.up();
+        return builder
+                .withDetail("stage", stage)
+                .withDetail("remainingUnits", quotaGovernor.remaining())
+                .withDetail("dailyUnits", quotaGovernor.dailyUnits())
+                .withDetail("resetsAt", quotaGovernor.resetsAt().toString())
+                .build();
+    }
+}
@@ -1,189 +1,482 @@
 package com.karaoke.backend.services;
 
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
-
-import lombok.RequiredArgsConstructor;
-
-@RequiredArgsConstructor
+import com.karaoke.backend.dtos.YoutubeSearchListResponse;
+import com.karaoke.backend.dtos.YoutubeVideoListResponse;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.models.VideoValidation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class YoutubeService {
 
     @Value("${youtube.api.key}")
     private String apiKey;
 
-    private final RestTemplate restTemplate;
+    // Configurável para apontar para um servidor local (ver FakeYoutubeApiServer nos testes)
+    @Value("${youtube.api.base-url:" + DEFAULT_API_BASE_URL + "}")
+    private String apiBaseUrl = DEFAULT_API_BASE_URL;
+
+    private final YoutubeApiClient apiClient;
     
-    private static final String YOUTUBE_API_URL = "https://www.googleapis.com/youtube/v3/";
+    private static final String DEFAULT_API_BASE_URL = "https://www.googleapis.com/youtube/v3/";
     private static final String USER_REGION_CODE = "BR";
+    private static final int MAX_RESULTS = 10;
+
+    // Checagens de embeddable/região/duração por videoId, compartilhadas entre as buscas
+    private final VideoValidationCache validationCache;
+    // IDs sem checagem de buscas simultâneas vão juntos em uma chamada videos.list (até 50)
+    private final VideoValidationBatcher validationBatcher;
+
+    // Músicas já cantadas na casa: respondem primeiro, o YouTube só completa quando faltam resultados
+    private final SongCatalogIndex catalogIndex;
+    private final int minLocalHits;
+    private final Counter localHits;
+    private final Counter localFallbacks;
+    private final Counter localSaving;
+
+    // Cota diária da API: toda chamada search.list/videos.list passa por aqui antes de sair
+    private final YoutubeQuotaGovernor quotaGovernor;
+
+    // Disjuntor: com o Google fora do ar as chamadas falham na hora em vez de esperar o timeout
+    private final YoutubeCircuitBreaker circuitBreaker;
+
+    // Resultados de busca por (consulta normalizada, região): buscas repetidas não saem da JVM.
+    // Passado ttl-minutes a entrada continua sendo servida (stale) e é atualizada em segundo plano;
+    // só some depois de max-stale-minutes
+    private final Cache<SearchKey, List<YouTubeVideoDTO>> searchCache;
+    private final Counter staleRefreshes;
+    private final Counter staleRefreshesSkipped;
+
+    // Buscas em andamento: quem pede a mesma chave enquanto a primeira não terminou espera o mesmo futuro
+    private final Map<SearchKey, CompletableFuture<List<YouTubeVideoDTO>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter searchesStarted;
+    private final Counter searchesCoalesced;
+
+    // Buscas assíncronas rodam em threads virtuais, no máximo maxConcurrent por vez: sem prender
+    // threads do Tomcat e sem disputar o pool de conexões do banco com os endpoints da fila
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore searchPermits;
+
+    record SearchKey(String query, String region) {
+
+        static SearchKey of(String query, String region) {
+            // "evidências+karaoke", " Evidências  Karaoke" e "evidências karaoke" são a mesma busca
+            String normalized = Normalizer.normalize(query, Normalizer.Form.NFC)
+                    .replace('+', ' ')
+                    .trim()
+                    .replaceAll("\\s+", " ")
+                    .toLowerCase(Locale.ROOT);
+            return new SearchKey(normalized, region);
+        }
+    }
+
+    public YoutubeService(YoutubeApiClient apiClient,
+                          VideoValidationCache validationCache,
+                          SongCatalogIndex catalogIndex,
+                          YoutubeQuotaGovernor quotaGovernor,
+                          YoutubeCircuitBreaker circuitBreaker,
+                          MeterRegistry meterRegistry,
+                          @Value("${youtube.search-cache.ttl-minutes:360}") long ttlMinutes,
+                          @Value("${youtube.search-cache.max-stale-minutes:4320}") long maxStaleMinutes,
+                          @Value("${youtube.search-cache.max-size-mb:16}") long maxSizeMb,
+                          @Value("${youtube.search.max-concurrent:16}") int maxConcurrent,
+                          @Value("${youtube.search.min-local-hits:3}") int minLocalHits,
+                          @Value("${youtube.validation-batch.window-ms:5}") long batchWindowMs) {
+        this.apiClient = apiClient;
+        this.validationCache = validationCache;
+        this.catalogIndex = catalogIndex;
+        this.quotaGovernor = quotaGovernor;
+        this.circuitBreaker = circuitBreaker;
+        this.minLocalHits = minLocalHits;
+        this.searchPermits = new Semaphore(Math.max(1, maxConcurrent));
+        this.validationBatcher = new VideoValidationBatcher(ids -> {
+            Map<String, VideoValidation> fetched = fetchValidations(ids);
+            validationCache.putAll(fetched.values());
+            return fetched;
+        }, searchExecutor, batchWindowMs, meterRegistry);
+        // W-TinyLFU do Caffeine limitado por peso (bytes estimados), não por número de entradas
+        this.searchCache = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .expireAfterWrite(Duration.ofMinutes(Math.max(ttlMinutes + 1, maxStaleMinutes)))
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((SearchKey key, List<YouTubeVideoDTO> videos) -> estimateBytes(key, videos))
+                .executor(searchExecutor)
+                .recordStats()
+                .build(new CacheLoader<SearchKey, List<YouTubeVideoDTO>>() {
+                    @Override
+                    public List<YouTubeVideoDTO> load(SearchKey key) {
+                        return fetchVideos(key.query());
+                    }
 
-    @Autowired
-    private Environment env;
+                    @Override
+                    public List<YouTubeVideoDTO> reload(SearchKey key, List<YouTubeVideoDTO> oldValue) {
+                        return refreshStale(key, oldValue);
+                    }
+                });
+        this.staleRefreshes = Counter.builder("youtube.search.cache.refresh")
+                .tag("result", "fetched")
+                .description("Entradas vencidas atualizadas em segundo plano")
+                .register(meterRegistry);
+        this.staleRefreshesSkipped = Counter.builder("youtube.search.cache.refresh")
+                .tag("result", "skipped")
+                .description("Atualizações adiadas (circuito aberto ou cota apertada); a entrada antiga continua valendo")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, searchCache, "youtube.search");
+        Gauge.builder("youtube.search.cache.bytes", searchCache, YoutubeService::weightedSize)
+                .description("Tamanho estimado (bytes) dos resultados em cache")
+                .register(meterRegistry);
+
+        this.searchesStarted = Counter.builder("youtube.search.inflight.requests")
+                .tag("result", "leader")
+                .description("Buscas que foram de fato à API (primeira de cada chave)")
+                .register(meterRegistry);
+        this.searchesCoalesced = Counter.builder("youtube.search.inflight.requests")
+                .tag("result", "coalesced")
+                .description("Buscas que aguardaram uma chamada idêntica já em andamento")
+                .register(meterRegistry);
+        Gauge.builder("youtube.search.inflight", inFlight, Map::size)
+                .description("Buscas distintas aguardando a API neste momento")
+                .register(meterRegistry);
+        this.localHits = Counter.builder("youtube.search.local")
+                .tag("result", "hit")
+                .description("Buscas respondidas só pelo catálogo local")
+                .register(meterRegistry);
+        this.localFallbacks = Counter.builder("youtube.search.local")
+                .tag("result", "fallback")
+                .description("Buscas em que o catálogo local teve poucos resultados e o YouTube foi consultado")
+                .register(meterRegistry);
+        this.localSaving = Counter.builder("youtube.search.local")
+                .tag("result", "quota-saving")
+                .description("Buscas respondidas só pelo catálogo local para economizar cota")
+                .register(meterRegistry);
+        Gauge.builder("youtube.search.local.songs", catalogIndex, SongCatalogIndex::size)
+                .description("Músicas no índice do catálogo local")
+                .register(meterRegistry);
+        Gauge.builder("youtube.search.inflight.dedup.ratio", this, YoutubeService::dedupRatio)
+                .description("Fração das buscas que não saíram do cache que foram agrupadas")
+                .register(meterRegistry);
+    }
 
+    /**
+     * Versão assíncrona de searchVideos para os controllers: a thread da requisição é
+     * liberada na hora e a busca roda em uma thread virtual.
+     */
+    public CompletableFuture<List<YouTubeVideoDTO>> searchVideosAsync(String query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                searchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return List.of();
+            }
+            try {
+                return searchVideos(query);
+            } finally {
+                searchPermits.release();
+            }
+        }, searchExecutor);
+    }
 
-    // Allow injection of RestTemplate for tests (mantém para os testes)
-    public void setRestTemplate(RestTemplate restTemplate) {
-        // Este método é usado apenas em testes para injetar um mock
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
     }
 
     public List<YouTubeVideoDTO> searchVideos(String query) {
+        List<YouTubeVideoDTO> local = catalogIndex.search(query, MAX_RESULTS);
+        if (local.size() >= minLocalHits) {
+            localHits.increment();
+            return local;
+        }
+
+        List<YouTubeVideoDTO> remote;
+        try {
+            SearchKey key = SearchKey.of(query, USER_REGION_CODE);
+            List<YouTubeVideoDTO> cached = searchCache.getIfPresent(key);
+            if (cached != null) {
+                remote = cached;
+            } else if (!local.isEmpty() && quotaGovernor.stage() != YoutubeQuotaGovernor.Stage.NORMAL) {
+                // Cota apertada: o pouco que o catálogo local achou é melhor que gastar 100 unidades
+                localSaving.increment();
+                return local;
+            } else {
+                localFallbacks.increment();
+                remote = fetchCoalesced(key, query);
+            }
+        } catch (YoutubeUnavailableException e) {
+            // Falha na API não entra no cache: a próxima busca tenta de novo
+            log.warn("Busca no YouTube falhou: {}", e.getMessage());
+            return new ArrayList<>(local);
+        } catch (YoutubeQuotaExceededException e) {
+            // Sem cota: responde com o catálogo local se houver algo, senão o erro chega ao cliente (429)
+            if (local.isEmpty()) throw e;
+            return local;
+        }
+        return local.isEmpty() ? remote : merge(local, remote);
+    }
+
+    // Roda no searchExecutor, disparado pela leitura de uma entrada vencida (que já foi devolvida ao cliente)
+    private List<YouTubeVideoDTO> refreshStale(SearchKey key, List<YouTubeVideoDTO> stale) {
+        if (circuitBreaker.isOpen() || quotaGovernor.stage() != YoutubeQuotaGovernor.Stage.NORMAL) {
+            staleRefreshesSkipped.increment();
+            return stale;
+        }
+        staleRefreshes.increment();
+        return fetchVideos(key.query());
+    }
+
+    // Resultados locais primeiro, sem repetir vídeos que o YouTube também devolveu
+    private static List<YouTubeVideoDTO> merge(List<YouTubeVideoDTO> local, List<YouTubeVideoDTO> remote) {
+        List<YouTubeVideoDTO> merged = new ArrayList<>(local);
+        Set<String> seen = new HashSet<>();
+        local.forEach(v -> seen.add(v.getVideoId()));
+        for (YouTubeVideoDTO video : remote) {
+            if (merged.size() >= MAX_RESULTS) break;
+            if (seen.add(video.getVideoId())) merged.add(video);
+        }
+        return merged;
+    }
 
-        // When running tests (profile 'test'), return a deterministic fake video so
-        // integration tests that don't mock the external API remain deterministic.
+    /**
+     * Single-flight: a primeira thread de uma chave chama a API e completa o futuro;
+     * as que chegam enquanto isso recebem o mesmo resultado (ou a mesma falha).
+     */
+    private List<YouTubeVideoDTO> fetchCoalesced(SearchKey key, String query) {
+        CompletableFuture<List<YouTubeVideoDTO>> mine = new CompletableFuture<>();
+        CompletableFuture<List<YouTubeVideoDTO>> pending = inFlight.putIfAbsent(key, mine);
+        if (pending != null) {
+            searchesCoalesced.increment();
+            return await(pending);
+        }
+
+        searchesStarted.increment();
         try {
-            String[] active = env.getActiveProfiles();
-            for (String p : active) {
-                if ("test".equals(p)) {
-                    // Return a deterministic DTO shape matching constructors
-                    YouTubeVideoDTO dto = new YouTubeVideoDTO("youtube-test-id", query, "", true);
-                    return java.util.List.of(dto);
-                }
+            // Outra líder pode ter terminado entre o getIfPresent e o putIfAbsent (sem contar outro miss)
+            List<YouTubeVideoDTO> result = searchCache.policy().getIfPresentQuietly(key);
+            if (result == null) {
+                result = fetchVideos(query);
+                searchCache.put(key, result);
             }
-        } catch (Exception ignored) {
-            // If env is not available for any reason, fall through to normal behavior
+            mine.complete(result);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return await(mine);
+    }
+
+    private static List<YouTubeVideoDTO> await(CompletableFuture<List<YouTubeVideoDTO>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
         }
+    }
+
+    private double dedupRatio() {
+        double coalesced = searchesCoalesced.count();
+        double total = coalesced + searchesStarted.count();
+        return total == 0 ? 0 : coalesced / total;
+    }
 
-        List<Map<String, Object>> searchResults = callSearchList(query);
+    private List<YouTubeVideoDTO> fetchVideos(String query) {
+        List<YoutubeSearchListResponse.Item> searchResults = callSearchList(query);
 
         if (searchResults.isEmpty()) {
-            return new ArrayList<>();
+            return List.of();
         }
 
-        // Extrai com segurança os IDs dos vídeos retornados pela busca
         List<String> videoIds = new ArrayList<>();
-        for (Map<String, Object> item : searchResults) {
-            Object idObj = item.get("id");
-            if (idObj instanceof Map) {
-                Object vid = ((Map<?, ?>) idObj).get("videoId");
-                if (vid instanceof String) videoIds.add((String) vid);
-            }
+        for (YoutubeSearchListResponse.Item item : searchResults) {
+            if (item.videoId() != null) videoIds.add(item.videoId());
         }
 
         Map<String, Boolean> validationMap = checkDetailedRestrictions(videoIds);
 
         List<YouTubeVideoDTO> finalValidList = new ArrayList<>();
 
-        for (Map<String, Object> item : searchResults) {
-            // safe extraction of nested fields to avoid NPE in unit tests that provide minimal maps
-            String videoId = null;
-            Object idObj = item.get("id");
-            if (idObj instanceof Map) {
-                Object vid = ((Map<?, ?>) idObj).get("videoId");
-                if (vid instanceof String) videoId = (String) vid;
-            }
-
-            Map<String, Object> snippet = item.get("snippet") instanceof Map ? (Map<String, Object>) item.get("snippet") : null;
-            String title = snippet != null && snippet.get("title") instanceof String ? (String) snippet.get("title") : "";
-
-            String thumbnaillUrl = "";
-            if (snippet != null) {
-                Object thumbs = snippet.get("thumbnails");
-                if (thumbs instanceof Map) {
-                    Object def = ((Map<?, ?>) thumbs).get("default");
-                    if (def instanceof Map) {
-                        Object url = ((Map<?, ?>) def).get("url");
-                        if (url instanceof String) thumbnaillUrl = (String) url;
-                    }
-                }
-            }
-
+        for (YoutubeSearchListResponse.Item item : searchResults) {
+            String videoId = item.videoId();
             if (videoId == null) continue;
 
             boolean isValid = validationMap.getOrDefault(videoId, false);
 
             if (isValid) {
-                YouTubeVideoDTO dto = new YouTubeVideoDTO(videoId, title, thumbnaillUrl, true);
+                YouTubeVideoDTO dto = new YouTubeVideoDTO(videoId, item.title(), item.thumbnailUrl(), true);
                 finalValidList.add(dto);
             }
         }
 
-        return finalValidList;
+        return List.copyOf(finalValidList);
+    }
+
+    // O Caffeine atualiza o peso total em manutenção assíncrona; cleanUp() aplica as escritas pendentes
+    private static long weightedSize(Cache<SearchKey, List<YouTubeVideoDTO>> cache) {
+        cache.cleanUp();
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    // Strings em UTF-16 + cabeçalhos de objeto; só precisa ser proporcional ao uso real
+    private static int estimateBytes(SearchKey key, List<YouTubeVideoDTO> videos) {
+        int bytes = 64 + key.query().length() * 2;
+        for (YouTubeVideoDTO v : videos) {
+            bytes += 96 + 2 * (length(v.getVideoId()) + length(v.getTitle()) + length(v.getEmbedUrl()) + length(v.getThumbnail()));
+        }
+        return bytes;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    /**
+     * A API do YouTube não respondeu (ou respondeu com erro). Diferente de "busca sem
+     * resultados", não pode ser guardada em cache.
+     */
+    static class YoutubeUnavailableException extends RuntimeException {
+        YoutubeUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
     }
 
     private Map<String, Boolean> checkDetailedRestrictions(List<String> videoIds) {
+        // Só vão para a API os vídeos que ainda não foram checados (ou cuja checagem expirou)
+        Map<String, VideoValidation> validations = validationCache.getAll(videoIds);
+        List<String> unknownIds = videoIds.stream()
+                .filter(id -> !validations.containsKey(id))
+                .distinct()
+                .toList();
+
+        if (!unknownIds.isEmpty()) {
+            validations.putAll(validationBatcher.fetch(unknownIds));
+        }
+
+        Map<String, Boolean> validationMap = new java.util.HashMap<>();
+        validations.forEach((videoId, validation) -> validationMap.put(videoId, validation.isPlayableIn(USER_REGION_CODE)));
+        return validationMap;
+    }
+
+    private Map<String, VideoValidation> fetchValidations(List<String> videoIds) {
         String idsString = String.join(",", videoIds);
 
-        String detailsUrl = UriComponentsBuilder.fromHttpUrl(YOUTUBE_API_URL + "videos")
+        String detailsUrl = UriComponentsBuilder.fromHttpUrl(endpoint("videos"))
                 .queryParam("key", apiKey)
                 .queryParam("part", "status,contentDetails")
                 .queryParam("id", idsString)
                 .toUriString();
 
-        Map<String, Object> validationMap = new java.util.HashMap<>();
+        Map<String, VideoValidation> validations = new java.util.HashMap<>();
 
+        // Recusa local (balde vazio, espera longa demais) não é resposta da API: fica fora do
+        // circuito e não esgota a cota do dia
+        quotaGovernor.acquire(YoutubeQuotaGovernor.CallType.VIDEOS);
         try {
-            Map<String, Object> response = restTemplate.getForObject(detailsUrl, Map.class);
-            if (response == null || !response.containsKey("items")) {
-                return (Map<String, Boolean>) (Map) validationMap;
+            YoutubeVideoListResponse response = circuitBreaker.call(
+                    () -> apiClient.get(detailsUrl, YoutubeVideoListResponse.class));
+            if (response == null || response.items() == null) {
+                return validations;
             }
-            Object itemsObj = response.get("items");
-            if (!(itemsObj instanceof List)) return (Map<String, Boolean>) (Map) validationMap;
-            List<Map<String, Object>> detailedItems = (List<Map<String, Object>>) itemsObj;
-
-            for (Map<String, Object> detailedItem : detailedItems) {
-                String videoId = (String) detailedItem.get("id");
-
-                // 1. Checagem de Permissão Geral
-                Map<String, Object> status = (Map<String, Object>) detailedItem.get("status");
-                boolean isEmbeddable = (Boolean) status.get("embeddable");
-
-                // 2. Checagem de Restrição Geográfica
-                boolean isRegionBlocked = false;
-                Map<String, Object> contentDetails = (Map<String, Object>) detailedItem.get("contentDetails");
 
-                if (contentDetails.containsKey("regionRestriction")) {
-                    Map<String, Object> regionRestriction = (Map<String, Object>) contentDetails.get("regionRestriction");
+            for (YoutubeVideoListResponse.Item detailedItem : response.items()) {
+                if (detailedItem.id() == null) continue;
 
-                    if (regionRestriction.containsKey("blocked")) {
-                        List<String> blockedRegions = (List<String>) regionRestriction.get("blocked");
-                        if (blockedRegions.contains(USER_REGION_CODE)) {
-                            isRegionBlocked = true;
-                        }
-                    }
-                }
+                // 1. Permissão geral, 2. regiões bloqueadas (avaliadas para a região do usuário na leitura),
+                // 3. duração (ISO 8601, ex.: PT4M13S)
+                validations.put(detailedItem.id(), new VideoValidation(
+                        detailedItem.id(),
+                        detailedItem.embeddable(),
+                        String.join(",", detailedItem.blockedRegions()),
+                        parseDuration(detailedItem.duration())));
+            }
 
-                validationMap.put(videoId, isEmbeddable && !isRegionBlocked);
+            // Pedidos que a API não devolveu (vídeo removido ou privado) também ficam registrados
+            for (String videoId : videoIds) {
+                validations.computeIfAbsent(videoId, id -> new VideoValidation(id, false, "", null));
             }
+        } catch (YoutubeQuotaExceededException e) {
+            // Só o 403 de cota do YoutubeApiClient chega aqui
+            throw quotaGovernor.markExhausted();
         } catch (Exception e) {
-            System.err.println("Erro ao checar detalhes do vídeo: " + e.getMessage());
+            throw new YoutubeUnavailableException("Erro ao checar detalhes do vídeo: " + e.getMessage(), e);
         }
 
-        return (Map<String, Boolean>) (Map) validationMap;
+        return validations;
+    }
+
+    private String endpoint(String resource) {
+        return apiBaseUrl.endsWith("/") ? apiBaseUrl + resource : apiBaseUrl + "/" + resource;
+    }
+
+    private static Long parseDuration(String isoDuration) {
+        if (isoDuration == null) return null;
+        try {
+            return Duration.parse(isoDuration).getSeconds();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
 
-    private List<Map<String, Object>> callSearchList(String query) {
-        String searchUri = UriComponentsBuilder.fromHttpUrl(YOUTUBE_API_URL + "search")
+    private List<YoutubeSearchListResponse.Item> callSearchList(String query) {
+        String searchUri = UriComponentsBuilder.fromHttpUrl(endpoint("search"))
                 .queryParam("key", apiKey)
                 .queryParam("part", "snippet")
                 .queryParam("q", query)
                 .queryParam("type", "video")
-                .queryParam("maxResults", 10)
+                .queryParam("maxResults", MAX_RESULTS)
                 .queryParam("videoEmbeddable", true)
+                // Acentos e espaços da busca precisam ir codificados: URI.create recusa o texto cru
+                .encode()
                 .build()
                 .toUriString();
 
+        quotaGovernor.acquire(YoutubeQuotaGovernor.CallType.SEARCH);
         try {
-            Map<String, Object> response = restTemplate.getForObject(searchUri, Map.class);
-            if (response == null || !response.containsKey("items")) {
-                return new ArrayList<>();
+            YoutubeSearchListResponse response = circuitBreaker.call(
+                    () -> apiClient.get(searchUri, YoutubeSearchListResponse.class));
+            if (response == null || response.items() == null) {
+                return List.of();
             }
-            Object itemsObj = response.get("items");
-            if (!(itemsObj instanceof List)) return new ArrayList<>();
-            return (List<Map<String, Object>>) itemsObj;
+            return response.items();
+        } catch (YoutubeQuotaExceededException e) {
+            // Só o 403 de cota do YoutubeApiClient chega aqui
+            throw quotaGovernor.markExhausted();
         } catch (Exception e) {
-            System.err.println("Falha ao se comunicar com a API do YouTube: " + e.getMessage());
-            return new ArrayList<>();
+            throw new YoutubeUnavailableException("Falha ao se comunicar com a API do YouTube: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+-- Esquema como o ddl-auto=update deixava o banco. Bancos já existentes entram no Flyway
+-- direto nesta versão (spring.flyway.baseline-on-migrate); bancos novos são criados por ela.
+
+create sequence karaoke_session_seq start with 1 increment by 50;
+create sequence queue_item_seq start with 1 increment by 50;
+create sequence session_rotation_seq start with 1 increment by 50;
+create sequence song_seq start with 1 increment by 50;
+create sequence tb_user_seq start with 1 increment by 50;
+
+create table karaoke_session (
+    id bigint not null,
+    access_code varchar(6) not null,
+    status varchar(255) check (status in ('WAITING', 'PLAYING', 'CLOSED')),
+    host_id bigint,
+    next_user_index integer not null,
+    created_at timestamp(6),
+    primary key (id),
+    constraint uk_karaoke_session_access_code unique (access_code)
+);
+
+create table tb_user (
+    id bigint not null,
+    username varchar(255) not null,
+    email varchar(255),
+    password varchar(255),
+    session_id bigint,
+    primary key (id),
+    constraint uk_tb_user_email unique (email)
+);
+
+create table song (
+    song_id bigint not null,
+    youtube_video_id varchar(255),
+    title varchar(255),
+    artist varchar(255),
+    url varchar(255),
+    primary key (song_id)
+);
+
+create table queue_item (
+    queue_item_id bigint not null,
+    timestamp_added timestamp(6) not null,
+    session_id bigint not null,
+    user_id bigint,
+    song_id bigint,
+    primary key (queue_item_id)
+);
+
+create table session_rotation (
+    id bigint not null,
+    session_id bigint not null,
+    user_id bigint,
+    position integer not null,
+    primary key (id),
+    constraint uk_session_rotation_user unique (session_id, user_id)
+);
+
+create table video_validation (
+    video_id varchar(32) not null,
+    embeddable boolean not null,
+    blocked_regions varchar(1024),
+    duration_seconds bigint,
+    checked_at timestamp(6),
+    primary key (video_id)
+);
+
+create index idx_session_rotation_position on session_rotation (session_id, position);
+
+alter table karaoke_session add constraint fk_karaoke_session_host foreign key (host_id) references tb_user;
+alter table tb_user add constraint fk_tb_user_session foreign key (session_id) references karaoke_session;
+alter table queue_item add constraint fk_queue_item_session foreign key (session_id) references karaoke_session;
+alter table queue_item add constraint fk_queue_item_user foreign key (user_id) references tb_user;
+alter table queue_item add constraint fk_queue_item_song foreign key (song_id) references song;
+alter table session_rotation add constraint fk_session_rotation_session foreign key (session_id) references karaoke_session;
+alter table session_rotation add constraint fk_session_rotation_user foreign key (user_id) references tb_user;
@@ -0,0 +1,13 @@
+-- Índices das buscas mais frequentes. email e access_code já têm o índice da restrição unique.
+
+-- SongRepository.findByYoutubeVideoId / findByYoutubeVideoIdIn
+create index idx_song_youtube_video_id on song (youtube_video_id);
+
+-- UserRepository.findByUsername (o usuário autenticado em addSongToQueue)
+create index idx_tb_user_username on tb_user (username);
+
+-- Usuários conectados de uma sessão (KaraokeSession.connectedUsers)
+create index idx_tb_user_session on tb_user (session_id);
+
+-- Fila de uma sessão já na ordem do @OrderBy de KaraokeSession.songQueue
+create index idx_queue_item_session_order on queue_item (session_id, timestamp_added, queue_item_id);
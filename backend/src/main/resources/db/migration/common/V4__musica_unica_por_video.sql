@@ -0,0 +1,21 @@
+-- Uma música por vídeo do YouTube. O find-then-save antigo deixava duplicatas quando dois
+-- convidados pediam o mesmo vídeo ao mesmo tempo: os itens da fila passam para a linha mais
+-- antiga de cada vídeo e as demais são apagadas antes de criar a restrição.
+
+update queue_item
+set song_id = (select min(d.song_id)
+               from song s
+               join song d on d.youtube_video_id = s.youtube_video_id
+               where s.song_id = queue_item.song_id)
+where song_id in (select s.song_id
+                  from song s
+                  where exists (select 1 from song d
+                                where d.youtube_video_id = s.youtube_video_id and d.song_id < s.song_id));
+
+delete from song
+where exists (select 1 from song d
+              where d.youtube_video_id = song.youtube_video_id and d.song_id < song.song_id);
+
+-- O índice da restrição unique substitui o idx_song_youtube_video_id
+drop index idx_song_youtube_video_id;
+alter table song add constraint uk_song_youtube_video_id unique (youtube_video_id);
@@ -0,0 +1,25 @@
+-- Última atividade da sessão (mutações da fila), base da limpeza de sessões inativas.
+-- Sessões existentes começam com a data de criação.
+
+alter table karaoke_session add column last_activity_at timestamp(6);
+update karaoke_session set last_activity_at = coalesce(created_at, localtimestamp);
+alter table karaoke_session alter column last_activity_at set not null;
+
+-- SessionCleanupService: sessões sem atividade desde um instante, mais antigas primeiro
+create index idx_karaoke_session_last_activity on karaoke_session (last_activity_at);
+
+-- Um DELETE da sessão resolve o resto no próprio banco: fila e rotação vão junto e os usuários
+-- conectados ficam sem sessão. Bancos que vieram do ddl-auto têm outros nomes de chave
+-- estrangeira; no Postgres elas são trocadas na V6.
+
+alter table queue_item drop constraint if exists fk_queue_item_session;
+alter table queue_item add constraint fk_queue_item_session
+    foreign key (session_id) references karaoke_session on delete cascade;
+
+alter table session_rotation drop constraint if exists fk_session_rotation_session;
+alter table session_rotation add constraint fk_session_rotation_session
+    foreign key (session_id) references karaoke_session on delete cascade;
+
+alter table tb_user drop constraint if exists fk_tb_user_session;
+alter table tb_user add constraint fk_tb_user_session
+    foreign key (session_id) references karaoke_session on delete set null;
@@ -0,0 +1,37 @@
+-- Bancos criados pelo ddl-auto=update entram no Flyway direto na versão 1 (baseline), sem rodar
+-- a V1. Eles têm IDs IDENTITY e não têm as sequências nem as tabelas que a V1 cria; sem isto a
+-- V3 (setval) falha e o ddl-auto=validate recusa o esquema. Em banco criado pela V1 nada muda.
+
+create sequence if not exists karaoke_session_seq start with 1 increment by 50;
+create sequence if not exists queue_item_seq start with 1 increment by 50;
+create sequence if not exists session_rotation_seq start with 1 increment by 50;
+create sequence if not exists song_seq start with 1 increment by 50;
+create sequence if not exists tb_user_seq start with 1 increment by 50;
+
+-- Os IDs passam a vir das sequências (a V3 as alinha com o maior ID gravado)
+alter table karaoke_session alter column id drop identity if exists;
+alter table tb_user alter column id drop identity if exists;
+alter table song alter column song_id drop identity if exists;
+alter table queue_item alter column queue_item_id drop identity if exists;
+
+create table if not exists session_rotation (
+    id bigint not null,
+    session_id bigint not null,
+    user_id bigint,
+    position integer not null,
+    primary key (id),
+    constraint uk_session_rotation_user unique (session_id, user_id),
+    constraint fk_session_rotation_session foreign key (session_id) references karaoke_session,
+    constraint fk_session_rotation_user foreign key (user_id) references tb_user
+);
+
+create index if not exists idx_session_rotation_position on session_rotation (session_id, position);
+
+create table if not exists video_validation (
+    video_id varchar(32) not null,
+    embeddable boolean not null,
+    blocked_regions varchar(1024),
+    duration_seconds bigint,
+    checked_at timestamp(6),
+    primary key (video_id)
+);
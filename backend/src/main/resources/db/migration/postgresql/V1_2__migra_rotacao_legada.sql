@@ -0,0 +1,31 @@
+-- Bancos do ddl-auto=update guardavam a rotação numa @ElementCollection de texto
+-- (karaoke_session_rotation_user_ids), sem coluna de ordem: o Hibernate regravava a lista inteira
+-- a cada mudança, então a ordem física (ctid) é a da lista. As linhas viram session_rotation, com
+-- a posição na ordem da primeira ocorrência de cada usuário, e a tabela antiga é apagada.
+-- "" (anônimo) vira user_id nulo; IDs de usuários que já não existem ficam de fora.
+-- Em banco criado pela V1 a tabela não existe e nada muda.
+
+do $$
+begin
+    if to_regclass('karaoke_session_rotation_user_ids') is null then
+        return;
+    end if;
+
+    insert into session_rotation (id, session_id, user_id, position)
+    select nextval('session_rotation_seq'),
+           r.session_id,
+           r.user_id,
+           row_number() over (partition by r.session_id order by r.primeira) - 1
+    from (select legado.karaoke_session_id as session_id,
+                 legado.user_id,
+                 min(legado.ordem) as primeira
+          from (select karaoke_session_id,
+                       case when rotation_user_ids ~ '^[0-9]+$' then rotation_user_ids::bigint end as user_id,
+                       row_number() over (partition by karaoke_session_id order by ctid) as ordem
+                from karaoke_session_rotation_user_ids) legado
+          group by legado.karaoke_session_id, legado.user_id) r
+    where (r.user_id is null or exists (select 1 from tb_user u where u.id = r.user_id))
+      and not exists (select 1 from session_rotation s where s.session_id = r.session_id);
+
+    drop table karaoke_session_rotation_user_ids;
+end $$;
@@ -0,0 +1,8 @@
+-- Bancos criados pelo ddl-auto usavam colunas IDENTITY; as sequências (blocos de 50) precisam
+-- começar depois do maior ID já gravado. Em banco novo as tabelas estão vazias e nada muda.
+
+select setval('karaoke_session_seq', (select coalesce(max(id), 0) + 50 from karaoke_session));
+select setval('tb_user_seq', (select coalesce(max(id), 0) + 50 from tb_user));
+select setval('song_seq', (select coalesce(max(song_id), 0) + 50 from song));
+select setval('queue_item_seq', (select coalesce(max(queue_item_id), 0) + 50 from queue_item));
+select setval('session_rotation_seq', (select coalesce(max(id), 0) + 50 from session_rotation));
@@ -0,0 +1,18 @@
+-- Bancos criados pelo ddl-auto=update têm chaves estrangeiras para karaoke_session com nomes
+-- gerados pelo Hibernate (FK...), sem ON DELETE, além das criadas na V5. Elas barrariam o
+-- DELETE em cascata da limpeza de sessões. Em banco novo só existem as da V5 e nada muda.
+
+do $$
+declare
+    fk record;
+begin
+    for fk in
+        select c.conrelid::regclass as tabela, c.conname as nome
+        from pg_constraint c
+        where c.contype = 'f'
+          and c.confrelid = 'karaoke_session'::regclass
+          and c.conname not in ('fk_queue_item_session', 'fk_session_rotation_session', 'fk_tb_user_session')
+    loop
+        execute format('alter table %s drop constraint %I', fk.tabela, fk.nome);
+    end loop;
+end $$;
@@ -1,6 +1,9 @@
 package com.karaoke.backend.controllers;
 
+import com.karaoke.backend.dtos.SuggestionDTO;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.services.SongSuggestionIndex;
 import com.karaoke.backend.services.YoutubeService;
 import com.karaoke.backend.config.SecurityConfig; 
 import com.karaoke.backend.config.JwtAuthFilter; 
@@ -14,12 +17,20 @@ import org.springframework.context.annotation.FilterType;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
@@ -38,6 +49,9 @@ class SongControllerTest {
     @MockBean
     private YoutubeService youtubeService;
 
+    @MockBean
+    private SongSuggestionIndex suggestionIndex;
+
     @Test
     void deveRetornarVideosAoPesquisar() throws Exception {
         // --- ARRANGE (Preparação) ---
@@ -50,16 +64,21 @@ class SongControllerTest {
 
         // CORREÇÃO 1: O Mock deve esperar a string que o controller REALMENTE envia
         // Opção A (Exata):
-        when(youtubeService.searchVideos(queryOriginal + "+karaoke")).thenReturn(mockResult);
+        when(youtubeService.searchVideosAsync(queryOriginal + "+karaoke")).thenReturn(CompletableFuture.completedFuture(mockResult));
         
         // Opção B (Genérica - Aceita qualquer string):
-        // when(youtubeService.searchVideos(anyString())).thenReturn(mockResult);
+        // when(youtubeService.searchVideosAsync(anyString())).thenReturn(CompletableFuture.completedFuture(mockResult));
 
         // --- ACT & ASSERT (Ação e Verificação) ---
-        mockMvc.perform(
+        MvcResult pending = mockMvc.perform(
                 get("/api/videos/search") 
                     .param("query", queryOriginal) // Envia "karaoke challenge"
                     .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // A busca é assíncrona: o resultado chega no segundo despacho
+        mockMvc.perform(asyncDispatch(pending))
                 
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2))) 
@@ -69,4 +88,47 @@ class SongControllerTest {
                 .andExpect(jsonPath("$[0].videoId", is("id-video-123"))) 
                 .andExpect(jsonPath("$[1].title", is("Melhor Video (Segundo)")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void deveRetornar429QuandoCotaDoYoutubeEsgotar() throws Exception {
+        when(youtubeService.searchVideosAsync("qualquer+karaoke")).thenReturn(CompletableFuture.failedFuture(
+                new YoutubeQuotaExceededException("Cota diária da API do YouTube esgotada.", Duration.ofMinutes(30))));
+
+        MvcResult pending = mockMvc.perform(get("/api/videos/search").param("query", "qualquer"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1800"))
+                .andExpect(jsonPath("$.message", is("Cota diária da API do YouTube esgotada.")));
+    }
+
+    @Test
+    void deveGuardarBuscaComResultadoParaOAutocompletar() throws Exception {
+        when(youtubeService.searchVideosAsync("evidencias+karaoke")).thenReturn(CompletableFuture.completedFuture(
+                List.of(new YouTubeVideoDTO("id-1", "Evidências", "thumb", true))));
+
+        MvcResult pending = mockMvc.perform(get("/api/videos/search").param("query", "evidencias"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pending)).andExpect(status().isOk());
+
+        verify(suggestionIndex).recordQuery("evidencias");
+    }
+
+    @Test
+    void deveSugerirSemChamarOYoutube() throws Exception {
+        when(suggestionIndex.suggest("evid", 5)).thenReturn(List.of(
+                new SuggestionDTO("Evidências - Chitãozinho & Xororó", "id-1"),
+                new SuggestionDTO("evidencias ao vivo", null)));
+
+        mockMvc.perform(get("/api/videos/suggest").param("prefix", "evid").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].videoId", is("id-1")))
+                .andExpect(jsonPath("$[1].text", is("evidencias ao vivo")));
+
+        verifyNoInteractions(youtubeService);
+    }
+}
@@ -17,13 +17,17 @@ import org.springframework.context.annotation.FilterType;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.is;
 
@@ -56,13 +60,18 @@ class YouTubeControllerTest {
         List<YouTubeVideoDTO> mockResult = List.of(video1, video2);
 
         // 4. Ensinamos o mock
-        when(youtubeService.searchVideos(query)).thenReturn(mockResult);
+        when(youtubeService.searchVideosAsync(query)).thenReturn(CompletableFuture.completedFuture(mockResult));
 
         // --- ACT & ASSERT (Ação e Verificação) ---
-        mockMvc.perform(
+        MvcResult pending = mockMvc.perform(
                 get("/api/resolve-video") // 5. Chamamos o endpoint correto
                     .param("query", query)
                     .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // A busca é assíncrona: o resultado chega no segundo despacho
+        mockMvc.perform(asyncDispatch(pending))
                 
                 // 6. Verificações
                 .andExpect(status().isOk()) // Espera 200 OK
@@ -81,13 +90,18 @@ class YouTubeControllerTest {
         List<YouTubeVideoDTO> emptyList = Collections.emptyList();
 
         // 4. Ensinamos o mock a retornar a lista vazia
-        when(youtubeService.searchVideos(query)).thenReturn(emptyList);
+        when(youtubeService.searchVideosAsync(query)).thenReturn(CompletableFuture.completedFuture(emptyList));
 
         // --- ACT & ASSERT (Ação e Verificação) ---
-        mockMvc.perform(
+        MvcResult pending = mockMvc.perform(
                 get("/api/resolve-video")
                     .param("query", query)
                     .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // A busca é assíncrona: o resultado chega no segundo despacho
+        mockMvc.perform(asyncDispatch(pending))
                 
                 // 6. Verificamos se o status é 404 Not Found
                 .andExpect(status().isNotFound());
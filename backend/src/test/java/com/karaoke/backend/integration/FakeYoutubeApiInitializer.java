@@ -0,0 +1,29 @@
+package com.karaoke.backend.integration;
+
+import java.util.Map;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.Profiles;
+
+/**
+ * Registrado em META-INF/spring.factories (só no classpath de teste): todo contexto Spring do
+ * perfil test recebe fake-youtube.base-url apontando para o FakeYoutubeApiServer compartilhado,
+ * e o application-test.properties usa esse valor em youtube.api.base-url. Assim nenhum teste
+ * chama o Google, e quem busca vídeos recebe os do corpus de fixture.
+ */
+public class FakeYoutubeApiInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public static final String BASE_URL_PROPERTY = "fake-youtube.base-url";
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        ConfigurableEnvironment environment = context.getEnvironment();
+        if (!environment.acceptsProfiles(Profiles.of("test"))) return;
+
+        environment.getPropertySources().addLast(new MapPropertySource("fakeYoutubeApi",
+                Map.of(BASE_URL_PROPERTY, FakeYoutubeApiServer.shared().baseUrl())));
+    }
+}
@@ -0,0 +1,354 @@
+package com.karaoke.backend.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Servidor local que imita a YouTube Data API v3 (search.list e videos.list) para testar e
+ * medir o pipeline de busca sem internet.
+ *
+ * Os vídeos vêm de um arquivo de fixture (padrão: youtube/corpus.json no classpath). A busca
+ * devolve os vídeos com mais termos em comum com q, no formato real da API (com os campos que
+ * o YoutubeService ignora). Latência, taxa de erros 5xx, taxa de quotaExceeded e cota diária
+ * são configuráveis e podem mudar com o servidor no ar. Uso:
+ *
+ * <pre>
+ * FakeYoutubeApiServer api = FakeYoutubeApiServer.start()
+ *         .latency(FakeYoutubeApiServer.Latency.logNormal(80, 0.5))
+ *         .errorRate(0.02);
+ * ... youtube.api.base-url = api.baseUrl()
+ * api.close();
+ * </pre>
+ */
+public class FakeYoutubeApiServer implements AutoCloseable {
+
+    public static final String DEFAULT_CORPUS = "youtube/corpus.json";
+
+    private static final int SEARCH_COST = 100;
+    private static final int VIDEOS_COST = 1;
+    private static final Set<String> IGNORED = Set.of("karaoke", "de", "da", "do", "e", "a", "o", "the");
+
+    /** Atraso de cada resposta, em milissegundos. */
+    @FunctionalInterface
+    public interface Latency {
+        long nextMillis(RandomGenerator random);
+
+        static Latency none() {
+            return random -> 0;
+        }
+
+        static Latency fixed(long millis) {
+            return random -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + random.nextLong(maxMillis - minMillis + 1);
+        }
+
+        /** Cauda longa, como a API real: mediana medianMillis, dispersão sigma (0.5 ≈ p99 de 3x a mediana). */
+        static Latency logNormal(double medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    public record FixtureVideo(String videoId, String title, String channelTitle, boolean embeddable,
+                               List<String> blockedRegions, String duration) {}
+
+    private record Corpus(List<FixtureVideo> videos) {}
+
+    private static FakeYoutubeApiServer shared;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, FixtureVideo> videos = new LinkedHashMap<>();
+    private final Map<FixtureVideo, List<String>> terms = new HashMap<>();
+
+    private volatile Latency latency = Latency.none();
+    private volatile double errorRate;
+    private volatile double quotaErrorRate;
+    private volatile long dailyQuota = Long.MAX_VALUE;
+
+    private final AtomicLong quotaSpent = new AtomicLong();
+    private final AtomicInteger searchCalls = new AtomicInteger();
+    private final AtomicInteger videosCalls = new AtomicInteger();
+    private final AtomicInteger videoIdsRequested = new AtomicInteger();
+
+    private FakeYoutubeApiServer(List<FixtureVideo> corpus) throws IOException {
+        for (FixtureVideo video : corpus) {
+            videos.put(video.videoId(), video);
+            terms.put(video, tokenize(video.title() + " " + video.channelTitle()));
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/youtube/v3/search", exchange -> handle(exchange, SEARCH_COST, this::search));
+        server.createContext("/youtube/v3/videos", exchange -> handle(exchange, VIDEOS_COST, this::videos));
+        server.start();
+    }
+
+    public static FakeYoutubeApiServer start() {
+        return start(DEFAULT_CORPUS);
+    }
+
+    /**
+     * Instância única da JVM, com o corpus padrão e sem latência nem erros: é a API que os
+     * contextos Spring do perfil test usam (ver FakeYoutubeApiInitializer). Fica no ar até a
+     * JVM dos testes terminar; testes que mexem em latência ou erros sobem a sua com start().
+     */
+    public static synchronized FakeYoutubeApiServer shared() {
+        if (shared == null) shared = start();
+        return shared;
+    }
+
+    /** Sobe o servidor em uma porta livre de 127.0.0.1 com o corpus do recurso de classpath indicado. */
+    public static FakeYoutubeApiServer start(String corpusResource) {
+        try (InputStream in = FakeYoutubeApiServer.class.getClassLoader().getResourceAsStream(corpusResource)) {
+            if (in == null) throw new IllegalArgumentException("Fixture não encontrada: " + corpusResource);
+            return new FakeYoutubeApiServer(new ObjectMapper().readValue(in, Corpus.class).videos());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Valor para youtube.api.base-url. */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/youtube/v3/";
+    }
+
+    public FakeYoutubeApiServer latency(Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /** Fração das chamadas que respondem 503 backendError. */
+    public FakeYoutubeApiServer errorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    /** Fração das chamadas que respondem 403 quotaExceeded mesmo com cota sobrando. */
+    public FakeYoutubeApiServer quotaErrorRate(double rate) {
+        this.quotaErrorRate = rate;
+        return this;
+    }
+
+    /** Unidades por dia (search = 100, videos = 1); passando disso, toda chamada recebe 403 quotaExceeded. */
+    public FakeYoutubeApiServer dailyQuota(long units) {
+        this.dailyQuota = units;
+        return this;
+    }
+
+    public List<FixtureVideo> corpus() {
+        return List.copyOf(videos.values());
+    }
+
+    public int searchCalls() {
+        return searchCalls.get();
+    }
+
+    public int videosCalls() {
+        return videosCalls.get();
+    }
+
+    public int videoIdsRequested() {
+        return videoIdsRequested.get();
+    }
+
+    public long quotaSpent() {
+        return quotaSpent.get();
+    }
+
+    public void resetCounters() {
+        searchCalls.set(0);
+        videosCalls.set(0);
+        videoIdsRequested.set(0);
+        quotaSpent.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface Endpoint {
+        Object respond(Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, int cost, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+            (cost == SEARCH_COST ? searchCalls : videosCalls).incrementAndGet();
+
+            long delay = latency.nextMillis(ThreadLocalRandom.current());
+            if (delay > 0) Thread.sleep(delay);
+
+            if (params.get("key") == null || params.get("key").isBlank()) {
+                error(exchange, 400, "keyInvalid", "API key not valid.");
+                return;
+            }
+            RandomGenerator random = ThreadLocalRandom.current();
+            if (random.nextDouble() < errorRate) {
+                error(exchange, 503, "backendError", "Backend Error");
+                return;
+            }
+            if (random.nextDouble() < quotaErrorRate || quotaSpent.addAndGet(cost) > dailyQuota) {
+                error(exchange, 403, "quotaExceeded", "The request cannot be completed because you have exceeded your quota.");
+                return;
+            }
+            write(exchange, 200, objectMapper.writeValueAsBytes(endpoint.respond(params)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Object search(Map<String, String> params) {
+        List<String> queryTerms = tokenize(params.getOrDefault("q", "")).stream()
+                .filter(term -> !IGNORED.contains(term))
+                .toList();
+        int maxResults = Integer.parseInt(params.getOrDefault("maxResults", "5"));
+
+        // Mais termos em comum primeiro. videoEmbeddable não filtra aqui: na API real o filtro
+        // também deixa passar vídeos que depois não tocam embutidos
+        List<FixtureVideo> matches = videos.values().stream()
+                .filter(video -> score(video, queryTerms) > 0)
+                .sorted(Comparator.comparingInt((FixtureVideo video) -> -score(video, queryTerms)))
+                .limit(maxResults)
+                .toList();
+
+        List<Object> items = new ArrayList<>();
+        for (FixtureVideo video : matches) {
+            String id = video.videoId();
+            items.add(Map.of(
+                    "kind", "youtube#searchResult",
+                    "etag", "etag-" + id,
+                    "id", Map.of("kind", "youtube#video", "videoId", id),
+                    "snippet", Map.of(
+                            "publishedAt", "2019-05-14T17:00:09Z",
+                            "channelId", "UC" + Integer.toHexString(video.channelTitle().hashCode()),
+                            "title", video.title(),
+                            "description", "Versão karaokê de " + video.title(),
+                            "thumbnails", Map.of(
+                                    "default", thumbnail(id, "default", 120, 90),
+                                    "medium", thumbnail(id, "mqdefault", 320, 180),
+                                    "high", thumbnail(id, "hqdefault", 480, 360)),
+                            "channelTitle", video.channelTitle(),
+                            "liveBroadcastContent", "none")));
+        }
+        return Map.of(
+                "kind", "youtube#searchListResponse",
+                "etag", "etag-search",
+                "regionCode", params.getOrDefault("regionCode", "BR"),
+                "pageInfo", Map.of("totalResults", matches.size(), "resultsPerPage", maxResults),
+                "items", items);
+    }
+
+    private Object videos(Map<String, String> params) {
+        List<String> ids = Arrays.stream(params.getOrDefault("id", "").split(","))
+                .filter(id -> !id.isBlank())
+                .toList();
+        videoIdsRequested.addAndGet(ids.size());
+
+        // IDs desconhecidos simplesmente não aparecem, como vídeos removidos na API real
+        List<Object> items = new ArrayList<>();
+        for (String id : ids) {
+            FixtureVideo video = videos.get(id);
+            if (video == null) continue;
+            Map<String, Object> contentDetails = new LinkedHashMap<>();
+            contentDetails.put("duration", video.duration());
+            contentDetails.put("dimension", "2d");
+            contentDetails.put("definition", "hd");
+            contentDetails.put("licensedContent", true);
+            if (video.blockedRegions() != null && !video.blockedRegions().isEmpty()) {
+                contentDetails.put("regionRestriction", Map.of("blocked", video.blockedRegions()));
+            }
+            items.add(Map.of(
+                    "kind", "youtube#video",
+                    "etag", "etag-" + id,
+                    "id", id,
+                    "contentDetails", contentDetails,
+                    "status", Map.of(
+                            "uploadStatus", "processed",
+                            "privacyStatus", "public",
+                            "license", "youtube",
+                            "embeddable", video.embeddable(),
+                            "publicStatsViewable", true)));
+        }
+        return Map.of("kind", "youtube#videoListResponse", "etag", "etag-videos", "items", items);
+    }
+
+    private int score(FixtureVideo video, List<String> queryTerms) {
+        List<String> videoTerms = terms.get(video);
+        int score = 0;
+        for (String term : queryTerms) {
+            if (videoTerms.contains(term)) score++;
+        }
+        return score;
+    }
+
+    private static Map<String, Object> thumbnail(String id, String name, int width, int height) {
+        return Map.of("url", "https://i.ytimg.com/vi/" + id + "/" + name + ".jpg", "width", width, "height", height);
+    }
+
+    private void error(HttpExchange exchange, int status, String reason, String message) throws IOException {
+        Map<String, Object> body = Map.of("error", Map.of(
+                "code", status,
+                "message", message,
+                "errors", List.of(Map.of("message", message, "domain", "youtube.quota", "reason", reason))));
+        write(exchange, status, objectMapper.writeValueAsBytes(body));
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> params(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static List<String> tokenize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(folded.split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+}
@@ -1,8 +1,11 @@
 package com.karaoke.backend.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.startsWith;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +16,15 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +38,11 @@ import com.karaoke.backend.repositories.KaraokeSessionRepository;
 import com.karaoke.backend.repositories.QueueItemRepository;
 import com.karaoke.backend.repositories.SongRepository;
 import com.karaoke.backend.repositories.UserRepository;
+import com.karaoke.backend.services.KaraokeService;
+import com.karaoke.backend.services.SessionEngine;
+import com.karaoke.backend.services.SessionView;
+
+import java.util.List;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 @AutoConfigureMockMvc
@@ -52,6 +63,10 @@ class KaraokeControllerIntegrationTest {
     private SongRepository songRepository;
     @Autowired
     private QueueItemRepository queueItemRepository;
+    @Autowired
+    private KaraokeService karaokeService;
+    @Autowired
+    private SessionEngine sessionEngine;
 
     private final String BASE_URL = "/api/sessions";
     private KaraokeSession testSession;
@@ -157,8 +172,9 @@ class KaraokeControllerIntegrationTest {
     void addSongToQueue_ShouldAddSongAndReturnOk() throws Exception {
         String accessCode = testSession.getAccessCode();
 
-        final String TITLE = "Música de Teste";
-        final String VIDEO_ID = "youtube-test-id";
+        // Vídeo do corpus do FakeYoutubeApiServer (a API que o perfil test usa)
+        final String TITLE = "Evidências - Chitãozinho & Xororó (Karaokê)";
+        final String VIDEO_ID = "fk000000001";
         final String THUMBNAIL = "http://fake.com/thumb.jpg";
 
         long userCountBefore = userRepository.count();
@@ -173,10 +189,13 @@ class KaraokeControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(requestDTO)))
                 .andExpect(status().isCreated()); // A requisição deve retornar 201 Created
 
-        KaraokeSession updatedSession = sessionRepository.findByAccessCode(accessCode).orElseThrow();
-        assertThat(updatedSession.getSongQueue()).hasSize(1);
+        // O item é gravado contra a referência da sessão (a songQueue não é carregada nem alterada)
+        List<QueueItem> savedItems = queueItemRepository.findAll().stream()
+                .filter(item -> item.getSession().getId().equals(testSession.getId()))
+                .toList();
+        assertThat(savedItems).hasSize(1);
 
-        QueueItem savedItem = updatedSession.getSongQueue().get(0);
+        QueueItem savedItem = savedItems.get(0);
         Song savedSong = savedItem.getSong();
         
         assertThat(savedSong).isNotNull();
@@ -303,4 +322,47 @@ class KaraokeControllerIntegrationTest {
         assertThat(queueItemRepository.count()).isEqualTo(queueCountBefore - 1);
         assertThat(sessionRepository.findByAccessCode(accessCode)).isPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    void searchVideos_ShouldComeFromTheFakeYoutubeApiCorpus() throws Exception {
+        // O perfil test aponta youtube.api.base-url para o FakeYoutubeApiServer: resultados determinísticos
+        MvcResult pending = mockMvc.perform(get("/api/videos/search").param("query", "Evidências")
+                .with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user(testUser)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].videoId", containsInAnyOrder(
+                        "fk000000001", "fk000000002", "fk000000075", "fk000000076")))
+                .andExpect(jsonPath("$[*].title", everyItem(startsWith("Evidências"))));
+    }
+
+    // Sem @Transactional: join e leave precisam do commit para chegar ao motor
+    @Test
+    void leaveSession_ShouldPersistMembership_SoReloadedSessionMatchesEngine() {
+        String accessCode = testSession.getAccessCode();
+        try {
+            karaokeService.joinSession(accessCode, testUser);
+            assertThat(userRepository.findById(testUser.getId()).orElseThrow().getSession()).isNotNull();
+
+            karaokeService.leaveSession(accessCode, testUser);
+            SessionView inMemory = sessionEngine.view(accessCode);
+
+            // Hidrata de novo a partir do banco: quem saiu não pode voltar
+            sessionEngine.evict(accessCode);
+            SessionView reloaded = sessionEngine.view(accessCode);
+
+            assertThat(userRepository.findById(testUser.getId()).orElseThrow().getSession()).isNull();
+            assertThat(inMemory.hasUser(testUser.getId())).isFalse();
+            assertThat(reloaded.connectedUsers()).isEqualTo(inMemory.connectedUsers());
+            assertThat(reloaded.rotation()).isEqualTo(inMemory.rotation());
+        } finally {
+            // Os dados confirmados aqui não podem vazar para os testes transacionais seguintes
+            userRepository.deleteAll();
+            sessionRepository.deleteAll();
+            sessionEngine.evict(accessCode);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
-import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
 import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
@@ -24,11 +24,22 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.FilaUpdateDTO;
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import com.karaoke.backend.services.FilaService;
+import com.karaoke.backend.services.KaraokeService;
+import com.karaoke.backend.services.SessionEngine;
 
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -42,6 +53,7 @@ import org.springframework.security.web.SecurityFilterChain;
     webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
     properties = {"spring.main.allow-bean-definition-overriding=true"}
 )
+@ActiveProfiles("test")
 @Import(WebSocketIntegrationTest.TestSecurityConfig.class)
 public class WebSocketIntegrationTest {
 
@@ -62,15 +74,25 @@ public class WebSocketIntegrationTest {
     }
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private KaraokeService karaokeService;
+
+    @Autowired
+    private FilaService filaService;
+
+    @Autowired
+    private KaraokeSessionRepository sessionRepository;
+
+    @Autowired
+    private SessionEngine sessionEngine;
 
     @LocalServerPort
     private int port;
     
     private String URL;
-    private BlockingQueue<String> messages;
+    private BlockingQueue<StompFrame> messages;
 
-    private static final String TOPIC_DESTINATION = "/topic/queue-update"; 
+    // Quadro recebido no tópico: o cabeçalho de content-type e o JSON como chegou
+    private record StompFrame(StompHeaders headers, byte[] payload) {}
 
     @BeforeEach
     public void setup() {
@@ -88,7 +110,12 @@ public class WebSocketIntegrationTest {
         WebSocketClient transport = new SockJsClient(transports);
 
         WebSocketStompClient stompClient = new WebSocketStompClient(transport);
-        stompClient.setMessageConverter(new StringMessageConverter());
+        // Recebe o JSON cru, como o servidor envia (content-type application/json)
+        stompClient.setMessageConverter(new ByteArrayMessageConverter() {
+            {
+                addSupportedMimeTypes(MimeTypeUtils.APPLICATION_JSON);
+            }
+        });
 
         StompSession session = null;
         try {
@@ -98,26 +125,44 @@ public class WebSocketIntegrationTest {
             return;
         }
 
-        session.subscribe(TOPIC_DESTINATION, new StompFrameHandler() {
-            @Override
-            public Type getPayloadType(StompHeaders headers) {
-                return String.class;
-            }
-            @Override
-            public void handleFrame(StompHeaders headers, Object payload) {
-                messages.add((String) payload);
+        String accessCode = karaokeService.createSession().getAccessCode();
+        String topicDestination = "/topic/fila/" + accessCode;
+        try {
+            session.subscribe(topicDestination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    messages.add(new StompFrame(headers, (byte[]) payload));
+                }
+            });
+
+            Thread.sleep(200);
+
+            // A publicação é assíncrona (janela de agrupamento + executor de broadcast)
+            filaService.notificarAtualizacaoFila(accessCode);
+
+            StompFrame received = messages.poll(5, TimeUnit.SECONDS);
+
+            assertNotNull(received, "Nenhuma mensagem Web Socket recebida no tópico " + topicDestination);
+            assertTrue(MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(received.headers().getContentType()));
+
+            // O JSON chega como foi serializado no servidor (sem base64 nem aspas extras)
+            FilaUpdateDTO update = new ObjectMapper().readValue(received.payload(), FilaUpdateDTO.class);
+            assertEquals(0L, update.seq()); // Primeira publicação: retrato completo
+            assertEquals("WAITING", update.sessionStatus());
+            assertTrue(update.songQueue().isEmpty());
+            assertNull(update.nowPlaying());
+        } finally {
+            if (session.isConnected()) {
+                session.disconnect();
             }
-        });
-        
-        Thread.sleep(200); 
-
-        messagingTemplate.convertAndSend(TOPIC_DESTINATION, "{\"status\": \"fila atualizada\", \"session\": \"123\"}");
-
-        String receivedMessage = messages.poll(5, TimeUnit.SECONDS);
-
-        assertNotNull(receivedMessage, "Nenhuma mensagem Web Socket recebida no tópico " + TOPIC_DESTINATION);
-        
-        session.disconnect();
+            filaService.encerrarTransmissao(accessCode);
+            sessionEngine.evict(accessCode);
+            sessionRepository.findByAccessCode(accessCode).ifPresent(sessionRepository::delete);
+        }
     }
 }
 
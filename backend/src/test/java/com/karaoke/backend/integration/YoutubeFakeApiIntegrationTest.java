@@ -0,0 +1,143 @@
+package com.karaoke.backend.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.repositories.SongRepository;
+import com.karaoke.backend.repositories.VideoValidationRepository;
+import com.karaoke.backend.services.SongCatalogIndex;
+import com.karaoke.backend.services.VideoValidationCache;
+import com.karaoke.backend.services.YoutubeApiClient;
+import com.karaoke.backend.services.YoutubeCircuitBreaker;
+import com.karaoke.backend.services.YoutubeQuotaGovernor;
+import com.karaoke.backend.services.YoutubeService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * YoutubeService de verdade (cliente HTTP, decodificação, lotes de validação, disjuntor e
+ * cota) contra o FakeYoutubeApiServer, sem internet.
+ */
+class YoutubeFakeApiIntegrationTest {
+
+    private FakeYoutubeApiServer api;
+    private YoutubeApiClient apiClient;
+    private YoutubeService youtubeService;
+    private YoutubeCircuitBreaker circuitBreaker;
+    private Map<String, FakeYoutubeApiServer.FixtureVideo> corpus;
+
+    @BeforeEach
+    void setUp() {
+        api = FakeYoutubeApiServer.start();
+        corpus = api.corpus().stream().collect(Collectors.toMap(FakeYoutubeApiServer.FixtureVideo::videoId, Function.identity()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        apiClient = new YoutubeApiClient(new ObjectMapper(), 500, 1_000);
+        circuitBreaker = new YoutubeCircuitBreaker(meterRegistry, 3, 60_000);
+        youtubeService = new YoutubeService(apiClient,
+                new VideoValidationCache(mock(VideoValidationRepository.class), 7, 1000),
+                new SongCatalogIndex(mock(SongRepository.class)),
+                new YoutubeQuotaGovernor(meterRegistry, 10_000, 0, 10_000, 6_000, 100),
+                circuitBreaker, meterRegistry, 60, 4320, 1, 16, 3, 20);
+        ReflectionTestUtils.setField(youtubeService, "apiKey", "FAKE_KEY");
+        ReflectionTestUtils.setField(youtubeService, "apiBaseUrl", api.baseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        youtubeService.shutdown();
+        apiClient.shutdown();
+        api.close();
+    }
+
+    @Test
+    void searchVideos_shouldReturnOnlyPlayableVideos_fromTheFixtureCorpus() {
+        List<YouTubeVideoDTO> result = youtubeService.searchVideos("Evidências+karaoke");
+
+        assertFalse(result.isEmpty());
+        for (YouTubeVideoDTO video : result) {
+            FakeYoutubeApiServer.FixtureVideo fixture = corpus.get(video.getVideoId());
+            assertTrue(fixture.title().startsWith("Evidências"), fixture.title());
+            assertTrue(fixture.embeddable());
+            assertFalse(fixture.blockedRegions().contains("BR"));
+            assertEquals(fixture.title(), video.getTitle());
+            assertTrue(video.getThumbnail().endsWith("/default.jpg"));
+        }
+        assertEquals(1, api.searchCalls());
+        assertEquals(1, api.videosCalls());
+        assertEquals(101, api.quotaSpent());
+    }
+
+    @Test
+    void searchVideos_shouldEncodeAccentsAndSpacesInTheQuery() {
+        List<YouTubeVideoDTO> result = youtubeService.searchVideos("Como é grande o meu amor por você");
+
+        assertFalse(result.isEmpty());
+        assertTrue(result.get(0).getTitle().startsWith("Como É Grande"));
+    }
+
+    @Test
+    void searchVideos_shouldBatchValidationOfConcurrentSearches() throws Exception {
+        api.latency(FakeYoutubeApiServer.Latency.fixed(50));
+        List<String> queries = List.of("queen", "legiao urbana", "djavan", "roberto carlos", "leandro leonardo");
+
+        List<CompletableFuture<List<YouTubeVideoDTO>>> searches = queries.stream()
+                .map(youtubeService::searchVideosAsync)
+                .toList();
+        for (CompletableFuture<List<YouTubeVideoDTO>> search : searches) {
+            assertFalse(search.get(10, TimeUnit.SECONDS).isEmpty());
+        }
+
+        assertEquals(5, api.searchCalls());
+        assertTrue(api.videosCalls() < api.searchCalls(),
+                "Esperava menos chamadas videos.list que buscas, foram " + api.videosCalls());
+    }
+
+    @Test
+    void searchVideos_shouldOpenCircuit_whenApiIsSlowerThanTheTimeout() {
+        api.latency(FakeYoutubeApiServer.Latency.fixed(1_500));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(youtubeService.searchVideos("queen " + i).isEmpty());
+        }
+        assertTrue(circuitBreaker.isOpen());
+        int calls = api.searchCalls();
+
+        assertTrue(youtubeService.searchVideos("queen 4").isEmpty());
+        assertEquals(calls, api.searchCalls(), "Com o circuito aberto a busca não deve chegar à API");
+    }
+
+    @Test
+    void searchVideos_shouldNotCacheServerErrors() {
+        api.errorRate(1.0);
+        assertTrue(youtubeService.searchVideos("djavan").isEmpty());
+
+        api.errorRate(0);
+        assertFalse(youtubeService.searchVideos("djavan").isEmpty());
+        assertEquals(2, api.searchCalls());
+    }
+
+    @Test
+    void searchVideos_shouldReportQuotaExceeded_whenApiRunsOutOfQuota() {
+        api.dailyQuota(150);
+        assertFalse(youtubeService.searchVideos("queen").isEmpty());
+
+        assertThrows(YoutubeQuotaExceededException.class, () -> youtubeService.searchVideos("abba"));
+        // Depois do quotaExceeded da API o serviço para de chamá-la
+        assertThrows(YoutubeQuotaExceededException.class, () -> youtubeService.searchVideos("adele"));
+        assertEquals(2, api.searchCalls());
+    }
+}
@@ -1,16 +1,23 @@
 package com.karaoke.backend.repositories;
 
 import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.User;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class KaraokeSessionRepositoryTest {
 
     @Autowired
@@ -39,6 +46,20 @@ class KaraokeSessionRepositoryTest {
         assertThat(foundSessionOpt).isNotPresent();
     }
 
+    @Test
+    void findByAccessCode_ShouldNotLoadTheQueue_WhileHydrationQueryDoes() {
+        KaraokeSession session = new KaraokeSession();
+        entityManager.persistAndFlush(session);
+        entityManager.clear();
+
+        KaraokeSession plain = repository.findByAccessCode(session.getAccessCode()).orElseThrow();
+        assertThat(Hibernate.isInitialized(plain.getSongQueue())).isFalse();
+        entityManager.clear();
+
+        KaraokeSession hydrated = repository.findForHydrationByAccessCode(session.getAccessCode()).orElseThrow();
+        assertThat(Hibernate.isInitialized(hydrated.getSongQueue())).isTrue();
+    }
+
     @Test
     void save_ShouldPersistSessionAndGenerateId() {
 
@@ -55,4 +76,93 @@ class KaraokeSessionRepositoryTest {
         assertThat(foundById).isPresent();
         assertThat(foundById.get().getAccessCode()).isEqualTo(code);
     }
+
+    @Test
+    void rotation_ShouldComeOrderedByPosition_FromTheDatabase() {
+        KaraokeSession session = sessionWithRotation(5);
+        List<String> expected = session.getRotationUserIds();
+        entityManager.clear();
+
+        KaraokeSession loaded = repository.fetchRotation(session.getId()).orElseThrow();
+
+        assertThat(loaded.getRotationUserIds()).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void setRotationUserIds_ShouldInsertOneRow_WhenUserJoins() {
+        KaraokeSession session = sessionWithRotation(20);
+        User newcomer = persistUser("novato");
+        List<String> rotation = new ArrayList<>(session.getRotationUserIds());
+        rotation.add(newcomer.getId().toString());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        KaraokeSession loaded = repository.fetchRotation(session.getId()).orElseThrow();
+        loaded.setRotationUserIds(rotation);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        entityManager.clear();
+        assertThat(repository.fetchRotation(session.getId()).orElseThrow().getRotationUserIds()).isEqualTo(rotation);
+    }
+
+    @Test
+    void setRotationUserIds_ShouldDeleteOneRow_WhenUserLeaves() {
+        KaraokeSession session = sessionWithRotation(20);
+        List<String> rotation = new ArrayList<>(session.getRotationUserIds());
+        rotation.remove(7);
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        KaraokeSession loaded = repository.fetchRotation(session.getId()).orElseThrow();
+        loaded.setRotationUserIds(rotation);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        entityManager.clear();
+        assertThat(repository.fetchRotation(session.getId()).orElseThrow().getRotationUserIds()).isEqualTo(rotation);
+    }
+
+    @Test
+    void setRotationUserIds_ShouldKeepRequestedOrder_WhenUsersAreReordered() {
+        KaraokeSession session = sessionWithRotation(4);
+        List<String> rotation = new ArrayList<>(session.getRotationUserIds());
+        Collections.reverse(rotation);
+        rotation.add("");
+
+        session.setRotationUserIds(rotation);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(repository.fetchRotation(session.getId()).orElseThrow().getRotationUserIds()).isEqualTo(rotation);
+    }
+
+    private KaraokeSession sessionWithRotation(int userCount) {
+        KaraokeSession session = new KaraokeSession();
+        entityManager.persist(session);
+        for (int i = 0; i < userCount; i++) {
+            session.addToRotation(persistUser(session.getAccessCode() + i).getId().toString());
+        }
+        entityManager.flush();
+        return session;
+    }
+
+    private User persistUser(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@karaq.dev");
+        return entityManager.persist(user);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
 }
@@ -2,9 +2,13 @@ package com.karaoke.backend.repositories;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import com.karaoke.backend.models.KaraokeSession;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +19,7 @@ import com.karaoke.backend.models.QueueItem;
 import com.karaoke.backend.models.Song;
 import com.karaoke.backend.models.User;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class QueueItemRepositoryTest {
 
     @Autowired
@@ -114,4 +118,26 @@ class QueueItemRepositoryTest {
         Optional<QueueItem> foundItem = repository.findById(itemIdToDelete);
         assertThat(foundItem).isNotPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveAll_ShouldInsertInJdbcBatches() {
+        User user = createTestUser("Batch User");
+        Song song = createTestSong("Batch Song");
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<QueueItem> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new QueueItem(testSession, user, song));
+        }
+        repository.saveAll(items);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(100);
+        // IDs da sequência em blocos de 50 e INSERTs em lotes de 50, em vez de 100 idas ao banco
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(items).allMatch(item -> item.getQueueItemId() != null);
+    }
+}
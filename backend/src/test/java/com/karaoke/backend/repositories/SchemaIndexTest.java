@@ -0,0 +1,71 @@
+package com.karaoke.backend.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Esquema criado pelas migrações do Flyway (H2 em modo PostgreSQL): o plano (EXPLAIN) das
+ * buscas frequentes tem que usar índice, e não varrer a tabela.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:explain;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByYoutubeVideoId_ShouldUseIndex() {
+        assertThat(explain("select * from song where youtube_video_id = 'dQw4w9WgXcQ'"))
+                .contains("UK_SONG_YOUTUBE_VIDEO_ID");
+    }
+
+    @Test
+    void findByUsername_ShouldUseIndex() {
+        assertThat(explain("select * from tb_user where username = 'cantor'"))
+                .contains("IDX_TB_USER_USERNAME");
+    }
+
+    @Test
+    void findByEmail_ShouldUseUniqueIndex() {
+        assertThat(explain("select * from tb_user where email = 'cantor@karaq.dev'"))
+                .doesNotContain("tableScan");
+    }
+
+    // O H2 indexa sozinho toda chave estrangeira (o Postgres não), então aqui o plano pode escolher
+    // o índice da FK; o que importa é não varrer a tabela
+    @Test
+    void connectedUsers_ShouldUseSessionIndex() {
+        assertThat(explain("select * from tb_user where session_id = 1"))
+                .doesNotContain("tableScan");
+    }
+
+    // Pelo mesmo motivo o planner do H2 fica com o índice da FK, e não com o composto. No Postgres o
+    // composto é o único índice com session_id na frente e entrega a fila já na ordem do @OrderBy
+    // (timestamp_added, queue_item_id); aqui se confere o plano real e a definição do composto.
+    @Test
+    void songQueue_ShouldUseSessionIndex_AndCompositeIndexShouldFollowOrderBy() {
+        assertThat(explain("select * from queue_item where session_id = 1 order by timestamp_added, queue_item_id"))
+                .doesNotContain("tableScan")
+                .contains("SESSION_ID = ");
+        assertThat(jdbcTemplate.queryForList("select column_name from information_schema.index_columns "
+                + "where index_name = 'IDX_QUEUE_ITEM_SESSION_ORDER' order by ordinal_position", String.class))
+                .containsExactly("SESSION_ID", "TIMESTAMP_ADDED", "QUEUE_ITEM_ID");
+    }
+
+    @Test
+    void inactiveSessions_ShouldUseLastActivityIndex() {
+        assertThat(explain("select access_code from karaoke_session "
+                + "where last_activity_at < timestamp '2026-01-01 00:00:00' order by last_activity_at"))
+                .contains("IDX_KARAOKE_SESSION_LAST_ACTIVITY");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
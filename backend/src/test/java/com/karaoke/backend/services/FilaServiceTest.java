@@ -1,23 +1,42 @@
 package com.karaoke.backend.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.FilaChangeDTO;
+import com.karaoke.backend.dtos.FilaDeltaDTO;
 import com.karaoke.backend.dtos.FilaUpdateDTO;
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.dtos.UserDTO;
+import com.karaoke.backend.exception.SessionNotFoundException;
 import com.karaoke.backend.models.KaraokeSession;
 import com.karaoke.backend.models.QueueItem;
 import com.karaoke.backend.models.Song;
 import com.karaoke.backend.models.User;
 import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,14 +49,20 @@ class FilaServiceTest {
     @Mock
     private KaraokeSessionRepository sessionRepository;
 
-    @InjectMocks
     private FilaService filaService;
+    private SessionEngine sessionEngine;
+    private PayloadCache payloadCache;
 
     private final String ACCESS_CODE = "TESTE123";
     private KaraokeSession mockSession;
 
     @BeforeEach
     void setUp() {
+        // Motor real (sem transações), hidratando a sessão pelo repositório mockado
+        sessionEngine = new SessionEngine(sessionRepository, null, null, 1);
+        payloadCache = new PayloadCache(new ObjectMapper());
+        filaService = new FilaService(template, sessionEngine, payloadCache, new SimpleMeterRegistry(), 0, 0, 0);
+
         // Inicializa uma sessão base
         mockSession = new KaraokeSession();
         mockSession.setAccessCode(ACCESS_CODE);
@@ -73,29 +98,23 @@ class FilaServiceTest {
         mockSession.setSongQueue(new ArrayList<>(List.of(item1, item2)));
 
         // Mock: Retorna a sessão com a fila preenchida
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
 
         // Act
         filaService.notificarAtualizacaoFila(ACCESS_CODE);
 
         // Assert
         // 1. Verifique se a sessão foi buscada corretamente
-        verify(sessionRepository, times(1)).findByAccessCode(ACCESS_CODE);
+        verify(sessionRepository, times(1)).findForHydrationByAccessCode(ACCESS_CODE);
 
         // 2. Capture o argumento enviado para convertAndSend
         String expectedDestination = "/topic/fila/" + ACCESS_CODE;
 
-        // Use ArgumentCaptor ou simplesmente verifique se o método foi chamado
-        verify(template, times(1)).convertAndSend(eq(expectedDestination), any(FilaUpdateDTO.class));
-
-        // Para um teste mais robusto, podemos verificar o conteúdo do DTO (opcional, mas recomendado)
-        // Isso requer capturar o argumento (exemplo abaixo):
-        // ArgumentCaptor<FilaUpdateDTO> captor = ArgumentCaptor.forClass(FilaUpdateDTO.class);
-        // verify(template).convertAndSend(eq(expectedDestination), captor.capture());
-        // FilaUpdateDTO sentDTO = captor.getValue();
-        // assertNotNull(sentDTO.getNowPlaying());
-        // assertEquals("Musica A", sentDTO.getNowPlaying().getSongTitle());
-        // assertEquals(2, sentDTO.getQueue().size());
+        // O retrato vai já serializado em JSON, com o content-type no cabeçalho
+        FilaUpdateDTO sentDTO = ler(capturarEnvio(expectedDestination, 1), FilaUpdateDTO.class);
+        assertNotNull(sentDTO.nowPlaying());
+        assertEquals("Musica A", sentDTO.nowPlaying().songTitle());
+        assertEquals(2, sentDTO.songQueue().size());
     }
 
     @Test
@@ -104,35 +123,404 @@ class FilaServiceTest {
         mockSession.setSongQueue(Collections.emptyList());
 
         // Mock: Retorna a sessão com a fila vazia
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
 
         // Act
         filaService.notificarAtualizacaoFila(ACCESS_CODE);
 
         // Assert
-        // Verifique se o método de envio foi chamado
+        // Verifique se o método de envio foi chamado, com o NowPlaying nulo
         String expectedDestination = "/topic/fila/" + ACCESS_CODE;
-        verify(template, times(1)).convertAndSend(eq(expectedDestination), any(FilaUpdateDTO.class));
-
-        // Verificação do NowPlaying nulo (Usando ArgumentCaptor para verificar o conteúdo)
-        // Note: Se você não quiser adicionar ArgumentCaptor, este teste já garante que a chamada
-        // ocorreu com um objeto FilaUpdateDTO.
+        FilaUpdateDTO sentDTO = ler(capturarEnvio(expectedDestination, 1), FilaUpdateDTO.class);
+        assertNull(sentDTO.nowPlaying());
+        assertTrue(sentDTO.songQueue().isEmpty());
     }
 
     @Test
     void notificarAtualizacaoFila_DeveLancarRuntimeException_QuandoSessaoNaoEncontrada() {
         // Arrange
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.empty());
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.empty());
 
         // Act & Assert
-        // Verifica se a exceção é lançada conforme o código do serviço
-        RuntimeException exception = assertThrows(RuntimeException.class,
+        // Verifica se a exceção é lançada conforme o código do serviço (a hidratação do SessionEngine)
+        RuntimeException exception = assertThrows(SessionNotFoundException.class,
                 () -> filaService.notificarAtualizacaoFila(ACCESS_CODE));
 
-        // Verifica a mensagem da exceção (opcional)
-        assertTrue(exception.getMessage().contains("Sessão não encontrada."));
+        // Verifica a mensagem da exceção
+        assertEquals("Sessão com código '" + ACCESS_CODE + "' não encontrada.", exception.getMessage());
 
         // Verifica que NENHUM envio de mensagem ocorreu
-        verify(template, never()).convertAndSend(anyString(), any(FilaUpdateDTO.class));
+        verifyNoInteractions(template);
+    }
+
+    @Test
+    void notificarAtualizacaoFila_DeveEnviarSomenteODelta_AposORetratoDaInscricao() {
+        User ana = user(1L);
+        User bia = user(2L);
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(ana)));
+        mockSession.setSongQueue(new ArrayList<>(List.of(item(10L, ana))));
+        mockSession.setRotationUserIds(new ArrayList<>(List.of("1")));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+
+        // Inscrição: retrato completo com seq 0
+        FilaUpdateDTO retrato = filaService.montarAtualizacaoFila(ACCESS_CODE);
+        assertEquals(0L, retrato.seq());
+        assertEquals(1, retrato.songQueue().size());
+
+        // Bia entra e pede uma música
+        sessionEngine.addItem(ACCESS_CODE, item(11L, bia));
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+
+        FilaDeltaDTO adicionada = capturarDelta(1);
+        assertEquals(1L, adicionada.seq());
+        assertEquals(List.of(
+                FilaChangeDTO.itemAdded(1, QueueItemDTO.fromEntity(item(11L, bia))),
+                FilaChangeDTO.userJoined(UserDTO.fromEntity(bia))), adicionada.changes());
+
+        // A música da Ana termina: sai da fila e a da Bia passa a tocar, sem reordenar nada
+        sessionEngine.removeItem(ACCESS_CODE, sessionEngine.view(ACCESS_CODE).nowPlaying().queueItemId());
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+
+        FilaDeltaDTO tocada = capturarDelta(2);
+        assertEquals(2L, tocada.seq());
+        assertEquals(List.of(FilaChangeDTO.itemRemoved(10L), FilaChangeDTO.nowPlaying(11L)), tocada.changes());
+    }
+
+    @Test
+    void notificarAtualizacaoFila_NaoDeveEnviarNada_QuandoNadaMudou() {
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(user(1L))));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+        filaService.montarAtualizacaoFila(ACCESS_CODE);
+
+        // Usuário que já estava na sessão entra de novo
+        sessionEngine.join(ACCESS_CODE, user(1L));
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+
+        verifyNoInteractions(template);
+        assertEquals(0L, filaService.montarAtualizacaoFila(ACCESS_CODE).seq());
+    }
+
+    @Test
+    void notificarAtualizacaoFila_DeveEnviarDelta_QuandoSessaoFoiHidratadaDeNovo() {
+        User ana = user(1L);
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(ana)));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+        filaService.montarAtualizacaoFila(ACCESS_CODE);
+
+        // A sessão sai da memória e volta do banco com uma música a mais: a versão recomeça
+        sessionEngine.evict(ACCESS_CODE);
+        mockSession.setSongQueue(new ArrayList<>(List.of(item(10L, ana))));
+        mockSession.setRotationUserIds(new ArrayList<>(List.of("1")));
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+
+        FilaDeltaDTO delta = capturarDelta(1);
+        assertEquals(1L, delta.seq());
+        assertEquals(List.of(
+                FilaChangeDTO.itemAdded(0, QueueItemDTO.fromEntity(item(10L, ana))),
+                FilaChangeDTO.nowPlaying(10L)), delta.changes());
+    }
+
+    @Test
+    void notificarAtualizacaoFila_DeveAgruparNotificacoesDentroDaJanela() {
+        User ana = user(1L);
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(ana)));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FilaService agrupando = new FilaService(template, sessionEngine, payloadCache, registry, 50, 0, 0);
+        try {
+            agrupando.montarAtualizacaoFila(ACCESS_CODE);
+
+            // Rajada: dez músicas pedidas de uma vez
+            for (long id = 10; id < 20; id++) {
+                sessionEngine.addItem(ACCESS_CODE, item(id, ana));
+                agrupando.notificarAtualizacaoFila(ACCESS_CODE);
+            }
+
+            ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+            verify(template, timeout(2000).times(1)).convertAndSend(eq("/topic/fila/" + ACCESS_CODE), captor.capture(), comContentTypeJson());
+            FilaDeltaDTO delta = ler(captor.getValue(), FilaDeltaDTO.class);
+            assertEquals(1L, delta.seq());
+            assertEquals(11, delta.changes().size()); // 10 ITEM_ADDED + NOW_PLAYING
+
+            assertEquals(10.0, registry.get("karaoke.fila.notificacoes").counter().count());
+            assertEquals(9.0, registry.get("karaoke.fila.notificacoes.agrupadas").counter().count());
+            assertEquals(10.0, registry.get("karaoke.fila.notificacoes.por.publicacao").summary().max());
+
+            // Depois da janela, uma nova notificação gera outra publicação
+            sessionEngine.removeItem(ACCESS_CODE, sessionEngine.view(ACCESS_CODE).nowPlaying().queueItemId());
+            agrupando.notificarAtualizacaoFila(ACCESS_CODE);
+            verify(template, timeout(2000).times(2)).convertAndSend(eq("/topic/fila/" + ACCESS_CODE), any(byte[].class), comContentTypeJson());
+        } finally {
+            agrupando.shutdown();
+        }
+    }
+
+    @Test
+    void onFilaAlterada_DevePublicarForaDaThreadDoChamador() throws Exception {
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch enviado = new CountDownLatch(1);
+        // O Mockito registra a chamada antes de rodar a resposta: espera a thread ser anotada
+        doAnswer(inv -> {
+            threads.add(Thread.currentThread().getName());
+            enviado.countDown();
+            return null;
+        }).when(template).convertAndSend(anyString(), any(byte[].class), comContentTypeJson());
+
+        FilaService assincrono = new FilaService(template, sessionEngine, payloadCache, new SimpleMeterRegistry(), 0, 1, 10);
+        try {
+            assincrono.onFilaAlterada(new FilaAlteradaEvent(ACCESS_CODE));
+
+            assertTrue(enviado.await(2, TimeUnit.SECONDS));
+            verify(template).convertAndSend(eq("/topic/fila/" + ACCESS_CODE), any(byte[].class), comContentTypeJson());
+            assertEquals(Set.of("fila-broadcast-1"), threads);
+        } finally {
+            assincrono.shutdown();
+        }
+    }
+
+    @Test
+    void notificarAtualizacaoFila_DeveContarRejeicoes_QuandoFilaDoExecutorEstaCheia() throws Exception {
+        for (String code : List.of("SALA1", "SALA2", "SALA3")) {
+            KaraokeSession sessao = new KaraokeSession();
+            sessao.setId((long) code.hashCode());
+            sessao.setAccessCode(code);
+            when(sessionRepository.findForHydrationByAccessCode(code)).thenReturn(Optional.of(sessao));
+        }
+        CountDownLatch enviando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        doAnswer(inv -> {
+            enviando.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(template).convertAndSend(anyString(), any(byte[].class), comContentTypeJson());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FilaService assincrono = new FilaService(template, sessionEngine, payloadCache, registry, 0, 1, 1);
+        try {
+            assincrono.montarAtualizacaoFila("SALA3"); // cliente inscrito: há base de deltas
+            assincrono.notificarAtualizacaoFila("SALA1"); // ocupa a única thread
+            assertTrue(enviando.await(2, TimeUnit.SECONDS));
+            assincrono.notificarAtualizacaoFila("SALA2"); // ocupa a única vaga da fila
+            assincrono.notificarAtualizacaoFila("SALA3"); // rejeitada
+
+            assertEquals(1.0, registry.get("karaoke.fila.publicacoes.pendentes").gauge().value());
+            assertEquals(1.0, registry.get("karaoke.fila.publicacoes.rejeitadas").counter().count());
+
+            // Depois de rejeitada, a próxima notificação da sessão volta a ser agendada e leva
+            // o retrato completo, na sequência seguinte à base
+            liberar.countDown();
+            verify(template, timeout(2000)).convertAndSend(eq("/topic/fila/SALA2"), any(byte[].class), comContentTypeJson());
+            assincrono.notificarAtualizacaoFila("SALA3");
+            ArgumentCaptor<byte[]> retrato = ArgumentCaptor.forClass(byte[].class);
+            verify(template, timeout(2000)).convertAndSend(eq("/topic/fila/SALA3"), retrato.capture(), comContentTypeJson());
+            assertEquals(1L, ler(retrato.getValue(), FilaUpdateDTO.class).seq());
+        } finally {
+            liberar.countDown();
+            assincrono.shutdown();
+        }
+    }
+
+    @Test
+    void notificarAtualizacaoFila_DeveCompartilharOsBytesDoRetratoComAInscricaoEORest() {
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(user(1L))));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+
+        // Serializado uma vez só: o broadcast, o @SubscribeMapping e o GET usam o mesmo array
+        byte[] enviado = capturarEnvio("/topic/fila/" + ACCESS_CODE, 1);
+        assertSame(enviado, filaService.montarAtualizacaoFilaJson(ACCESS_CODE));
+    }
+
+    @Test
+    void montarAtualizacaoFilaJson_DeveReaproveitarOsBytesAteAProximaPublicacao() throws Exception {
+        User ana = user(1L);
+        mockSession.setConnectedUsers(new ArrayList<>(List.of(ana)));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
+
+        byte[] primeiro = filaService.montarAtualizacaoFilaJson(ACCESS_CODE);
+        assertSame(primeiro, filaService.montarAtualizacaoFilaJson(ACCESS_CODE));
+
+        // Mudança ainda não publicada: o retrato continua o da última publicação
+        sessionEngine.addItem(ACCESS_CODE, item(10L, ana));
+        assertSame(primeiro, filaService.montarAtualizacaoFilaJson(ACCESS_CODE));
+
+        filaService.notificarAtualizacaoFila(ACCESS_CODE);
+        byte[] depois = filaService.montarAtualizacaoFilaJson(ACCESS_CODE);
+        assertNotSame(primeiro, depois);
+
+        FilaUpdateDTO lido = new ObjectMapper().readValue(depois, FilaUpdateDTO.class);
+        assertEquals(1L, lido.seq());
+        assertEquals(filaService.montarAtualizacaoFila(ACCESS_CODE), lido);
+
+        // Sessão encerrada: nada fica em cache
+        filaService.encerrarTransmissao(ACCESS_CODE);
+        assertNotSame(depois, filaService.montarAtualizacaoFilaJson(ACCESS_CODE));
+    }
+
+    @Test
+    void filaDelta_AplicadoAoRetratoAnterior_DeveReproduzirORetratoNovo() {
+        Random random = new Random(42);
+        for (int rodada = 0; rodada < 300; rodada++) {
+            SessionView antes = viewAleatoria(random);
+            SessionView depois = viewAleatoria(random);
+
+            List<FilaChangeDTO> changes = FilaDelta.between(antes, depois);
+
+            assertEquals(ids(depois.queue()), ids(aplicarFila(antes.queue(), changes)), "rodada " + rodada);
+            assertEquals(Set.copyOf(depois.connectedUsers()), aplicarUsuarios(antes.connectedUsers(), changes));
+        }
+    }
+
+    @Test
+    void longestIncreasing_DeveRetornarMaiorSubsequenciaCrescente() {
+        assertArrayEquals(new int[]{1, 2}, FilaDelta.longestIncreasing(new int[]{1, 2, 0}));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, FilaDelta.longestIncreasing(new int[]{0, 1, 2, 3}));
+        assertEquals(3, FilaDelta.longestIncreasing(new int[]{5, 1, 4, 2, 3}).length);
+        assertArrayEquals(new int[0], FilaDelta.longestIncreasing(new int[0]));
+    }
+
+    private FilaDeltaDTO capturarDelta(int envios) {
+        return ler(capturarEnvio("/topic/fila/" + ACCESS_CODE, envios), FilaDeltaDTO.class);
+    }
+
+    // Último payload enviado ao tópico: JSON já serializado, com o content-type no cabeçalho
+    private byte[] capturarEnvio(String destination, int envios) {
+        ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+        verify(template, times(envios)).convertAndSend(eq(destination), captor.capture(), comContentTypeJson());
+        return captor.getValue();
+    }
+
+    // Cabeçalhos da mensagem (não nativos do STOMP) com o content-type JSON
+    private static Map<String, Object> comContentTypeJson() {
+        return argThat(headers -> headers instanceof MessageHeaders
+                && MimeTypeUtils.APPLICATION_JSON.equals(headers.get(MessageHeaders.CONTENT_TYPE)));
+    }
+
+    private static <T> T ler(byte[] json, Class<T> type) {
+        try {
+            return new ObjectMapper().readValue(json, type);
+        } catch (java.io.IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Mesmo algoritmo do cliente: tira removidos e movidos, depois insere nas posições finais
+    private static List<QueueItemDTO> aplicarFila(List<QueueItemDTO> fila, List<FilaChangeDTO> changes) {
+        Map<Long, QueueItemDTO> porId = new HashMap<>();
+        fila.forEach(i -> porId.put(i.queueItemId(), i));
+        Set<Long> saem = new HashSet<>();
+        for (FilaChangeDTO c : changes) {
+            if (c.op() == FilaChangeDTO.Op.ITEM_REMOVED || c.op() == FilaChangeDTO.Op.ITEM_MOVED) saem.add(c.queueItemId());
+        }
+        List<QueueItemDTO> result = new ArrayList<>(fila.stream().filter(i -> !saem.contains(i.queueItemId())).toList());
+        for (FilaChangeDTO c : changes) {
+            if (c.op() == FilaChangeDTO.Op.ITEM_ADDED) result.add(c.index(), c.item());
+            if (c.op() == FilaChangeDTO.Op.ITEM_MOVED) result.add(c.index(), porId.get(c.queueItemId()));
+        }
+        return result;
+    }
+
+    private static Set<UserDTO> aplicarUsuarios(List<UserDTO> usuarios, List<FilaChangeDTO> changes) {
+        Set<UserDTO> result = new HashSet<>(usuarios);
+        for (FilaChangeDTO c : changes) {
+            if (c.op() == FilaChangeDTO.Op.USER_JOINED) result.add(c.user());
+            if (c.op() == FilaChangeDTO.Op.USER_LEFT) result.remove(c.user());
+        }
+        return result;
+    }
+
+    private static SessionView viewAleatoria(Random random) {
+        List<QueueItemDTO> fila = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            if (random.nextInt(3) > 0) fila.add(new QueueItemDTO("Musica " + id, "V" + id, "user", id));
+        }
+        Collections.shuffle(fila, random);
+        List<UserDTO> usuarios = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            if (random.nextBoolean()) usuarios.add(new UserDTO(id, "user" + id));
+        }
+        return new SessionView(1L, "TESTE123", "PLAYING", null, null, usuarios, fila, List.of(), 0, random.nextLong());
+    }
+
+    private static List<Long> ids(List<QueueItemDTO> fila) {
+        return fila.stream().map(QueueItemDTO::queueItemId).toList();
+    }
+
+    // -----------------------------------------------------------------------------------
+    // Testes para computeFairOrder(KaraokeSession session)
+    // -----------------------------------------------------------------------------------
+
+    @Test
+    void computeFairOrder_DeveIntercalarUsuariosAPartirDoNextUserIndex() {
+        User ana = user(1L);
+        User bia = user(2L);
+        mockSession.setSongQueue(new ArrayList<>(List.of(
+                item(10L, ana), item(11L, ana), item(12L, bia), item(13L, ana))));
+        mockSession.setRotationUserIds(new ArrayList<>(List.of("1", "2")));
+        mockSession.setNextUserIndex(1);
+
+        List<Long> ids = filaService.computeFairOrder(mockSession).stream()
+                .map(QueueItem::getQueueItemId).toList();
+
+        assertEquals(List.of(12L, 10L, 11L, 13L), ids);
+    }
+
+    @Test
+    void computeFairOrder_DeveAnexarUsuariosForaDaRotacaoNaOrdemDePrimeiraAparicao() {
+        User ana = user(1L);
+        User bia = user(2L);
+        User caio = user(3L);
+        mockSession.setSongQueue(new ArrayList<>(List.of(
+                item(10L, caio), item(11L, ana), item(12L, bia), item(13L, caio))));
+        mockSession.setRotationUserIds(new ArrayList<>(List.of("2")));
+
+        assertEquals(legacyFairOrder(mockSession), filaService.computeFairOrder(mockSession));
+    }
+
+    private static User user(Long id) {
+        User u = new User();
+        u.setId(id);
+        u.setUsername("user" + id);
+        return u;
+    }
+
+    private QueueItem item(Long id, User user) {
+        QueueItem qi = new QueueItem(mockSession, user, new Song("V" + id, "Musica " + id, "Artista", "url"));
+        qi.setQueueItemId(id);
+        return qi;
+    }
+
+    // Cópia do algoritmo original (recalculado do zero), usada como referência de ordem
+    private static List<QueueItem> legacyFairOrder(KaraokeSession session) {
+        Map<String, Queue<QueueItem>> perUser = new HashMap<>();
+        List<String> usersFirstAppearance = new ArrayList<>();
+        for (QueueItem qi : session.getSongQueue()) {
+            String uid = FairQueueIndex.userIdOf(qi);
+            perUser.computeIfAbsent(uid, k -> new LinkedList<>()).add(qi);
+            if (!usersFirstAppearance.contains(uid)) usersFirstAppearance.add(uid);
+        }
+        List<String> rotation = new ArrayList<>(session.getRotationUserIds());
+        for (String uid : usersFirstAppearance) {
+            if (!rotation.contains(uid)) rotation.add(uid);
+        }
+        List<QueueItem> result = new ArrayList<>();
+        if (rotation.isEmpty()) return result;
+        int idx = session.getNextUserIndex();
+        if (idx < 0 || idx >= rotation.size()) idx = 0;
+        boolean addedAny = true;
+        while (addedAny) {
+            addedAny = false;
+            for (int i = 0; i < rotation.size(); i++) {
+                Queue<QueueItem> q = perUser.get(rotation.get((idx + i) % rotation.size()));
+                if (q != null && !q.isEmpty()) {
+                    result.add(q.poll());
+                    addedAny = true;
+                }
+            }
+        }
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.karaoke.backend.services;
 
+import com.karaoke.backend.dtos.QueueItemDTO;
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
 import com.karaoke.backend.exception.SessionNotFoundException;
 import com.karaoke.backend.models.KaraokeSession;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +38,10 @@ class KaraokeServiceTest {
     private SongService songService;
     @Mock
     private com.karaoke.backend.repositories.UserRepository userRepository;
+    @Mock
+    private SessionEngine sessionEngine;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private KaraokeService karaokeService;
@@ -174,31 +180,31 @@ class KaraokeServiceTest {
         mockSong.setTitle(title);
         mockSong.setYoutubeVideoId(videoId);
 
-        // 1. Mock do getSession()
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
-        
-        
-        // 3. Mock do salvamento da sessão (para verificar a chamada)
-        when(sessionRepository.save(any(KaraokeSession.class))).thenReturn(mockSession);
+        // 1. A sessão vem do SessionEngine; do banco só a referência
+        when(sessionEngine.view(ACCESS_CODE)).thenReturn(view());
+        when(sessionRepository.getReferenceById(1L)).thenReturn(mockSession);
 
         // Act
         karaokeService.addSongToQueue(ACCESS_CODE, requestDTO, mockUser); // NOVO: Passando requestDTO
 
         // Assert
-        // Verifica se a sessão foi buscada
-        verify(sessionRepository, times(1)).findByAccessCode(ACCESS_CODE);
-                
-        // Verifica se o usuário foi adicionado à sessão 
-        assertTrue(mockSession.getConnectedUsers().contains(mockUser));
-        
-        // Verifica se o item foi adicionado à fila
-        assertEquals(1, mockSession.getSongQueue().size());
-        
-        // Verifica se a sessão foi salva
-        verify(sessionRepository, times(1)).save(mockSession);
+        // A sessão não é carregada do banco
+        verify(sessionRepository, never()).findByAccessCode(any());
+
+        // Verifica se o usuário foi vinculado à sessão
+        assertSame(mockSession, mockUser.getSession());
+
+        // O item é gravado contra a referência da sessão, sem passar pela songQueue
+        verify(queueItemRepository, times(1)).save(argThat(item -> item.getSession() == mockSession));
+        assertTrue(mockSession.getSongQueue().isEmpty());
+
+        // Verifica que o item foi aplicado à fila em memória; a rotação é gravada em lote
+        // pelo write-behind do SessionEngine, sem salvar a sessão inteira
+        verify(sessionEngine, times(1)).addItem(eq(ACCESS_CODE), any(QueueItem.class));
+        verify(sessionRepository, never()).save(any(KaraokeSession.class));
         
         // Verifica se a notificação foi enviada
-        verify(filaService, times(1)).notificarAtualizacaoFila(ACCESS_CODE);
+        verify(eventPublisher, times(1)).publishEvent(new FilaAlteradaEvent(ACCESS_CODE));
     }
 
     @Test
@@ -208,19 +214,44 @@ class KaraokeServiceTest {
         YouTubeVideoDTO requestDTO = new YouTubeVideoDTO("V1", "Title", "url", true);
         User mockUser = new User();
 
-        // 1. Mock do getSession()
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.empty());
+        // 1. O SessionEngine não conhece a sessão
+        when(sessionEngine.view(ACCESS_CODE)).thenThrow(new SessionNotFoundException("Sessão não encontrada"));
 
         // Act & Assert
         assertThrows(SessionNotFoundException.class,
                 () -> karaokeService.addSongToQueue(ACCESS_CODE, requestDTO, mockUser)); // NOVO: Passando requestDTO
 
-        // Assertions de verificação
-        verify(sessionRepository, times(1)).findByAccessCode(ACCESS_CODE);
-        
         // Verifica que NENHUMA outra operação aconteceu
         verify(sessionRepository, never()).save(any());
-        verify(filaService, never()).notificarAtualizacaoFila(anyString());
+        verify(queueItemRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(FilaAlteradaEvent.class));
+    }
+
+    @Test
+    void addSongsToQueue_DeveGravarTodosOsItensDeUmaVez() {
+        List<YouTubeVideoDTO> videos = List.of(
+                new YouTubeVideoDTO("V1", "Música 1", "url", true),
+                new YouTubeVideoDTO("V2", "Música 2", "url", true),
+                new YouTubeVideoDTO("V3", "Música 3", "url", true));
+        User mockUser = new User();
+        mockUser.setId(10L);
+
+        when(sessionEngine.view(ACCESS_CODE)).thenReturn(view());
+        when(sessionRepository.getReferenceById(1L)).thenReturn(mockSession);
+        when(songService.createSongsFromVideos(videos)).thenReturn(List.of(
+                new Song("V1", "Música 1", "", ""), new Song("V2", "Música 2", "", ""), new Song("V3", "Música 3", "", "")));
+
+        List<QueueItem> items = karaokeService.addSongsToQueue(ACCESS_CODE, videos, mockUser);
+
+        assertEquals(List.of("V1", "V2", "V3"), items.stream().map(item -> item.getSong().getYoutubeVideoId()).toList());
+        assertTrue(items.stream().allMatch(item -> item.getSession() == mockSession));
+        assertTrue(mockSession.getSongQueue().isEmpty());
+        assertSame(mockSession, mockUser.getSession());
+        // Um saveAll (INSERTs em lote), uma passagem pelo motor e um único broadcast
+        verify(queueItemRepository, times(1)).saveAll(items);
+        verify(queueItemRepository, never()).save(any());
+        verify(sessionEngine, times(1)).addItems(ACCESS_CODE, items);
+        verify(eventPublisher, times(1)).publishEvent(new FilaAlteradaEvent(ACCESS_CODE));
     }
 
     // O teste para VideoNotFoundException não é mais necessário aqui, pois
@@ -242,29 +273,23 @@ class KaraokeServiceTest {
     void deleteSongFromQueue_DeveRemoverItemDaFila_QuandoExistente() {
         // Arrange
         Long queueItemId = 99L;
-        QueueItem mockItem = new QueueItem(mockSession, new User(), new Song());
-        mockItem.setQueueItemId(queueItemId);
-
-        // Garante que a sessão contenha o item para simular a lógica
-        mockSession.addQueueItem(mockItem);
 
-        // 1. Mock do getSession()
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
-        // 2. Mock da busca do QueueItem
-        when(queueItemRepository.findById(queueItemId)).thenReturn(Optional.of(mockItem));
+        // 1. A sessão vem do SessionEngine; o DELETE apaga o item
+        when(sessionEngine.view(ACCESS_CODE)).thenReturn(view());
+        when(queueItemRepository.deleteFromSession(queueItemId, 1L)).thenReturn(1);
 
         // Act
         karaokeService.deleteSongFromQueue(ACCESS_CODE, queueItemId);
 
         // Assert
-        // Verifica que o item foi removido da lista da sessão (a lógica está no método deleteQueueItem)
-        assertFalse(mockSession.getSongQueue().contains(mockItem));
+        // Um DELETE direto, sem carregar a sessão, a fila ou o item
+        verify(queueItemRepository, times(1)).deleteFromSession(queueItemId, 1L);
+        verify(sessionRepository, never()).findByAccessCode(any());
+        verify(queueItemRepository, never()).findById(anyLong());
+        // Só o que saiu do banco sai da fila em memória (o motor aplica depois do commit)
+        verify(sessionEngine, times(1)).removeItem(ACCESS_CODE, queueItemId);
         // Verifica se a notificação foi enviada (que é chamada no final, independentemente da exclusão)
-        verify(filaService, times(1)).notificarAtualizacaoFila(ACCESS_CODE);
-        // O item é removido implicitamente quando a sessão é salva novamente, mas o seu serviço
-        // não tem um `sessionRepository.save()`. Como o método é `@Transactional`,
-        // a exclusão na coleção `session.deleteQueueItem(itemToDelete);` será persistida.
-        // O mais importante é verificar a notificação e a manipulação da coleção.
+        verify(eventPublisher, times(1)).publishEvent(new FilaAlteradaEvent(ACCESS_CODE));
     }
 
     @Test
@@ -272,19 +297,18 @@ class KaraokeServiceTest {
         // Arrange
         Long nonExistingId = 999L;
 
-        // 1. Mock do getSession()
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(mockSession));
-        // 2. Mock da busca do QueueItem (retorna vazio)
-        when(queueItemRepository.findById(nonExistingId)).thenReturn(Optional.empty());
+        // 1. O item não está no banco: o DELETE não apaga nada
+        when(sessionEngine.view(ACCESS_CODE)).thenReturn(view());
+        when(queueItemRepository.deleteFromSession(nonExistingId, 1L)).thenReturn(0);
 
         // Act
         karaokeService.deleteSongFromQueue(ACCESS_CODE, nonExistingId);
 
         // Assert
         // Verifica que a notificação foi enviada (que é chamada no final)
-        verify(filaService, times(1)).notificarAtualizacaoFila(ACCESS_CODE);
-        // Verifica que o método do repositório foi chamado
-        verify(queueItemRepository, times(1)).findById(nonExistingId);
+        verify(eventPublisher, times(1)).publishEvent(new FilaAlteradaEvent(ACCESS_CODE));
+        // A fila em memória não muda
+        verify(sessionEngine, never()).removeItem(any(), anyLong());
         // A lógica de remoção interna da sessão não será chamada
         // O teste deve garantir que NENHUM erro foi lançado
     }
@@ -294,15 +318,49 @@ class KaraokeServiceTest {
         // Arrange
         Long queueItemId = 99L;
 
-        // 1. Mock do getSession() (lança exceção)
-        when(sessionRepository.findByAccessCode(ACCESS_CODE)).thenReturn(Optional.empty());
+        // 1. O SessionEngine não conhece a sessão (lança exceção)
+        when(sessionEngine.view(ACCESS_CODE)).thenThrow(new SessionNotFoundException("Sessão não encontrada"));
 
         // Act & Assert
         assertThrows(SessionNotFoundException.class,
                 () -> karaokeService.deleteSongFromQueue(ACCESS_CODE, queueItemId));
 
         // Assertions de verificação: Se a sessão não for encontrada, o resto não é chamado
-        verify(queueItemRepository, never()).findById(anyLong());
-        verify(filaService, never()).notificarAtualizacaoFila(anyString());
+        verify(sessionEngine, never()).removeItem(any(), anyLong());
+        verify(queueItemRepository, never()).deleteFromSession(anyLong(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any(FilaAlteradaEvent.class));
+    }
+
+    // -----------------------------------------------------------------------------------
+    // Testes para playNextSong(String accessCode)
+    // -----------------------------------------------------------------------------------
+
+    @Test
+    void playNextSong_DeveTocarASeguinte_QuandoAPrimeiraJaFoiTocadaPorOutraRequisicao() {
+        // Arrange
+        QueueItemDTO primeira = new QueueItemDTO("Evidências", "V1", "ana", 1L);
+        QueueItemDTO segunda = new QueueItemDTO("Garota de Ipanema", "V2", "bia", 2L);
+        QueueItem item = new QueueItem();
+        item.setQueueItemId(2L);
+        when(sessionEngine.view(ACCESS_CODE)).thenReturn(
+                new SessionView(1L, ACCESS_CODE, "WAITING", null, null, List.of(), List.of(primeira, segunda), List.of(), 0, 1L));
+        // A primeira já saiu do banco (outra requisição a tocou e ainda não chegou à memória)
+        when(queueItemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(queueItemRepository.findById(2L)).thenReturn(Optional.of(item));
+        when(queueItemRepository.deleteFromSession(2L, 1L)).thenReturn(1);
+
+        // Act
+        Optional<QueueItem> tocada = karaokeService.playNextSong(ACCESS_CODE);
+
+        // Assert
+        assertSame(item, tocada.orElseThrow());
+        verify(sessionEngine, times(1)).removeItem(ACCESS_CODE, 2L);
+        verify(sessionEngine, never()).removeItem(ACCESS_CODE, 1L);
+        verify(eventPublisher, times(1)).publishEvent(new FilaAlteradaEvent(ACCESS_CODE));
+    }
+
+    // Retrato da sessão de teste (id 1) como o SessionEngine publica
+    private SessionView view() {
+        return new SessionView(1L, ACCESS_CODE, "WAITING", null, null, List.of(), List.of(), List.of(), 0, 1L);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Limpeza contra o esquema das migrações: os DELETEs em lote dependem do ON DELETE das chaves
+ * estrangeiras. Sem transação no teste, cada página da limpeza faz o próprio commit.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SessionCleanupServiceTest {
+
+    @Autowired
+    private KaraokeSessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SessionEngine sessionEngine = mock(SessionEngine.class);
+    private final FilaService filaService = mock(FilaService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SessionExpiryWheel expiryWheel;
+
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        expiryWheel = new SessionExpiryWheel(sessionRepository, meterRegistry, Duration.ofHours(6), Duration.ofHours(1), 1000);
+        jdbcTemplate.update("insert into tb_user (id, username) values (1, 'cantor')");
+        jdbcTemplate.update("insert into song (song_id, youtube_video_id, title) values (1, 'V1', 'Evidências')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from queue_item");
+        jdbcTemplate.update("delete from session_rotation");
+        jdbcTemplate.update("update tb_user set session_id = null");
+        jdbcTemplate.update("delete from karaoke_session");
+        jdbcTemplate.update("delete from tb_user");
+        jdbcTemplate.update("delete from song");
+    }
+
+    @Test
+    void cleanupOldSessions_DeveApagarSessaoExpiradaComFilaERotacao() {
+        long expirada = session("EXPIRA", 7);
+        jdbcTemplate.update("update tb_user set session_id = ? where id = 1", expirada);
+        jdbcTemplate.update("insert into queue_item (queue_item_id, timestamp_added, session_id, user_id, song_id) values (1, localtimestamp, ?, 1, 1)", expirada);
+        jdbcTemplate.update("insert into session_rotation (id, session_id, user_id, position) values (1, ?, 1, 0)", expirada);
+
+        service(500).cleanupOldSessions();
+
+        assertEquals(0, count("karaoke_session"));
+        assertEquals(0, count("queue_item"));
+        assertEquals(0, count("session_rotation"));
+        // O usuário continua cadastrado, só sai da sessão
+        assertNull(jdbcTemplate.queryForObject("select session_id from tb_user where id = 1", Long.class));
+        verify(sessionEngine).evict("EXPIRA");
+        verify(filaService).encerrarTransmissao("EXPIRA");
+    }
+
+    @Test
+    void cleanupOldSessions_DeveFiltrarPelaUltimaAtividade() {
+        long antigaAtiva = session("ATIVA", 0);
+        jdbcTemplate.update("update karaoke_session set created_at = ? where id = ?", hoursAgo(12), antigaAtiva);
+        long comUsuario = session("COMUSR", 2);
+        jdbcTemplate.update("update tb_user set session_id = ? where id = 1", comUsuario);
+        session("VAZIA", 2);
+
+        service(500).cleanupOldSessions();
+
+        assertEquals(List.of("ATIVA", "COMUSR"),
+                jdbcTemplate.queryForList("select access_code from karaoke_session order by access_code", String.class));
+        verify(sessionEngine).evict("VAZIA");
+        verify(sessionEngine, never()).evict("ATIVA");
+        verify(sessionEngine, never()).evict("COMUSR");
+    }
+
+    @Test
+    void cleanupOldSessions_DeveApagarEmPaginasEPublicarMetricas() {
+        for (int i = 0; i < 5; i++) {
+            session("PAG00" + i, 8);
+        }
+
+        service(2).cleanupOldSessions();
+
+        assertEquals(0, count("karaoke_session"));
+        assertEquals(5.0, meterRegistry.get("karaoke.limpeza.sessoes.removidas").counter().count());
+        assertEquals(1, meterRegistry.get("karaoke.limpeza.duracao").timer().count());
+    }
+
+    @Test
+    void expireDue_DeveApagarSessoesComPrazoVencidoNaRoda() {
+        session("VAZIA", 2);
+        long comUsuario = session("COMUSR", 2);
+        jdbcTemplate.update("update tb_user set session_id = ? where id = 1", comUsuario);
+        session("ATIVA", 0);
+        expiryWheel.rebuild();
+        assertEquals(3, expiryWheel.size());
+
+        service(500).expireDue();
+
+        assertEquals(List.of("ATIVA", "COMUSR"),
+                jdbcTemplate.queryForList("select access_code from karaoke_session order by access_code", String.class));
+        verify(sessionEngine).evict("VAZIA");
+        verify(filaService).encerrarTransmissao("VAZIA");
+        // COMUSR tem usuário: voltou para a roda com o prazo de expire-after, junto com ATIVA
+        assertEquals(2, expiryWheel.size());
+        assertTrue(expiryWheel.due().isEmpty());
+        assertEquals(1.0, meterRegistry.get("karaoke.limpeza.sessoes.removidas").counter().count());
+    }
+
+    @Test
+    void expireDue_NaoDeveReagendarSessaoQueJaNaoExiste() {
+        expiryWheel.touch("SUMIU", LocalDateTime.now().minusHours(2));
+
+        service(500).expireDue();
+
+        assertEquals(0, expiryWheel.size());
+        verify(sessionEngine, never()).evict(any());
+    }
+
+    private SessionCleanupService service(int batchSize) {
+        return new SessionCleanupService(sessionRepository, sessionEngine, filaService, expiryWheel, transactionManager,
+                meterRegistry, Duration.ofHours(6), Duration.ofHours(1), batchSize);
+    }
+
+    private long session(String accessCode, int hoursIdle) {
+        long id = nextId++;
+        Timestamp activity = hoursAgo(hoursIdle);
+        jdbcTemplate.update("insert into karaoke_session (id, access_code, status, next_user_index, created_at, last_activity_at) "
+                + "values (?, ?, 'WAITING', 0, ?, ?)", id, accessCode, activity, activity);
+        return id;
+    }
+
+    private static Timestamp hoursAgo(int hours) {
+        return Timestamp.valueOf(LocalDateTime.now().minusHours(hours));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.models.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hidratação de uma sessão (GET da sessão e broadcasts da fila) com contagem de SELECTs
+ * pelas estatísticas do Hibernate: o número não pode crescer com o tamanho da fila.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({SessionEngine.class, SessionExpiryWheel.class, SimpleMeterRegistry.class})
+class SessionEngineQueryCountTest {
+
+    // sessão + anfitrião + fila com autor e música; usuários conectados; rotação
+    private static final int EXPECTED_STATEMENTS = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SessionEngine sessionEngine;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionEngine.shutdown();
+    }
+
+    @Test
+    void view_shouldLoadSessionInConstantNumberOfStatements() {
+        String small = persistSession(5, 3);
+        String large = persistSession(200, 20);
+
+        long smallStatements = statementsToLoad(small);
+        long largeStatements = statementsToLoad(large);
+
+        assertEquals(EXPECTED_STATEMENTS, smallStatements);
+        assertEquals(EXPECTED_STATEMENTS, largeStatements);
+    }
+
+    @Test
+    void view_shouldKeepQueueOrderAndEveryRelation() {
+        String code = persistSession(200, 20);
+        entityManager.clear();
+
+        SessionView view = sessionEngine.view(code);
+
+        assertEquals(200, view.queue().size());
+        assertEquals(20, view.connectedUsers().size());
+        assertEquals(20, view.rotation().size());
+        assertNotNull(view.hostId());
+        assertTrue(view.queue().stream().allMatch(item -> item.songTitle().startsWith("Música ")
+                && item.addedByUserName().startsWith("cantor")));
+    }
+
+    private long statementsToLoad(String accessCode) {
+        entityManager.clear();
+        statistics.clear();
+        sessionEngine.view(accessCode);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String persistSession(int queueSize, int userCount) {
+        KaraokeSession session = new KaraokeSession();
+        entityManager.persist(session);
+
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < userCount; u++) {
+            User user = new User();
+            user.setUsername("cantor" + u);
+            user.setEmail(session.getAccessCode() + "-cantor" + u + "@karaq.dev");
+            user.setSession(session);
+            entityManager.persist(user);
+            users.add(user);
+            session.addToRotation(user.getId().toString());
+        }
+        session.setHost(users.get(0));
+
+        for (int i = 0; i < queueSize; i++) {
+            Song song = new Song(session.getAccessCode() + i, "Música " + i, "Artista", "");
+            entityManager.persist(song);
+            QueueItem item = new QueueItem(session, users.get(i % userCount), song);
+            entityManager.persist(item);
+        }
+        entityManager.flush();
+        return session.getAccessCode();
+    }
+}
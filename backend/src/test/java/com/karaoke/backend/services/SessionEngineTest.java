@@ -0,0 +1,342 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.dtos.QueueItemDTO;
+import com.karaoke.backend.exception.SessionNotFoundException;
+import com.karaoke.backend.models.KaraokeSession;
+import com.karaoke.backend.models.QueueItem;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.models.User;
+import com.karaoke.backend.repositories.KaraokeSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionEngineTest {
+
+    @Mock
+    private KaraokeSessionRepository sessionRepository;
+
+    private SessionEngine engine;
+
+    private final String ACCESS_CODE = "LANE01";
+    private KaraokeSession session;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SessionEngine(sessionRepository, null, null, 2);
+
+        session = new KaraokeSession();
+        session.setId(1L);
+        session.setAccessCode(ACCESS_CODE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void view_DeveHidratarUmaUnicaVez() {
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(session));
+
+        engine.view(ACCESS_CODE);
+        engine.view(ACCESS_CODE.toLowerCase());
+
+        verify(sessionRepository, times(1)).findForHydrationByAccessCode(ACCESS_CODE);
+    }
+
+    @Test
+    void mutacoes_DevemProduzirAMesmaFilaQueOAlgoritmoOriginal() {
+        // O "espelho" recebe as mesmas operações com a lógica original do KaraokeService
+        // (sobre a entidade), e a fila justa é recalculada do zero para comparação.
+        engine.register(session);
+        KaraokeSession mirror = new KaraokeSession();
+        mirror.setAccessCode(ACCESS_CODE);
+        FilaService filaService = new FilaService(null, engine, null, new SimpleMeterRegistry(), 0, 0, 0);
+
+        Random random = new Random(7);
+        List<User> users = new ArrayList<>();
+        for (long u = 1; u <= 8; u++) users.add(user(u));
+        long nextId = 1;
+
+        for (int step = 0; step < 400; step++) {
+            int op = random.nextInt(4);
+            if (op < 2 || mirror.getSongQueue().isEmpty()) {
+                User u = random.nextInt(10) == 0 ? null : users.get(random.nextInt(users.size()));
+                QueueItem qi = item(nextId++, u);
+                legacyAdd(mirror, qi);
+                engine.addItem(ACCESS_CODE, qi);
+            } else if (op == 2) {
+                QueueItem qi = mirror.getSongQueue().get(random.nextInt(mirror.getSongQueue().size()));
+                legacyDelete(filaService, mirror, qi);
+                engine.removeItem(ACCESS_CODE, qi.getQueueItemId());
+            } else {
+                QueueItem expected = legacyPlayNext(filaService, mirror);
+                assertEquals(expected.getQueueItemId(), playNext());
+            }
+
+            List<Long> expectedIds = filaService.computeFairOrder(mirror).stream()
+                    .map(QueueItem::getQueueItemId).toList();
+            List<Long> actualIds = engine.view(ACCESS_CODE).queue().stream()
+                    .map(QueueItemDTO::queueItemId).toList();
+            assertEquals(expectedIds, actualIds, "Divergência no passo " + step);
+            assertEquals(mirror.getRotationUserIds(), engine.view(ACCESS_CODE).rotation());
+            assertEquals(mirror.getNextUserIndex(), engine.view(ACCESS_CODE).nextUserIndex());
+        }
+    }
+
+    @Test
+    void addItem_Concorrente_NaoDevePerderAtualizacoes() throws Exception {
+        engine.register(session);
+        int threads = 8;
+        int perThread = 50;
+        AtomicLong ids = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            User u = user(t + 1L);
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    engine.addItem(ACCESS_CODE, item(ids.incrementAndGet(), u));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        SessionView view = engine.view(ACCESS_CODE);
+        assertEquals(threads * perThread, view.queue().size());
+        assertEquals(threads, view.rotation().size());
+        assertEquals(threads, view.connectedUsers().size());
+    }
+
+    @Test
+    void flush_DeveGravarRotacaoEmLote() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        engine.shutdown();
+        engine = new SessionEngine(sessionRepository, transactionManager, null, 1);
+
+        engine.register(session);
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        engine.addItem(ACCESS_CODE, item(2L, user(6L)));
+        when(sessionRepository.findAllWithRotationByIdIn(any())).thenReturn(List.of(session));
+
+        engine.flush();
+
+        assertEquals(List.of("5", "6"), session.getRotationUserIds());
+        verify(sessionRepository, never()).save(any());
+
+        // Nada mudou desde o último flush: nenhuma consulta nova
+        engine.flush();
+        verify(sessionRepository, times(1)).findAllWithRotationByIdIn(any());
+    }
+
+    @Test
+    void flush_DeveGravarUltimaAtividadeDaFila() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        engine.shutdown();
+        engine = new SessionEngine(sessionRepository, transactionManager, null, 1);
+        LocalDateTime parada = LocalDateTime.now().minusHours(3);
+        session.setLastActivityAt(parada);
+
+        engine.register(session);
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        when(sessionRepository.findAllWithRotationByIdIn(any())).thenReturn(List.of(session));
+
+        engine.flush();
+
+        assertTrue(session.getLastActivityAt().isAfter(parada));
+    }
+
+    @Test
+    void mutacoes_DevemAdiarOPrazoNaRodaDeExpiracao() {
+        SessionExpiryWheel expiryWheel = mock(SessionExpiryWheel.class);
+        engine.shutdown();
+        engine = new SessionEngine(sessionRepository, null, expiryWheel, 1);
+        LocalDateTime parada = LocalDateTime.now().minusHours(3);
+        session.setLastActivityAt(parada);
+
+        engine.register(session);
+        verify(expiryWheel).touch(ACCESS_CODE, parada);
+
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        verify(expiryWheel).touch(eq(ACCESS_CODE), argThat((LocalDateTime at) -> at.isAfter(parada)));
+
+        engine.evict(ACCESS_CODE);
+        verify(expiryWheel).cancel(ACCESS_CODE);
+    }
+
+    @Test
+    void rotacao_DevePerderQuemSaiuDaSessao_QuandoNaoTemMaisMusicas() {
+        engine.register(session);
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        engine.addItem(ACCESS_CODE, item(2L, user(6L)));
+        engine.addItem(ACCESS_CODE, item(3L, user(7L)));
+
+        // Sem músicas: sai da rotação junto com a sessão
+        engine.removeItem(ACCESS_CODE, 3L);
+        engine.leave(ACCESS_CODE, 7L);
+        assertEquals(List.of("5", "6"), engine.view(ACCESS_CODE).rotation());
+
+        // Com música na fila: a vez dela ainda chega, e depois a rotação o esquece
+        engine.leave(ACCESS_CODE, 6L);
+        assertEquals(List.of("5", "6"), engine.view(ACCESS_CODE).rotation());
+        assertEquals(1L, playNext());
+        assertEquals(2L, playNext());
+        SessionView view = engine.view(ACCESS_CODE);
+        assertEquals(List.of("5"), view.rotation());
+        assertEquals(0, view.nextUserIndex());
+    }
+
+    @Test
+    void hidratacao_DevePodarDaRotacaoQuemJaSaiuSemMusicas() {
+        User ana = user(5L);
+        session.setConnectedUsers(new ArrayList<>(List.of(ana)));
+        session.setRotationUserIds(new ArrayList<>(List.of("5", "6", "7")));
+        session.setSongQueue(new ArrayList<>(List.of(item(1L, ana), item(2L, user(7L)))));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.of(session));
+
+        assertEquals(List.of("5", "7"), engine.view(ACCESS_CODE).rotation());
+    }
+
+    @Test
+    void transacao_MutacaoSoApareceDepoisDoCommit() {
+        engine.register(session);
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        SessionView before = engine.view(ACCESS_CODE);
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            engine.addItem(ACCESS_CODE, item(2L, user(6L)));
+            engine.removeItem(ACCESS_CODE, 1L);
+            // Antes do commit, as leituras continuam no retrato confirmado
+            assertSame(before, engine.view(ACCESS_CODE));
+        });
+
+        SessionView after = engine.view(ACCESS_CODE);
+        assertEquals(List.of(2L), after.queue().stream().map(QueueItemDTO::queueItemId).toList());
+        assertEquals(List.of("5", "6"), after.rotation());
+        assertTrue(after.hasUser(6L));
+    }
+
+    @Test
+    void rollback_NaoDeveAplicarNadaEmMemoria() {
+        engine.register(session);
+        engine.addItem(ACCESS_CODE, item(1L, user(5L)));
+        engine.addItem(ACCESS_CODE, item(2L, user(6L)));
+        SessionView before = engine.view(ACCESS_CODE);
+
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            engine.addItem(ACCESS_CODE, item(3L, user(7L)));
+            engine.removeItem(ACCESS_CODE, 1L);
+            engine.leave(ACCESS_CODE, 6L);
+        });
+
+        assertSame(before, engine.view(ACCESS_CODE));
+        // Nada foi descartado: a sessão não é hidratada de novo
+        verify(sessionRepository, never()).findForHydrationByAccessCode(any());
+    }
+
+    @Test
+    void register_SessaoCriadaEmTransacaoDesfeitaNaoEntraEmMemoria() {
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> engine.register(session));
+        when(sessionRepository.findForHydrationByAccessCode(ACCESS_CODE)).thenReturn(Optional.empty());
+
+        assertThrows(SessionNotFoundException.class, () -> engine.view(ACCESS_CODE));
+    }
+
+    // Toca a primeira da fila justa, como o KaraokeService depois de apagá-la do banco
+    private Long playNext() {
+        Long itemId = engine.view(ACCESS_CODE).nowPlaying().queueItemId();
+        engine.removeItem(ACCESS_CODE, itemId);
+        return itemId;
+    }
+
+    // Roda as mutações com sincronização de transação ativa e simula o fim da transação
+    private static void inTransaction(int status, Runnable mutations) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            mutations.run();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) synchronization.afterCommit();
+                synchronization.afterCompletion(status);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static User user(Long id) {
+        User u = new User();
+        u.setId(id);
+        u.setUsername("user" + id);
+        return u;
+    }
+
+    private QueueItem item(Long id, User user) {
+        QueueItem qi = new QueueItem(session, user, new Song("V" + id, "Musica " + id, "Artista", "url"));
+        qi.setQueueItemId(id);
+        return qi;
+    }
+
+    // --- Lógica original do KaraokeService, aplicada à entidade ---
+
+    private static void legacyAdd(KaraokeSession s, QueueItem qi) {
+        s.getSongQueue().add(qi);
+        String uid = FairQueueIndex.userIdOf(qi);
+        List<String> rotation = s.getRotationUserIds();
+        if (rotation.isEmpty()) {
+            s.addToRotation(uid);
+            s.setNextUserIndex(0);
+        } else if (!uid.isEmpty() && !rotation.contains(uid)) {
+            s.addToRotation(uid);
+        }
+    }
+
+    private static void legacyDelete(FilaService filaService, KaraokeSession s, QueueItem qi) {
+        List<QueueItem> fairOrder = filaService.computeFairOrder(s);
+        if (!fairOrder.isEmpty() && fairOrder.get(0) == qi) advancePast(s, qi);
+        s.getSongQueue().remove(qi);
+    }
+
+    private static QueueItem legacyPlayNext(FilaService filaService, KaraokeSession s) {
+        QueueItem next = filaService.computeFairOrder(s).get(0);
+        advancePast(s, next);
+        s.getSongQueue().remove(next);
+        return next;
+    }
+
+    private static void advancePast(KaraokeSession s, QueueItem qi) {
+        int idx = s.getRotationUserIds().indexOf(FairQueueIndex.userIdOf(qi));
+        if (idx != -1) s.setNextUserIndex((idx + 1) % s.getRotationUserIds().size());
+    }
+}
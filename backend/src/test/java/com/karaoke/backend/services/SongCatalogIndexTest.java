@@ -0,0 +1,88 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.repositories.SongRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SongCatalogIndexTest {
+
+    private SongRepository songRepository;
+    private SongCatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        songRepository = mock(SongRepository.class);
+        index = new SongCatalogIndex(songRepository);
+    }
+
+    @Test
+    void load_shouldIndexEverySongInTheRepository() {
+        when(songRepository.findAll()).thenReturn(List.of(
+                new Song("ID_1", "Evidências", "Chitãozinho & Xororó", ""),
+                new Song("ID_2", "Trem-Bala", "Ana Vilela", "")));
+
+        index.load();
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("ID_2"), ids(index.search("vilela", 10)));
+    }
+
+    @Test
+    void search_shouldIgnoreAccentsAndCase() {
+        index.add(new Song("ID_1", "Evidências", "Chitãozinho & Xororó", ""));
+
+        assertEquals(List.of("ID_1"), ids(index.search("EVIDENCIAS", 10)));
+        assertEquals(List.of("ID_1"), ids(index.search("chitaozinho xororo", 10)));
+    }
+
+    @Test
+    void search_shouldMatchPrefixesAndRequireEveryTerm() {
+        index.add(new Song("ID_1", "Evidências", "Chitãozinho & Xororó", ""));
+        index.add(new Song("ID_2", "Evidências (Ao Vivo)", "Artista Desconhecido", ""));
+        index.add(new Song("ID_3", "Ainda Bem", "Marisa Monte", ""));
+
+        assertEquals(List.of("ID_1", "ID_2"), ids(index.search("evid", 10)));
+        assertEquals(List.of("ID_2"), ids(index.search("evid vivo", 10)));
+        assertTrue(index.search("evid monte", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldRankExactTermsBeforePrefixes() {
+        index.add(new Song("ID_1", "Amor Perfeito", "Roberto Carlos", ""));
+        index.add(new Song("ID_2", "Amo", "Vanessa", ""));
+
+        assertEquals(List.of("ID_2", "ID_1"), ids(index.search("amo", 10)));
+    }
+
+    @Test
+    void search_shouldIgnoreNoiseWordsAndDefaultArtist() {
+        index.add(new Song("ID_1", "Garota de Ipanema", "Artista Desconhecido", ""));
+
+        assertEquals(List.of("ID_1"), ids(index.search("garota+ipanema+karaoke", 10)));
+        assertTrue(index.search("artista", 10).isEmpty());
+        assertTrue(index.search("karaoke", 10).isEmpty());
+    }
+
+    @Test
+    void add_shouldReplaceTermsWhenSameVideoIsIndexedAgain() {
+        index.add(new Song("ID_1", "Titulo Antigo", "Artista Desconhecido", ""));
+        index.add(new Song("ID_1", "Titulo Novo", "Artista Desconhecido", ""));
+
+        assertEquals(1, index.size());
+        assertTrue(index.search("antigo", 10).isEmpty());
+        assertEquals("Titulo Novo", index.search("novo", 10).get(0).getTitle());
+    }
+
+    private static List<String> ids(List<YouTubeVideoDTO> videos) {
+        return videos.stream().map(YouTubeVideoDTO::getVideoId).toList();
+    }
+}
@@ -0,0 +1,163 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.models.Song;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upsert das músicas contra o esquema das migrações (H2 em modo PostgreSQL, por causa do
+ * ON CONFLICT). Sem transação no teste: cada chamada ao serviço faz o próprio commit, como
+ * em dois pedidos de convidados diferentes.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:songs;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SongService.class, SongCatalogIndex.class, SongSuggestionIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SongServiceTest {
+
+    @Autowired
+    private SongService songService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SongSuggestionIndex suggestionIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        jdbcTemplate.update("delete from song");
+    }
+
+    @Test
+    void createSongFromVideo_ShouldReuseExistingRow() {
+        jdbcTemplate.update("insert into song (song_id, youtube_video_id, title, artist, url) values (7, 'V_EXISTE', 'Evidências', 'Chitãozinho & Xororó', '')");
+
+        Song song = songService.createSongFromVideo(video("V_EXISTE"));
+
+        assertEquals(7L, song.getSongId());
+        assertEquals("Chitãozinho & Xororó", song.getArtist());
+        assertEquals(1, rows("V_EXISTE"));
+    }
+
+    @Test
+    void createSongFromVideo_ShouldCreateOneRow_WhenGuestsAddSameVideoAtOnce() throws Exception {
+        int guests = 8;
+        CyclicBarrier start = new CyclicBarrier(guests);
+        List<CompletableFuture<Song>> requests = new ArrayList<>();
+        for (int i = 0; i < guests; i++) {
+            requests.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                return songService.createSongFromVideo(video("V_CONCORRENTE"));
+            }, executor));
+        }
+
+        Long songId = requests.get(0).get(10, TimeUnit.SECONDS).getSongId();
+        for (CompletableFuture<Song> request : requests) {
+            assertEquals(songId, request.get(10, TimeUnit.SECONDS).getSongId());
+        }
+        assertEquals(1, rows("V_CONCORRENTE"));
+    }
+
+    @Test
+    void createSongFromVideo_ShouldNotTouchDatabase_WhenSongIsCached() {
+        Song first = songService.createSongFromVideo(video("V_CACHE"));
+        // Sem a linha no banco, só o cache pode responder
+        jdbcTemplate.update("delete from song where youtube_video_id = 'V_CACHE'");
+
+        Song again = songService.createSongFromVideo(video("V_CACHE"));
+
+        assertEquals(first.getSongId(), again.getSongId());
+        assertEquals(0, rows("V_CACHE"));
+    }
+
+    @Test
+    void createSongFromVideo_ShouldNotCacheSong_WhenTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            songService.createSongFromVideo(video("V_ROLLBACK"));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, rows("V_ROLLBACK"));
+
+        Song song = songService.createSongFromVideo(video("V_ROLLBACK"));
+
+        assertEquals(1, rows("V_ROLLBACK"));
+        assertEquals(song.getSongId(), jdbcTemplate.queryForObject(
+                "select song_id from song where youtube_video_id = 'V_ROLLBACK'", Long.class));
+    }
+
+    @Test
+    void createSongFromVideo_ShouldNotRecordSuggestion_WhenTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            songService.createSongFromVideo(video("V_SUGGEST"));
+            status.setRollbackOnly();
+        });
+        assertTrue(suggestionIndex.suggest("Título V_SUGGEST", 5).isEmpty());
+
+        songService.createSongFromVideo(video("V_SUGGEST"));
+
+        assertEquals(1, suggestionIndex.suggest("Título V_SUGGEST", 5).size());
+    }
+
+    @Test
+    void createSongsFromVideos_ShouldUpsertInOrder_WithoutDuplicates() {
+        Song existing = songService.createSongFromVideo(video("V_A"));
+
+        List<Song> songs = songService.createSongsFromVideos(List.of(video("V_B"), video("V_A"), video("V_C"), video("V_B")));
+
+        assertEquals(List.of("V_B", "V_A", "V_C", "V_B"), songs.stream().map(Song::getYoutubeVideoId).toList());
+        assertEquals(existing.getSongId(), songs.get(1).getSongId());
+        assertEquals(songs.get(0).getSongId(), songs.get(3).getSongId());
+        assertEquals(1, rows("V_B"));
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from song", Integer.class));
+    }
+
+    private int rows(String videoId) {
+        return jdbcTemplate.queryForObject("select count(*) from song where youtube_video_id = ?", Integer.class, videoId);
+    }
+
+    private static YouTubeVideoDTO video(String videoId) {
+        return new YouTubeVideoDTO(videoId, "Título " + videoId, "http://thumb.url", true);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
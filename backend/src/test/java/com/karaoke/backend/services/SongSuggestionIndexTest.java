@@ -0,0 +1,125 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.dtos.SuggestionDTO;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.repositories.SongRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SongSuggestionIndexTest {
+
+    private SongRepository songRepository;
+    private SongSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        songRepository = mock(SongRepository.class);
+        index = new SongSuggestionIndex(songRepository, 1000);
+    }
+
+    @Test
+    void load_shouldSuggestEverySongTitle() {
+        when(songRepository.findAll()).thenReturn(List.of(
+                new Song("ID_1", "Evidências", "Chitãozinho & Xororó", ""),
+                new Song("ID_2", "Trem-Bala", "Ana Vilela", "")));
+
+        index.load();
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(new SuggestionDTO("Trem-Bala", "ID_2")), index.suggest("tre", 10));
+    }
+
+    @Test
+    void suggest_shouldIgnoreAccentsAndCase() {
+        index.recordSong(new Song("ID_1", "Evidências", "Chitãozinho & Xororó", ""));
+
+        assertEquals(List.of("Evidências"), texts(index.suggest("EVIDÊN", 10)));
+        assertEquals(List.of("Evidências"), texts(index.suggest("evidencias", 10)));
+    }
+
+    @Test
+    void suggest_shouldMatchTitleFromAnyOfItsFirstWords() {
+        index.recordSong(new Song("ID_1", "Chitãozinho & Xororó - Evidências ao Vivo em Goiânia (Karaokê)", "Artista Desconhecido", ""));
+
+        assertEquals(List.of("ID_1"), videoIds(index.suggest("evid", 10)));
+        assertEquals(List.of("ID_1"), videoIds(index.suggest("xororo evi", 10)));
+        assertTrue(index.suggest("goiania", 10).isEmpty(), "Palavras depois das primeiras não iniciam sugestão");
+    }
+
+    @Test
+    void suggest_shouldRankByFrequency() {
+        index.recordQuery("tempo perdido");
+        index.recordSong(new Song("ID_1", "Tente Outra Vez", "Raul Seixas", ""));
+        index.recordQuery("telefone mudo");
+        index.recordQuery("telefone mudo");
+        index.recordQuery("Telefone  Mudo ");
+
+        List<SuggestionDTO> result = index.suggest("te", 10);
+
+        assertEquals("telefone mudo", result.get(0).text());
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void suggest_shouldSplitSharedEdgesWithoutLosingSuggestions() {
+        index.recordQuery("trem bala");
+        index.recordQuery("tremendo vacilao");
+        index.recordQuery("tres palavras");
+
+        assertEquals(3, index.suggest("tr", 10).size());
+        assertEquals(2, index.suggest("trem", 10).size());
+        assertEquals(List.of("trem bala"), texts(index.suggest("trem ", 10)));
+        assertEquals(List.of("tres palavras"), texts(index.suggest("tres", 10)));
+        assertTrue(index.suggest("trx", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_shouldAttachVideoId_whenQueryBecomesASong() {
+        index.recordQuery("evidencias");
+        index.recordSong(new Song("ID_1", "Evidências", "Artista Desconhecido", ""));
+
+        assertEquals(List.of(new SuggestionDTO("Evidências", "ID_1")), index.suggest("evi", 10));
+    }
+
+    @Test
+    void suggest_shouldKeepOnlyTopEntries_andRespectLimit() {
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j <= i; j++) index.recordQuery("musica " + i);
+        }
+
+        List<SuggestionDTO> top = index.suggest("mus", 100);
+
+        assertEquals(SongSuggestionIndex.TOP_K, top.size());
+        assertEquals("musica 29", top.get(0).text());
+        assertEquals("musica 20", top.get(9).text());
+        assertEquals(3, index.suggest("mus", 3).size());
+    }
+
+    @Test
+    void record_shouldStopAddingNewEntries_whenFull() {
+        index = new SongSuggestionIndex(songRepository, 2);
+        index.recordQuery("um");
+        index.recordQuery("dois");
+        index.recordQuery("tres");
+        index.recordQuery("um");
+
+        assertEquals(2, index.size());
+        assertTrue(index.suggest("tres", 10).isEmpty());
+        assertEquals(List.of("um"), texts(index.suggest("u", 10)));
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::text).toList();
+    }
+
+    private static List<String> videoIds(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::videoId).toList();
+    }
+}
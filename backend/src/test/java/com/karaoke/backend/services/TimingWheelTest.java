@@ -0,0 +1,100 @@
+package com.karaoke.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+
+    @Test
+    void advance_DeveEntregarAChaveNoPrazo() {
+        wheel.schedule("ABC123", START + 5 * TICK);
+
+        assertTrue(wheel.advance(START + 5 * TICK - 1).isEmpty());
+        assertEquals(List.of("ABC123"), wheel.advance(START + 5 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_DeveAdiarOPrazo_QuandoHaNovaAtividade() {
+        wheel.schedule("ABC123", START + 10 * TICK);
+        wheel.schedule("ABC123", START + 100 * TICK);
+        // Prazo mais curto não antecipa a expiração
+        wheel.schedule("ABC123", START + 3 * TICK);
+
+        assertTrue(wheel.advance(START + 99 * TICK).isEmpty());
+        assertEquals(List.of("ABC123"), wheel.advance(START + 100 * TICK));
+    }
+
+    @Test
+    void cancel_DeveTirarAChaveDaRoda() {
+        wheel.schedule("ABC123", START + 2 * TICK);
+        wheel.cancel("ABC123");
+
+        assertTrue(wheel.advance(START + 10 * TICK).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_PrazoJaVencido_DeveSairNoProximoAvanco() {
+        wheel.schedule("ABC123", START - 60 * TICK);
+
+        assertEquals(List.of("ABC123"), wheel.advance(START));
+    }
+
+    // 6 horas em ticks de 1 s passam pelos níveis de cima e descem até o nível 0
+    @Test
+    void advance_PrazoDistante_DeveDescerOsNiveisEVencerNoTickCerto() {
+        long sixHours = 6 * 60 * 60 * TICK;
+        wheel.schedule("ABC123", START + sixHours);
+
+        assertTrue(wheel.advance(START + sixHours - TICK).isEmpty());
+        assertEquals(List.of("ABC123"), wheel.advance(START + sixHours));
+    }
+
+    // Além do alcance do último nível (64^4 ticks): a chave é recolocada até o prazo chegar
+    @Test
+    void advance_PrazoAlemDoUltimoNivel_NaoDeveVencerAntes() {
+        long beyond = 20_000_000L * TICK;
+        TimingWheel<String> coarse = new TimingWheel<>(TICK, 0);
+        coarse.schedule("ABC123", beyond);
+
+        assertTrue(coarse.advance(beyond - TICK).isEmpty());
+        assertEquals(List.of("ABC123"), coarse.advance(beyond));
+    }
+
+    @Test
+    void advance_DeveEntregarCadaChaveUmaVezNoSeuTick() {
+        Random random = new Random(42);
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = START + random.nextLong(300_000 * TICK);
+            expected.put("S" + i, Math.ceilDiv(deadline, TICK));
+            wheel.schedule("S" + i, deadline);
+        }
+
+        List<String> delivered = new ArrayList<>();
+        for (long now = START; now <= START + 300_000 * TICK; now += 7 * TICK) {
+            for (String key : wheel.advance(now)) {
+                long tick = expected.get(key);
+                assertTrue(tick <= now / TICK && tick > (now - 7 * TICK) / TICK, key);
+                delivered.add(key);
+            }
+        }
+        assertEquals(expected.size(), delivered.size());
+        assertEquals(expected.keySet(), new HashSet<>(delivered));
+        assertEquals(0, wheel.size());
+    }
+}
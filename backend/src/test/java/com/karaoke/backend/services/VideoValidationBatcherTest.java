@@ -0,0 +1,119 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.models.VideoValidation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoValidationBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fetch_shouldJoinConcurrentSearchesInOneCall() throws Exception {
+        VideoValidationBatcher batcher = new VideoValidationBatcher(this::fetchAll, executor, 200, meterRegistry);
+
+        List<CompletableFuture<Map<String, VideoValidation>>> searches = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<String> ids = ids("S" + s + "_", 10);
+            searches.add(CompletableFuture.supplyAsync(() -> batcher.fetch(ids), executor));
+        }
+
+        for (CompletableFuture<Map<String, VideoValidation>> search : searches) {
+            assertEquals(10, search.get(5, TimeUnit.SECONDS).size());
+        }
+        assertEquals(1, calls.size());
+        assertEquals(30, calls.get(0).size());
+        assertEquals(30.0, meterRegistry.get("youtube.validation.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void fetch_shouldSplitInCallsOfAtMostFiftyIds_withoutWaitingForTheWindow() {
+        VideoValidationBatcher batcher = new VideoValidationBatcher(this::fetchAll, executor, 60_000, meterRegistry);
+
+        Map<String, VideoValidation> result = CompletableFuture.supplyAsync(() -> batcher.fetch(ids("V", 100)), executor)
+                .orTimeout(5, TimeUnit.SECONDS)
+                .join();
+
+        assertEquals(100, result.size());
+        assertEquals(List.of(50, 50), calls.stream().map(List::size).toList());
+    }
+
+    @Test
+    void fetch_shouldAskForSharedIdsOnlyOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> started = new CopyOnWriteArrayList<>();
+        VideoValidationBatcher batcher = new VideoValidationBatcher(ids -> {
+            started.add(ids);
+            await(release);
+            return fetchAll(ids);
+        }, executor, 0, meterRegistry);
+
+        CompletableFuture<Map<String, VideoValidation>> first = CompletableFuture.supplyAsync(() -> batcher.fetch(List.of("A", "B")), executor);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (started.isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        // A chamada de A e B ainda não voltou: a segunda busca espera por ela e só pede C
+        CompletableFuture<Map<String, VideoValidation>> second = CompletableFuture.supplyAsync(() -> batcher.fetch(List.of("B", "C")), executor);
+        while (meterRegistry.get("youtube.validation.batch.shared").counter().count() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).size());
+        assertEquals(Set.of(List.of("A", "B"), List.of("C")), Set.copyOf(calls));
+    }
+
+    @Test
+    void fetch_shouldPropagateFailureToEveryWaitingSearch() {
+        VideoValidationBatcher batcher = new VideoValidationBatcher(ids -> {
+            throw new YoutubeService.YoutubeUnavailableException("timeout", null);
+        }, executor, 0, meterRegistry);
+
+        assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> batcher.fetch(List.of("A")));
+        // Depois da falha o ID pode ser pedido de novo
+        assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> batcher.fetch(List.of("A")));
+    }
+
+    private Map<String, VideoValidation> fetchAll(List<String> ids) {
+        calls.add(ids);
+        Map<String, VideoValidation> result = new HashMap<>();
+        ids.forEach(id -> result.put(id, new VideoValidation(id, true, "", 200L)));
+        return result;
+    }
+
+    private static List<String> ids(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.karaoke.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karaoke.backend.dtos.YoutubeVideoListResponse;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YoutubeApiClientTest {
+
+    private HttpServer server;
+    private YoutubeApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/ok", exchange -> respond(exchange, 200,
+                "{\"kind\":\"youtube#videoListResponse\",\"etag\":\"x\",\"items\":[{\"kind\":\"youtube#video\",\"id\":\"VIDEO_A\","
+                        + "\"status\":{\"uploadStatus\":\"processed\",\"embeddable\":true},"
+                        + "\"contentDetails\":{\"duration\":\"PT4M5S\",\"regionRestriction\":{\"blocked\":[\"BR\"]}}}]}"));
+        server.createContext("/quota-exceeded", exchange -> respond(exchange, 403,
+                "{\"error\":{\"code\":403,\"errors\":[{\"reason\":\"quotaExceeded\"}]}}"));
+        server.createContext("/quota", exchange -> respond(exchange, 403, "{\"error\":{\"code\":403}}"));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "{}");
+        });
+        server.start();
+        client = new YoutubeApiClient(new ObjectMapper(), 500, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void get_shouldDecodeOnlyTheFieldsWeUse() {
+        YoutubeVideoListResponse response = client.get(url("/ok"), YoutubeVideoListResponse.class);
+
+        YoutubeVideoListResponse.Item item = response.items().get(0);
+        assertEquals("VIDEO_A", item.id());
+        assertTrue(item.embeddable());
+        assertEquals(List.of("BR"), item.blockedRegions());
+        assertEquals("PT4M5S", item.duration());
+    }
+
+    @Test
+    void get_shouldReportQuotaErrors() {
+        assertThrows(YoutubeQuotaExceededException.class, () -> client.get(url("/quota-exceeded"), YoutubeVideoListResponse.class));
+    }
+
+    @Test
+    void get_shouldFail_whenApiReturnsError() {
+        YoutubeService.YoutubeUnavailableException e =
+                assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> client.get(url("/quota"), YoutubeVideoListResponse.class));
+        assertTrue(e.getMessage().contains("403"));
+    }
+
+    @Test
+    void get_shouldGiveUp_whenResponseTakesLongerThanTimeout() {
+        long start = System.nanoTime();
+
+        assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> client.get(url("/slow"), YoutubeVideoListResponse.class));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1500, "Deveria respeitar o timeout de resposta");
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
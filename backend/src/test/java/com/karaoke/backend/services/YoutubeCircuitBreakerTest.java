@@ -0,0 +1,131 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.services.YoutubeCircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YoutubeCircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-03-10T17:00:00Z"));
+    private final YoutubeCircuitBreaker breaker = new YoutubeCircuitBreaker(clock, meterRegistry, 3, 30_000);
+
+    @Test
+    void call_shouldOpenAfterConsecutiveFailures_andRejectWithoutCalling() {
+        fail(3);
+        assertEquals(State.OPEN, breaker.state());
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> breaker.call(calls::incrementAndGet));
+
+        assertEquals(0, calls.get());
+        assertEquals(1.0, meterRegistry.get("youtube.circuit.opened").counter().count());
+        assertEquals(1.0, meterRegistry.get("youtube.circuit.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("youtube.circuit.state").gauge().value());
+    }
+
+    @Test
+    void call_shouldResetFailureCount_onSuccess() {
+        fail(2);
+        breaker.call(() -> "ok");
+        fail(2);
+
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_shouldCloseAfterSuccessfulProbe_whenOpenPeriodEnds() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(State.HALF_OPEN, breaker.state());
+
+        assertEquals("ok", breaker.call(() -> "ok"));
+
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_shouldReopen_whenProbeFails() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(30));
+
+        fail(1);
+
+        assertEquals(State.OPEN, breaker.state());
+        assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> breaker.call(() -> "ok"));
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals("ok", breaker.call(() -> "ok"));
+    }
+
+    @Test
+    void call_shouldAllowSingleProbe_whileHalfOpen() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(30));
+
+        // A chamada de teste ainda não terminou: as demais falham na hora
+        String result = breaker.call(() -> {
+            assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> breaker.call(() -> "outra"));
+            return "probe";
+        });
+
+        assertEquals("probe", result);
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_shouldNotCountQuotaErrorsAsFailures() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(YoutubeQuotaExceededException.class, () -> breaker.call(() -> {
+                throw new YoutubeQuotaExceededException("quotaExceeded", Duration.ZERO);
+            }));
+        }
+
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> breaker.call(() -> {
+                throw new YoutubeService.YoutubeUnavailableException("timeout", null);
+            }));
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
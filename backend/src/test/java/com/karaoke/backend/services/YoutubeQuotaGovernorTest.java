@@ -0,0 +1,145 @@
+package com.karaoke.backend.services;
+
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.services.YoutubeQuotaGovernor.CallType;
+import com.karaoke.backend.services.YoutubeQuotaGovernor.Stage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YoutubeQuotaGovernorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_shouldChargeUnitsPerCallType() {
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(meterRegistry, 1_000, 20, 1_000, 600, 0);
+
+        governor.acquire(CallType.SEARCH);
+        governor.acquire(CallType.VIDEOS);
+
+        assertEquals(899, governor.remaining());
+        assertEquals(899.0, meterRegistry.get("youtube.quota.remaining").gauge().value());
+        assertEquals(Stage.NORMAL, governor.stage());
+    }
+
+    @Test
+    void acquire_shouldRejectUntilPacificMidnight_whenDailyQuotaIsSpent() {
+        // 10h da manhã em Los Angeles
+        MutableClock clock = new MutableClock(Instant.parse("2025-03-10T17:00:00Z"));
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(clock, meterRegistry, 200, 20, 1_000, 600_000, 0);
+        governor.acquire(CallType.SEARCH);
+        governor.acquire(CallType.SEARCH);
+
+        YoutubeQuotaExceededException e = assertThrows(YoutubeQuotaExceededException.class, () -> governor.acquire(CallType.SEARCH));
+        assertEquals(Duration.ofHours(14), e.getRetryAfter());
+        assertEquals(Stage.EXHAUSTED, governor.stage());
+        assertEquals(1.0, meterRegistry.get("youtube.quota.rejected").counter().count());
+
+        clock.advance(Duration.ofHours(14));
+        governor.acquire(CallType.SEARCH);
+        assertEquals(100, governor.remaining());
+    }
+
+    @Test
+    void acquire_shouldQueueUntilBucketRefills() {
+        // 100 unidades de balde, repostas a 60.000/min (100 a cada 100ms)
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(meterRegistry, 10_000, 20, 100, 60_000, 2_000);
+        governor.acquire(CallType.SEARCH);
+        assertEquals(Stage.QUEUEING, governor.stage());
+
+        long start = System.nanoTime();
+        governor.acquire(CallType.SEARCH);
+
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 50, "Deveria ter esperado o balde reabastecer");
+        assertEquals(1.0, meterRegistry.get("youtube.quota.queued").counter().count());
+        assertEquals(9_800, governor.remaining());
+    }
+
+    @Test
+    void acquire_shouldReject_whenWaitWouldExceedLimit() {
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(meterRegistry, 10_000, 20, 100, 60, 100);
+        governor.acquire(CallType.SEARCH);
+
+        YoutubeQuotaExceededException e = assertThrows(YoutubeQuotaExceededException.class, () -> governor.acquire(CallType.SEARCH));
+        assertTrue(e.getRetryAfter().toSeconds() > 60);
+    }
+
+    @Test
+    void stage_shouldEnterSavingBelowThreshold() {
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(meterRegistry, 1_000, 85, 1_000, 600, 0);
+
+        governor.acquire(CallType.SEARCH);
+        assertEquals(Stage.NORMAL, governor.stage());
+        governor.acquire(CallType.SEARCH);
+        assertEquals(Stage.SAVING, governor.stage());
+    }
+
+    @Test
+    void health_shouldReportDegraded_whenQuotaIsExhausted() {
+        YoutubeQuotaGovernor governor = new YoutubeQuotaGovernor(meterRegistry, 1_000, 20, 1_000, 600, 0);
+        YoutubeQuotaHealthIndicator indicator = new YoutubeQuotaHealthIndicator(governor);
+
+        Health healthy = indicator.health();
+        assertEquals(Status.UP, healthy.getStatus());
+        assertEquals(1_000L, healthy.getDetails().get("remainingUnits"));
+
+        governor.markExhausted();
+        Health exhausted = indicator.health();
+        assertEquals("DEGRADED", exhausted.getStatus().getCode());
+        assertEquals(Stage.EXHAUSTED, exhausted.getDetails().get("stage"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            MutableClock parent = this;
+            return new Clock() {
+                @Override
+                public ZoneId getZone() {
+                    return zone;
+                }
+
+                @Override
+                public Clock withZone(ZoneId other) {
+                    return parent.withZone(other);
+                }
+
+                @Override
+                public Instant instant() {
+                    return parent.instant();
+                }
+            };
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,47 +1,88 @@
 package com.karaoke.backend.services;
 
 import com.karaoke.backend.dtos.YouTubeVideoDTO;
+import com.karaoke.backend.exception.YoutubeQuotaExceededException;
+import com.karaoke.backend.models.Song;
+import com.karaoke.backend.models.VideoValidation;
+import com.karaoke.backend.repositories.SongRepository;
+import com.karaoke.backend.repositories.VideoValidationRepository;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClientException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class YouTubeServiceTest {
 
-    @InjectMocks
     private YoutubeService youTubeService;
 
     @Mock
-    private RestTemplate restTemplate;
+    private YoutubeApiClient apiClient;
+
+    @Mock
+    private VideoValidationRepository validationRepository;
+
+    @Mock
+    private SongRepository songRepository;
+
+    private SongCatalogIndex catalogIndex;
+
+    private YoutubeQuotaGovernor quotaGovernor;
+
+    private YoutubeCircuitBreaker circuitBreaker;
+
+    private SimpleMeterRegistry meterRegistry;
 
     private final String MOCK_API_KEY = "TEST_API_KEY";
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        catalogIndex = new SongCatalogIndex(songRepository);
+        quotaGovernor = new YoutubeQuotaGovernor(meterRegistry, 10_000, 20, 10_000, 6_000, 100);
+        circuitBreaker = new YoutubeCircuitBreaker(meterRegistry, 2, 60_000);
+        youTubeService = new YoutubeService(apiClient, new VideoValidationCache(validationRepository, 7, 1000), catalogIndex, quotaGovernor, circuitBreaker, meterRegistry, 60, 4320, 1, 4, 3, 5);
         ReflectionTestUtils.setField(youTubeService, "apiKey", MOCK_API_KEY);
-        ReflectionTestUtils.setField(youTubeService, "restTemplate", restTemplate);
     }
 
     @Test
     void searchVideos_shouldReturnEmptyList_whenNoResultsFound() {
         Map<String, Object> emptySearchResponse = Map.of("items", Collections.emptyList());
-        when(restTemplate.getForObject(anyString(), eq(Map.class)))
-                .thenReturn(emptySearchResponse);
+        when(apiClient.get(anyString(), any()))
+                .then(typed(emptySearchResponse));
 
         List<YouTubeVideoDTO> result = youTubeService.searchVideos("query sem resultados");
 
@@ -69,10 +110,10 @@ class YouTubeServiceTest {
 
         // Define o comportamento do RestTemplate:
         // Primeira chamada (search.list)
-        when(restTemplate.getForObject(any(String.class), eq(Map.class)))
-                .thenReturn(searchResponse)
+        when(apiClient.get(any(String.class), any()))
+                .then(typed(searchResponse))
                 // Segunda chamada (videos.list)
-                .thenReturn(detailResponse);
+                .then(typed(detailResponse));
 
         // ACT
         List<YouTubeVideoDTO> result = youTubeService.searchVideos("Música Legal");
@@ -106,9 +147,9 @@ class YouTubeServiceTest {
         Map<String, Object> detailResponse = Map.of("items", List.of(detailItem));
 
         // Define o comportamento do RestTemplate
-        when(restTemplate.getForObject(any(String.class), eq(Map.class)))
-                .thenReturn(searchResponse)
-                .thenReturn(detailResponse);
+        when(apiClient.get(any(String.class), any()))
+                .then(typed(searchResponse))
+                .then(typed(detailResponse));
 
         // ACT
         List<YouTubeVideoDTO> result = youTubeService.searchVideos("query");
@@ -141,9 +182,9 @@ class YouTubeServiceTest {
         Map<String, Object> detailResponse = Map.of("items", List.of(detailItem));
 
         // Define o comportamento do RestTemplate
-        when(restTemplate.getForObject(any(String.class), eq(Map.class)))
-                .thenReturn(searchResponse)
-                .thenReturn(detailResponse);
+        when(apiClient.get(any(String.class), any()))
+                .then(typed(searchResponse))
+                .then(typed(detailResponse));
 
         // ACT
         List<YouTubeVideoDTO> result = youTubeService.searchVideos("query");
@@ -151,4 +192,415 @@ class YouTubeServiceTest {
         // ASSERT
         assertTrue(result.isEmpty(), "O vídeo deve ser filtrado por estar bloqueado para a região BR.");
     }
-}
\ No newline at end of file
+
+    // --- Cache de buscas ---
+
+    @Test
+    void searchVideos_shouldServeRepeatedNormalizedQueriesFromCache() {
+        Map<String, Object> searchResponse = Map.of("items", List.of(Map.of(
+                "id", Map.of("videoId", "VIDEO_A"),
+                "snippet", Map.of("title", "Evidências"))));
+        Map<String, Object> detailResponse = Map.of("items", List.of(Map.of(
+                "id", "VIDEO_A",
+                "status", Map.of("embeddable", true),
+                "contentDetails", Collections.emptyMap())));
+        when(apiClient.get(anyString(), any()))
+                .then(typed(searchResponse))
+                .then(typed(detailResponse));
+
+        List<YouTubeVideoDTO> first = youTubeService.searchVideos("evidências+karaoke");
+        List<YouTubeVideoDTO> second = youTubeService.searchVideos("  Evidências   KARAOKE ");
+
+        assertEquals(first, second);
+        // Só a primeira busca chamou a API (search + videos)
+        verify(apiClient, times(2)).get(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "youtube.search").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "youtube.search").tag("result", "miss").functionCounter().count());
+        assertTrue(meterRegistry.get("youtube.search.cache.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void searchVideos_shouldNotCacheApiFailures() {
+        Map<String, Object> searchResponse = Map.of("items", List.of(Map.of(
+                "id", Map.of("videoId", "VIDEO_A"),
+                "snippet", Map.of("title", "Música Legal A"))));
+        Map<String, Object> detailResponse = Map.of("items", List.of(Map.of(
+                "id", "VIDEO_A",
+                "status", Map.of("embeddable", true),
+                "contentDetails", Collections.emptyMap())));
+        when(apiClient.get(anyString(), any()))
+                .thenThrow(new RestClientException("timeout"))
+                .then(typed(searchResponse))
+                .then(typed(detailResponse));
+
+        assertTrue(youTubeService.searchVideos("query").isEmpty());
+        assertEquals(1, youTubeService.searchVideos("query").size());
+    }
+
+    // --- Cache de validação por videoId ---
+
+    @Test
+    void searchVideos_shouldOnlyValidateUnknownVideoIds() {
+        when(apiClient.get(contains("/search"), any()))
+                .then(typed(searchResponse("VIDEO_A")))
+                .then(typed(searchResponse("VIDEO_A", "VIDEO_B")));
+        when(apiClient.get(contains("/videos"), any()))
+                .then(typed(detailResponse("VIDEO_A")))
+                .then(typed(detailResponse("VIDEO_B")));
+
+        youTubeService.searchVideos("primeira busca");
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("segunda busca");
+
+        assertEquals(List.of("VIDEO_A", "VIDEO_B"), result.stream().map(YouTubeVideoDTO::getVideoId).toList());
+        ArgumentCaptor<String> urls = ArgumentCaptor.forClass(String.class);
+        verify(apiClient, times(4)).get(urls.capture(), any());
+        List<String> videosCalls = urls.getAllValues().stream().filter(url -> url.contains("/videos")).toList();
+        assertEquals(2, videosCalls.size());
+        assertTrue(videosCalls.get(1).contains("id=VIDEO_B"));
+        assertFalse(videosCalls.get(1).contains("VIDEO_A"));
+        verify(validationRepository, times(2)).saveAll(anyCollection());
+    }
+
+    @Test
+    void searchVideos_shouldSkipVideosCall_whenAllIdsAreKnown() {
+        VideoValidation known = new VideoValidation("VIDEO_A", true, "", 245L);
+        VideoValidation blocked = new VideoValidation("VIDEO_C", true, "AR,BR", 180L);
+        when(validationRepository.findAllById(any())).thenReturn(List.of(known, blocked));
+        when(apiClient.get(contains("/search"), any()))
+                .then(typed(searchResponse("VIDEO_A", "VIDEO_C")));
+
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("query");
+
+        assertEquals(List.of("VIDEO_A"), result.stream().map(YouTubeVideoDTO::getVideoId).toList());
+        verify(apiClient, never()).get(contains("/videos"), any());
+    }
+
+    @Test
+    void searchVideos_shouldRevalidate_whenStoredValidationExpired() {
+        VideoValidation expired = new VideoValidation("VIDEO_A", true, "", 245L);
+        expired.setCheckedAt(LocalDateTime.now().minusDays(30));
+        when(validationRepository.findAllById(any())).thenReturn(List.of(expired));
+        when(apiClient.get(contains("/search"), any())).then(typed(searchResponse("VIDEO_A")));
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+
+        assertEquals(1, youTubeService.searchVideos("query").size());
+        verify(apiClient, times(1)).get(contains("/videos"), any());
+    }
+
+    // --- Single-flight ---
+
+    @Test
+    void searchVideos_shouldShareOneApiCall_whenIdenticalSearchesRunConcurrently() throws Exception {
+        int guests = 8;
+        CountDownLatch apiCalled = new CountDownLatch(1);
+        CountDownLatch releaseApi = new CountDownLatch(1);
+        when(apiClient.get(contains("/search"), any())).thenAnswer(invocation -> {
+            apiCalled.countDown();
+            releaseApi.await(5, TimeUnit.SECONDS);
+            return typed(searchResponse("VIDEO_A")).answer(invocation);
+        });
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+
+        ExecutorService pool = Executors.newFixedThreadPool(guests);
+        try {
+            List<Future<List<YouTubeVideoDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < guests; i++) {
+                String typed = i % 2 == 0 ? "Evidências Karaoke" : " evidências  karaoke";
+                results.add(pool.submit(() -> youTubeService.searchVideos(typed)));
+            }
+
+            // Segura a primeira chamada até todas as outras estarem esperando por ela
+            assertTrue(apiCalled.await(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescedCount() < guests - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            releaseApi.countDown();
+
+            for (Future<List<YouTubeVideoDTO>> result : results) {
+                assertEquals("VIDEO_A", result.get(5, TimeUnit.SECONDS).get(0).getVideoId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(apiClient, times(1)).get(contains("/search"), any());
+        verify(apiClient, times(1)).get(contains("/videos"), any());
+        assertEquals(guests - 1, coalescedCount());
+        assertEquals(1.0, meterRegistry.get("youtube.search.inflight.requests").tag("result", "leader").counter().count());
+        assertEquals(0, meterRegistry.get("youtube.search.inflight").gauge().value());
+    }
+
+    @Test
+    void searchVideos_shouldPropagateFailureToWaitersAndRetryAfterwards() throws Exception {
+        CountDownLatch apiCalled = new CountDownLatch(1);
+        CountDownLatch releaseApi = new CountDownLatch(1);
+        when(apiClient.get(contains("/search"), any()))
+                .thenAnswer(invocation -> {
+                    apiCalled.countDown();
+                    releaseApi.await(5, TimeUnit.SECONDS);
+                    throw new RestClientException("quota");
+                })
+                .then(typed(searchResponse("VIDEO_A")));
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<YouTubeVideoDTO>> first = pool.submit(() -> youTubeService.searchVideos("query"));
+            assertTrue(apiCalled.await(5, TimeUnit.SECONDS));
+            Future<List<YouTubeVideoDTO>> second = pool.submit(() -> youTubeService.searchVideos("query"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescedCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            releaseApi.countDown();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS).isEmpty());
+            assertTrue(second.get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // A falha não fica registrada: a próxima busca vai de novo à API
+        assertEquals(1, youTubeService.searchVideos("query").size());
+        verify(apiClient, times(2)).get(contains("/search"), any());
+    }
+
+    // --- Assíncrono ---
+
+    @Test
+    void searchVideosAsync_shouldRunOnVirtualThreadsAndLimitConcurrency() throws Exception {
+        youTubeService = new YoutubeService(apiClient, new VideoValidationCache(validationRepository, 7, 1000), catalogIndex, quotaGovernor, circuitBreaker, meterRegistry, 60, 4320, 1, 1, 3, 5);
+        CountDownLatch firstCalled = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Boolean> virtualThreads = Collections.synchronizedList(new ArrayList<>());
+        when(apiClient.get(contains("/search"), any())).thenAnswer(invocation -> {
+            virtualThreads.add(Thread.currentThread().isVirtual());
+            firstCalled.countDown();
+            releaseFirst.await(5, TimeUnit.SECONDS);
+            return typed(searchResponse("VIDEO_A")).answer(invocation);
+        });
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+
+        CompletableFuture<List<YouTubeVideoDTO>> first = youTubeService.searchVideosAsync("primeira");
+        assertTrue(firstCalled.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<YouTubeVideoDTO>> second = youTubeService.searchVideosAsync("segunda");
+
+        // Com uma única permissão, a segunda busca espera a primeira terminar
+        Thread.sleep(100);
+        verify(apiClient, times(1)).get(contains("/search"), any());
+        assertFalse(second.isDone());
+
+        releaseFirst.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, second.get(5, TimeUnit.SECONDS).size());
+        assertEquals(List.of(true, true), virtualThreads);
+    }
+
+    // --- Catálogo local ---
+
+    @Test
+    void searchVideos_shouldAnswerFromLocalCatalog_whenEnoughSongsMatch() {
+        catalogIndex.add(new Song("LOCAL_1", "Evidências - Chitãozinho & Xororó", "Artista Desconhecido", ""));
+        catalogIndex.add(new Song("LOCAL_2", "Evidências (Ao Vivo)", "Artista Desconhecido", ""));
+        catalogIndex.add(new Song("LOCAL_3", "Evidencias Karaoke Versão", "Artista Desconhecido", ""));
+
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("evidencias+karaoke");
+
+        assertEquals(3, result.size());
+        verify(apiClient, never()).get(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("youtube.search.local").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void searchVideos_shouldCompleteWithYoutube_whenLocalHitsAreTooFew() {
+        catalogIndex.add(new Song("VIDEO_A", "Evidências", "Artista Desconhecido", ""));
+        when(apiClient.get(contains("/search"), any())).then(typed(searchResponse("VIDEO_A", "VIDEO_B")));
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A", "VIDEO_B")));
+
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("evidências karaoke");
+
+        // O local vem primeiro e o mesmo vídeo não aparece duas vezes
+        assertEquals(List.of("VIDEO_A", "VIDEO_B"), result.stream().map(YouTubeVideoDTO::getVideoId).toList());
+        assertEquals("Evidências", result.get(0).getTitle());
+        assertEquals(1.0, meterRegistry.get("youtube.search.local").tag("result", "fallback").counter().count());
+    }
+
+    // --- Cota da API ---
+
+    @Test
+    void searchVideos_shouldSpendQuotaPerCallType() {
+        when(apiClient.get(contains("/search"), any())).then(typed(searchResponse("VIDEO_A")));
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+
+        youTubeService.searchVideos("query");
+
+        assertEquals(10_000 - 101, quotaGovernor.remaining());
+        assertEquals(100.0, meterRegistry.get("youtube.quota.units.spent").tag("call", "search").counter().count());
+        assertEquals(1.0, meterRegistry.get("youtube.quota.units.spent").tag("call", "videos").counter().count());
+    }
+
+    @Test
+    void searchVideos_shouldPreferLocalCatalog_whenQuotaIsLow() {
+        quotaGovernor = new YoutubeQuotaGovernor(meterRegistry, 1_000, 95, 10_000, 6_000, 100);
+        youTubeService = new YoutubeService(apiClient, new VideoValidationCache(validationRepository, 7, 1000), catalogIndex, quotaGovernor, circuitBreaker, meterRegistry, 60, 4320, 1, 4, 3, 5);
+        quotaGovernor.acquire(YoutubeQuotaGovernor.CallType.SEARCH);
+        catalogIndex.add(new Song("LOCAL_1", "Evidências", "Artista Desconhecido", ""));
+
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("evidencias");
+
+        assertEquals(List.of("LOCAL_1"), result.stream().map(YouTubeVideoDTO::getVideoId).toList());
+        verify(apiClient, never()).get(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("youtube.search.local").tag("result", "quota-saving").counter().count());
+    }
+
+    @Test
+    void searchVideos_shouldRejectWithQuotaError_whenQuotaIsExhaustedAndNothingLocal() {
+        quotaGovernor.markExhausted();
+
+        assertThrows(YoutubeQuotaExceededException.class, () -> youTubeService.searchVideos("query"));
+        verify(apiClient, never()).get(anyString(), any());
+    }
+
+    @Test
+    void searchVideos_shouldStopCallingApi_afterApiReportsQuotaExceeded() {
+        when(apiClient.get(contains("/search"), any()))
+                .thenThrow(new YoutubeQuotaExceededException("quotaExceeded", java.time.Duration.ZERO));
+
+        assertThrows(YoutubeQuotaExceededException.class, () -> youTubeService.searchVideos("query"));
+        assertThrows(YoutubeQuotaExceededException.class, () -> youTubeService.searchVideos("outra query"));
+
+        verify(apiClient, times(1)).get(anyString(), any());
+        assertEquals(0, quotaGovernor.remaining());
+    }
+
+    @Test
+    void searchVideos_shouldNotExhaustQuotaNorTouchCircuit_whenBucketWaitTimesOut() {
+        // Balde de 100 unidades que leva um minuto para encher; espera máxima de 100ms
+        quotaGovernor = new YoutubeQuotaGovernor(meterRegistry, 10_000, 20, 100, 100, 100);
+        // openMs = 0: depois de aberto, o circuito já fica meio-aberto
+        circuitBreaker = new YoutubeCircuitBreaker(meterRegistry, 2, 0);
+        youTubeService = new YoutubeService(apiClient, new VideoValidationCache(validationRepository, 7, 1000), catalogIndex, quotaGovernor, circuitBreaker, meterRegistry, 60, 4320, 1, 4, 3, 5);
+        ReflectionTestUtils.setField(youTubeService, "apiKey", MOCK_API_KEY);
+        quotaGovernor.acquire(YoutubeQuotaGovernor.CallType.SEARCH);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(YoutubeService.YoutubeUnavailableException.class, () -> circuitBreaker.call(() -> {
+                throw new YoutubeService.YoutubeUnavailableException("timeout", null);
+            }));
+        }
+        assertEquals(YoutubeCircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+
+        assertThrows(YoutubeQuotaExceededException.class, () -> youTubeService.searchVideos("query"));
+
+        verify(apiClient, never()).get(anyString(), any());
+        assertNotEquals(YoutubeQuotaGovernor.Stage.EXHAUSTED, quotaGovernor.stage());
+        assertEquals(10_000 - 100, quotaGovernor.remaining());
+        assertEquals(YoutubeCircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+    }
+
+    @Test
+    void searchVideos_shouldFailFast_whenCircuitIsOpen() {
+        when(apiClient.get(contains("/search"), any()))
+                .thenThrow(new YoutubeService.YoutubeUnavailableException("timeout", null));
+
+        youTubeService.searchVideos("query 1");
+        youTubeService.searchVideos("query 2");
+        assertTrue(circuitBreaker.isOpen());
+
+        List<YouTubeVideoDTO> result = youTubeService.searchVideos("query 3");
+
+        assertTrue(result.isEmpty());
+        verify(apiClient, times(2)).get(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("youtube.circuit.rejected").counter().count());
+    }
+
+    @Test
+    void searchVideos_shouldServeStaleResult_andRefreshInBackground() throws Exception {
+        when(apiClient.get(contains("/search"), any()))
+                .then(typed(searchResponse("VIDEO_A")))
+                .then(typed(searchResponse("VIDEO_B")));
+        when(apiClient.get(contains("/videos"), any()))
+                .then(typed(detailResponse("VIDEO_A")))
+                .then(typed(detailResponse("VIDEO_B")));
+        youTubeService.searchVideos("query");
+        expireRefreshInterval();
+
+        // Vencida: devolve o resultado antigo na hora e atualiza em segundo plano
+        List<YouTubeVideoDTO> stale = youTubeService.searchVideos("query");
+        assertEquals("VIDEO_A", stale.get(0).getVideoId());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("youtube.search.cache.refresh").tag("result", "fetched").counter().count() < 1
+                || !"VIDEO_B".equals(cachedVideoId())) {
+            assertTrue(System.currentTimeMillis() < deadline, "A atualização em segundo plano não terminou");
+            Thread.sleep(10);
+        }
+        verify(apiClient, times(2)).get(contains("/search"), any());
+    }
+
+    @Test
+    void searchVideos_shouldKeepStaleResult_whenCircuitIsOpen() throws Exception {
+        when(apiClient.get(contains("/search"), any())).then(typed(searchResponse("VIDEO_A")));
+        when(apiClient.get(contains("/videos"), any())).then(typed(detailResponse("VIDEO_A")));
+        youTubeService.searchVideos("query");
+        for (int i = 0; i < 2; i++) {
+            assertThrows(RuntimeException.class, () -> circuitBreaker.call(() -> {
+                throw new YoutubeService.YoutubeUnavailableException("timeout", null);
+            }));
+        }
+        expireRefreshInterval();
+
+        List<YouTubeVideoDTO> stale = youTubeService.searchVideos("query");
+
+        assertEquals("VIDEO_A", stale.get(0).getVideoId());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("youtube.search.cache.refresh").tag("result", "skipped").counter().count() < 1) {
+            assertTrue(System.currentTimeMillis() < deadline, "A atualização não foi adiada");
+            Thread.sleep(10);
+        }
+        verify(apiClient, times(1)).get(contains("/search"), any());
+    }
+
+    // Faz as entradas do cache vencerem na hora (ttl-minutes), sem esperar o relógio
+    private void expireRefreshInterval() {
+        searchCache().policy().refreshAfterWrite()
+                .ifPresent(refresh -> refresh.setRefreshesAfter(java.time.Duration.ofNanos(1)));
+    }
+
+    private String cachedVideoId() {
+        return searchCache().asMap().values().stream()
+                .flatMap(List::stream)
+                .map(YouTubeVideoDTO::getVideoId)
+                .findFirst().orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, List<YouTubeVideoDTO>> searchCache() {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, List<YouTubeVideoDTO>>)
+                ReflectionTestUtils.getField(youTubeService, "searchCache");
+    }
+
+    private double coalescedCount() {
+        return meterRegistry.get("youtube.search.inflight.requests").tag("result", "coalesced").counter().count();
+    }
+
+    // As respostas são montadas no formato do JSON da API e decodificadas nos records, como no YoutubeApiClient
+    private static Answer<Object> typed(Map<String, Object> json) {
+        return invocation -> MAPPER.convertValue(json, (Class<?>) invocation.getArgument(1));
+    }
+
+    private static Map<String, Object> searchResponse(String... videoIds) {
+        return Map.of("items", java.util.Arrays.stream(videoIds)
+                .map(id -> Map.of("id", Map.of("videoId", id), "snippet", Map.of("title", "Música " + id)))
+                .toList());
+    }
+
+    private static Map<String, Object> detailResponse(String... videoIds) {
+        return Map.of("items", java.util.Arrays.stream(videoIds)
+                .map(id -> Map.of(
+                        "id", id,
+                        "status", Map.of("embeddable", true),
+                        "contentDetails", Map.of("duration", "PT4M5S")))
+                .toList());
+    }
+}
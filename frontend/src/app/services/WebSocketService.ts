@@ -24,6 +24,23 @@ export interface FilaUpdate {
   sessionStatus: string;
   connectedUsers: ConnectedUser[];
   hostEmail: string; // Adicionado
+  seq: number; // Sequência da última alteração incluída no retrato
+}
+
+// Alteração individual de um FilaDeltaDTO (só vêm os campos usados pela operação)
+export interface FilaChange {
+  op: 'ITEM_ADDED' | 'ITEM_REMOVED' | 'ITEM_MOVED' | 'NOW_PLAYING' | 'USER_JOINED' | 'USER_LEFT';
+  queueItemId?: number;
+  index?: number;
+  item?: QueueItemDTO;
+  user?: ConnectedUser;
+}
+
+// Mensagem do tópico: só o que mudou desde a mensagem anterior (seq anterior + 1)
+export interface FilaDelta {
+  type: 'delta';
+  seq: number;
+  changes: FilaChange[];
 }
 
 @Injectable({
@@ -34,6 +51,11 @@ export class WebSocketService {
   private filaUpdatesSubject = new Subject<FilaUpdate>();
   public filaUpdates$: Observable<FilaUpdate>;
 
+  // Estado montado a partir do retrato + deltas; null até o primeiro retrato chegar
+  private current: FilaUpdate | null = null;
+  private pendingDeltas: FilaDelta[] = [];
+  private awaitingSnapshot = false;
+
   constructor() {
     this.filaUpdates$ = this.filaUpdatesSubject.asObservable();
     this.client = new Client({
@@ -64,17 +86,28 @@ export class WebSocketService {
       const topic = `/topic/fila/${sessionCode.toUpperCase()}`;
       console.log(`[WebSocket] Inscrevendo-se no tópico: ${topic}`);
 
+      this.current = null;
+      this.pendingDeltas = [];
+      this.awaitingSnapshot = false;
+
       this.client.subscribe(topic, (message: IMessage) => {
         console.log('[WebSocket] ✓ Mensagem recebida:', message.body);
         try {
-          const filaUpdate = JSON.parse(message.body) as FilaUpdate;
-          console.log('[WebSocket] Estado da fila:', filaUpdate);
-          this.filaUpdatesSubject.next(filaUpdate);
+          const payload = JSON.parse(message.body);
+          if (payload.type === 'delta') {
+            this.handleDelta(sessionCode, payload as FilaDelta);
+          } else {
+            // Retrato completo (servidor ainda sem base de deltas para a sessão)
+            this.handleSnapshot(payload as FilaUpdate);
+          }
         } catch (e) {
           console.error('[WebSocket] Erro ao processar mensagem:', e);
         }
       });
 
+      // O tópico só traz deltas: o estado inicial vem do retrato pedido na inscrição
+      this.requestSnapshot(sessionCode);
+
       console.log('[WebSocket] Inscrição concluída com sucesso');
     };
 
@@ -96,4 +129,90 @@ export class WebSocketService {
       this.client.deactivate();
     }
   }
+
+  /**
+   * Pede o retrato completo da fila. Usado ao conectar e quando falta algum delta
+   * na sequência (mensagem perdida).
+   */
+  private requestSnapshot(sessionCode: string): void {
+    if (this.awaitingSnapshot) return;
+    this.awaitingSnapshot = true;
+
+    const subscription = this.client.subscribe(`/app/fila/${sessionCode.toUpperCase()}`, (message: IMessage) => {
+      subscription.unsubscribe();
+      this.awaitingSnapshot = false;
+      try {
+        this.handleSnapshot(JSON.parse(message.body) as FilaUpdate);
+      } catch (e) {
+        console.error('[WebSocket] Erro ao processar retrato da fila:', e);
+      }
+    });
+  }
+
+  private handleSnapshot(snapshot: FilaUpdate): void {
+    this.current = snapshot;
+
+    // Deltas que chegaram enquanto o retrato estava a caminho
+    const pending = this.pendingDeltas.filter(d => d.seq > snapshot.seq).sort((a, b) => a.seq - b.seq);
+    this.pendingDeltas = [];
+    for (const delta of pending) {
+      if (delta.seq !== this.current.seq + 1) break;
+      this.current = this.applyDelta(this.current, delta);
+    }
+
+    console.log('[WebSocket] Estado da fila:', this.current);
+    this.filaUpdatesSubject.next(this.current);
+  }
+
+  private handleDelta(sessionCode: string, delta: FilaDelta): void {
+    if (this.current === null || this.awaitingSnapshot) {
+      this.pendingDeltas.push(delta);
+      return;
+    }
+    if (delta.seq <= this.current.seq) return; // Já incluído no retrato
+
+    if (delta.seq !== this.current.seq + 1) {
+      console.warn(`[WebSocket] Buraco na sequência (esperado ${this.current.seq + 1}, recebido ${delta.seq}), pedindo retrato`);
+      this.pendingDeltas.push(delta);
+      this.requestSnapshot(sessionCode);
+      return;
+    }
+
+    this.current = this.applyDelta(this.current, delta);
+    console.log('[WebSocket] Estado da fila:', this.current);
+    this.filaUpdatesSubject.next(this.current);
+  }
+
+  // Mesmo algoritmo do backend: tira removidos e movidos, depois insere nas posições finais
+  private applyDelta(state: FilaUpdate, delta: FilaDelta): FilaUpdate {
+    const byId = new Map(state.songQueue.map(item => [item.queueItemId, item]));
+    const leaving = new Set(delta.changes
+      .filter(c => c.op === 'ITEM_REMOVED' || c.op === 'ITEM_MOVED')
+      .map(c => c.queueItemId));
+
+    const songQueue = state.songQueue.filter(item => !leaving.has(item.queueItemId));
+    let nowPlaying = state.nowPlaying;
+    let connectedUsers = state.connectedUsers;
+
+    for (const change of delta.changes) {
+      switch (change.op) {
+        case 'ITEM_ADDED':
+          songQueue.splice(change.index!, 0, change.item!);
+          break;
+        case 'ITEM_MOVED':
+          songQueue.splice(change.index!, 0, byId.get(change.queueItemId!)!);
+          break;
+        case 'NOW_PLAYING':
+          nowPlaying = songQueue.find(item => item.queueItemId === change.queueItemId) ?? null;
+          break;
+        case 'USER_JOINED':
+          connectedUsers = [...connectedUsers, change.user!];
+          break;
+        case 'USER_LEFT':
+          connectedUsers = connectedUsers.filter(u => u.id !== change.user!.id);
+          break;
+      }
+    }
+    return {...state, songQueue, nowPlaying, connectedUsers, seq: delta.seq};
+  }
 }